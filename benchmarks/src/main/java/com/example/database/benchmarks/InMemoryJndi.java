@@ -0,0 +1,208 @@
+package com.example.database.benchmarks;
+
+import javax.naming.Binding;
+import javax.naming.CompositeName;
+import javax.naming.Context;
+import javax.naming.Name;
+import javax.naming.NameClassPair;
+import javax.naming.NameNotFoundException;
+import javax.naming.NameParser;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.OperationNotSupportedException;
+import javax.naming.spi.InitialContextFactory;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A naming service in memory, standing in for an application server's.
+ * Name it as {@link Context#INITIAL_CONTEXT_FACTORY} to look up what
+ * {@link #bind(String, Object)} stored. Setting {@link #LATENCY_MICROS} in
+ * the environment makes each lookup take that long, like the network round
+ * trip of a remote naming service.
+ */
+public final class InMemoryJndi implements InitialContextFactory {
+
+    static final String LATENCY_MICROS = "inmemory.jndi.latency.micros";
+
+    private static final Map<String, Object> BINDINGS = new ConcurrentHashMap<>();
+
+    static void bind(String name, Object object) {
+        BINDINGS.put(name, object);
+    }
+
+    @Override
+    public Context getInitialContext(Hashtable<?, ?> environment) {
+        Object latency = environment == null ? null : environment.get(LATENCY_MICROS);
+        long latencyNanos = latency == null ? 0 : TimeUnit.MICROSECONDS.toNanos(Long.parseLong(latency.toString()));
+        return new MemoryContext(environment == null ? new Hashtable<>() : new Hashtable<>(environment), latencyNanos);
+    }
+
+    /**
+     * Supports lookup only; everything else is refused.
+     */
+    private static final class MemoryContext implements Context {
+
+        private final Hashtable<Object, Object> environment;
+        private final long latencyNanos;
+
+        MemoryContext(Hashtable<Object, Object> environment, long latencyNanos) {
+            this.environment = environment;
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public Object lookup(String name) throws NamingException {
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+            Object bound = BINDINGS.get(name);
+            if (bound == null) {
+                throw new NameNotFoundException(name);
+            }
+            return bound;
+        }
+
+        @Override
+        public Object lookup(Name name) throws NamingException {
+            return lookup(name.toString());
+        }
+
+        @Override
+        public Hashtable<?, ?> getEnvironment() {
+            return environment;
+        }
+
+        @Override
+        public Object addToEnvironment(String propName, Object propVal) {
+            return environment.put(propName, propVal);
+        }
+
+        @Override
+        public Object removeFromEnvironment(String propName) {
+            return environment.remove(propName);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String getNameInNamespace() {
+            return "";
+        }
+
+        @Override
+        public NameParser getNameParser(String name) {
+            return CompositeName::new;
+        }
+
+        @Override
+        public NameParser getNameParser(Name name) {
+            return CompositeName::new;
+        }
+
+        @Override
+        public Name composeName(Name name, Name prefix) throws NamingException {
+            return ((Name) prefix.clone()).addAll(name);
+        }
+
+        @Override
+        public String composeName(String name, String prefix) {
+            return prefix.isEmpty() ? name : prefix + "/" + name;
+        }
+
+        @Override
+        public void bind(Name name, Object obj) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void bind(String name, Object obj) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void rebind(Name name, Object obj) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void rebind(String name, Object obj) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void unbind(Name name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void unbind(String name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void rename(Name oldName, Name newName) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void rename(String oldName, String newName) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public NamingEnumeration<NameClassPair> list(Name name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public NamingEnumeration<NameClassPair> list(String name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public NamingEnumeration<Binding> listBindings(Name name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public NamingEnumeration<Binding> listBindings(String name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void destroySubcontext(Name name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public void destroySubcontext(String name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public Context createSubcontext(Name name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public Context createSubcontext(String name) throws NamingException {
+            throw new OperationNotSupportedException();
+        }
+
+        @Override
+        public Object lookupLink(Name name) throws NamingException {
+            return lookup(name);
+        }
+
+        @Override
+        public Object lookupLink(String name) throws NamingException {
+            return lookup(name);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.database.benchmarks;
+
+import com.example.database.jndi.JndiDataSourceCache;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving a data source through {@code new InitialContext(env).lookup}
+ * on every call, as the JNDI examples do, against
+ * {@link JndiDataSourceCache}. The naming service is {@link InMemoryJndi};
+ * {@code latencyMicros} adds the round trip a remote one would take, and
+ * at 0 what remains is the cost of building the context itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JndiLookupBenchmark {
+
+    private static final String NAME = "java:comp/env/jdbc/MyDataSource";
+
+    @Param({"0", "200"})
+    public int latencyMicros;
+
+    private Hashtable<String, String> environment;
+    private JndiDataSourceCache cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(Pools.URL);
+        InMemoryJndi.bind(NAME, dataSource);
+        environment = new Hashtable<>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, InMemoryJndi.class.getName());
+        environment.put(InMemoryJndi.LATENCY_MICROS, Integer.toString(latencyMicros));
+        cache = new JndiDataSourceCache(Duration.ofMinutes(5));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    public DataSource uncached() throws NamingException {
+        Context context = new InitialContext(environment);
+        try {
+            return (DataSource) context.lookup(NAME);
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public DataSource cached() throws NamingException {
+        return cache.lookup(NAME, environment);
+    }
+}
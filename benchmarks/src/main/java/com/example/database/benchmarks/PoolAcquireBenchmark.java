@@ -0,0 +1,68 @@
+package com.example.database.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of {@code getConnection} and {@code close} through each pool,
+ * sampled per call so the result carries p50, p99 and p999. With one
+ * thread it is the uncontended cost; run with {@code -t N}, or through
+ * {@link PoolSweep} for a range of thread counts, threads beyond
+ * {@code size} queue for connections.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Dcom.zaxxer.hikari.aliveBypassWindowMs=0",
+        "-Dcom.mchange.v2.log.MLog=com.mchange.v2.log.FallbackMLog",
+        "-Dcom.mchange.v2.log.FallbackMLog.DEFAULT_CUTOFF_LEVEL=WARNING"
+})
+@State(Scope.Benchmark)
+public class PoolAcquireBenchmark {
+
+    @Param({"hikari", "dbcp2", "c3p0", "tomcat"})
+    public String pool;
+
+    @Param({"none", "isValid", "query"})
+    public String validation;
+
+    @Param({"16"})
+    public int size;
+
+    private DataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = Pools.open(pool, size, validation);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        Pools.close(dataSource);
+    }
+
+    @Benchmark
+    public Connection acquireRelease() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        return connection;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.database.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.openjdk.jmh.util.Statistics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs {@link PoolAcquireBenchmark} at each thread count and prints one
+ * table of acquire latency percentiles per pool and validation mode.
+ *
+ * <pre>
+ * java com.example.database.benchmarks.PoolSweep [--threads 1,4,16,64,256] [--pools hikari,dbcp2]
+ *     [--validation none,isValid,query] [--size N]
+ * </pre>
+ *
+ * JMH sets the thread count per run rather than per parameter, hence one
+ * run per count. Times are in microseconds.
+ */
+public final class PoolSweep {
+
+    private PoolSweep() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String[] threads = {"1", "2", "4", "8", "16", "32", "64", "128", "256"};
+        String[] pools = {"hikari", "dbcp2", "c3p0", "tomcat"};
+        String[] validations = {"none", "isValid", "query"};
+        String size = "16";
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = args[++i].split(",");
+            } else if ("--pools".equals(args[i]) && i + 1 < args.length) {
+                pools = args[++i].split(",");
+            } else if ("--validation".equals(args[i]) && i + 1 < args.length) {
+                validations = args[++i].split(",");
+            } else if ("--size".equals(args[i]) && i + 1 < args.length) {
+                size = args[++i];
+            } else {
+                System.err.println("usage: PoolSweep [--threads N,..] [--pools NAME,..] [--validation MODE,..] [--size N]");
+                System.exit(2);
+            }
+        }
+
+        Map<String, String> rows = new TreeMap<>();
+        for (String count : threads) {
+            System.err.println("threads " + count);
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(PoolAcquireBenchmark.class.getName() + ".acquireRelease")
+                    .threads(Integer.parseInt(count))
+                    .param("pool", pools)
+                    .param("validation", validations)
+                    .param("size", size)
+                    .verbosity(VerboseMode.SILENT);
+            Collection<RunResult> results = new Runner(options.build()).run();
+            for (RunResult result : results) {
+                Statistics statistics = result.getPrimaryResult().getStatistics();
+                String pool = result.getParams().getParam("pool");
+                String validation = result.getParams().getParam("validation");
+                String key = String.format("%s %s %05d", pool, validation, Integer.parseInt(count));
+                rows.put(key, String.format("%-8s %-10s %7s %10.1f %10.1f %10.1f %10.1f %12d", pool, validation, count,
+                        statistics.getPercentile(50), statistics.getPercentile(99), statistics.getPercentile(99.9),
+                        statistics.getMax(), statistics.getN()));
+            }
+        }
+        System.out.printf("%-8s %-10s %7s %10s %10s %10s %10s %12s%n",
+                "pool", "validation", "threads", "p50", "p99", "p999", "max", "samples");
+        rows.values().forEach(System.out::println);
+    }
+}
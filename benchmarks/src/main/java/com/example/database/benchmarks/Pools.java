@@ -0,0 +1,145 @@
+package com.example.database.benchmarks;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The four pools of the fixtures, configured alike over an H2 in-memory
+ * database so that only the pool differs between runs.
+ *
+ * <p>Each pool is fixed at {@code size} connections, opened up front, and
+ * validates on every checkout in the chosen way: {@code none} never
+ * validates, {@code isValid} calls JDBC4 {@link Connection#isValid(int)},
+ * and {@code query} runs {@code SELECT 1}. HikariCP skips validation for
+ * connections used within the last 500 ms unless
+ * {@code com.zaxxer.hikari.aliveBypassWindowMs} is 0, which the benchmarks
+ * set, so it validates as often as the others. It cannot be told not to
+ * validate at all, so its {@code none} runs are {@code isValid} runs.
+ */
+final class Pools {
+
+    static final String URL = "jdbc:h2:mem:pools;DB_CLOSE_DELAY=-1";
+    static final String TEST_QUERY = "SELECT 1";
+
+    private Pools() {
+    }
+
+    static DataSource open(String pool, int size, String validation) throws SQLException {
+        boolean validate = !"none".equals(validation);
+        String query = "query".equals(validation) ? TEST_QUERY : null;
+        if (validate && query == null && !"isValid".equals(validation)) {
+            throw new IllegalArgumentException("Unknown validation " + validation);
+        }
+        DataSource dataSource;
+        switch (pool) {
+            case "hikari":
+                dataSource = hikari(size, query);
+                break;
+            case "dbcp2":
+                dataSource = dbcp2(size, validate, query);
+                break;
+            case "c3p0":
+                dataSource = c3p0(size, validate, query);
+                break;
+            case "tomcat":
+                dataSource = tomcat(size, validate, query);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pool " + pool);
+        }
+        warm(dataSource, size);
+        return dataSource;
+    }
+
+    static void close(DataSource dataSource) throws SQLException {
+        if (dataSource instanceof HikariDataSource) {
+            ((HikariDataSource) dataSource).close();
+        } else if (dataSource instanceof BasicDataSource) {
+            ((BasicDataSource) dataSource).close();
+        } else if (dataSource instanceof ComboPooledDataSource) {
+            ((ComboPooledDataSource) dataSource).close();
+        } else if (dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource) {
+            ((org.apache.tomcat.jdbc.pool.DataSource) dataSource).close();
+        }
+    }
+
+    private static DataSource hikari(int size, String query) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(URL);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(size);
+        config.setConnectionTestQuery(query);
+        config.setPoolName("hikari-bench");
+        return new HikariDataSource(config);
+    }
+
+    private static DataSource dbcp2(int size, boolean validate, String query) {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl(URL);
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setInitialSize(size);
+        dataSource.setMaxTotal(size);
+        dataSource.setMaxIdle(size);
+        dataSource.setMinIdle(size);
+        dataSource.setTestOnBorrow(validate);
+        dataSource.setValidationQuery(query);
+        return dataSource;
+    }
+
+    private static DataSource c3p0(int size, boolean validate, String query) {
+        ComboPooledDataSource dataSource = new ComboPooledDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        dataSource.setInitialPoolSize(size);
+        dataSource.setMinPoolSize(size);
+        dataSource.setMaxPoolSize(size);
+        dataSource.setTestConnectionOnCheckout(validate);
+        dataSource.setPreferredTestQuery(query);
+        return dataSource;
+    }
+
+    private static DataSource tomcat(int size, boolean validate, String query) {
+        org.apache.tomcat.jdbc.pool.DataSource dataSource = new org.apache.tomcat.jdbc.pool.DataSource();
+        dataSource.setUrl(URL);
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setInitialSize(size);
+        dataSource.setMaxActive(size);
+        dataSource.setMaxIdle(size);
+        dataSource.setMinIdle(size);
+        dataSource.setTestOnBorrow(validate);
+        dataSource.setValidationQuery(query);
+        dataSource.setValidationInterval(0);
+        return dataSource;
+    }
+
+    /**
+     * Checks out every connection at once so none is created during
+     * measurement.
+     */
+    private static void warm(DataSource dataSource, int size) throws SQLException {
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.database.benchmarks;
+
+import com.example.database.jdbc.StatementCachingDataSource;
+import com.example.database.pool.FairPoolingDataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparing, running and closing the same statements on pooled connections,
+ * with the pool opening its connections through
+ * {@link StatementCachingDataSource} and without. Uncached, every call
+ * parses its SQL again; cached, only the first call on each connection
+ * does. H2 runs in process, so this is the parse alone, and a driver that
+ * prepares on the server saves a round trip on top. H2's own small cache
+ * of parsed queries is turned off so that it does not hide the parse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementCacheBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0";
+    private static final String INSERT = "INSERT INTO employees (id, name, age) VALUES (?, ?, ?)";
+    private static final String SELECT = "SELECT name, age FROM staff WHERE id = ?";
+    private static final int STAFF = 1000;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private FairPoolingDataSource pool;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL(URL);
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS employees (id INT, name VARCHAR(50), age INT)");
+            statement.execute("CREATE TABLE IF NOT EXISTS staff (id INT PRIMARY KEY, name VARCHAR(50), age INT)");
+            statement.execute("MERGE INTO staff SELECT X, 'employee ' || X, 20 + MOD(X, 40) FROM SYSTEM_RANGE(1, "
+                    + STAFF + ")");
+        }
+        DataSource source = cached ? new StatementCachingDataSource(h2, 64) : h2;
+        pool = new FairPoolingDataSource(source, 4);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE employees");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        int id = next++;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setInt(1, id);
+            statement.setString(2, "employee " + id);
+            statement.setInt(3, 20 + id % 40);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int select() throws SQLException {
+        int id = 1 + next++ % STAFF;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            statement.setInt(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(2) : -1;
+            }
+        }
+    }
+}
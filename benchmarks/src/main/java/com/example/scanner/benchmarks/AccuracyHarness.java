@@ -0,0 +1,189 @@
+package com.example.scanner.benchmarks;
+
+import com.example.scanner.Finding;
+import com.example.scanner.Rule;
+import com.example.scanner.ScanEngine;
+import com.example.scanner.SourceBytes;
+import com.example.scanner.SourceFile;
+import com.example.scanner.rule.RuleCatalog;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scores every rule against the {@code VIOLATION} markers of its fixture and
+ * times it over the whole corpus, in one table.
+ *
+ * <pre>
+ * java com.example.scanner.benchmarks.AccuracyHarness [--iterations N] [--baseline FILE]
+ * </pre>
+ *
+ * Rules run exactly as the engine runs them, including the
+ * {@linkplain Rule#requiredSymbols() symbol gate}, and only their findings in
+ * the fixture with the same number are scored; see {@link Markers}. Wall
+ * time and allocated bytes are averaged over {@code --iterations} passes
+ * after one warm-up pass, which also builds the per-file analyses so that
+ * each rule is charged for its own work only.
+ *
+ * <p>With {@code --baseline}, the per-rule counts are compared with the
+ * given file and the harness exits with status 1 if any rule lost a true
+ * positive or gained a false positive; a missing file is written instead.
+ * This keeps a faster rule from silently losing accuracy.
+ */
+public final class AccuracyHarness {
+
+    private static final Pattern FIXTURE = Pattern.compile("java-db-(\\d+)");
+
+    private AccuracyHarness() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int iterations = 3;
+        Path baseline = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("--baseline".equals(args[i]) && i + 1 < args.length) {
+                baseline = Paths.get(args[++i]);
+            } else {
+                System.err.println("usage: AccuracyHarness [--iterations N] [--baseline FILE]");
+                System.exit(2);
+            }
+        }
+
+        Corpus corpus = Corpus.load();
+        List<Rule> rules = RuleCatalog.defaultRules();
+        List<SourceFile> sources = corpus.parse();
+        List<Set<Rule>> applicable = new ArrayList<>(sources.size());
+        try (ScanEngine engine = new ScanEngine(rules, 1)) {
+            for (Path path : corpus.paths()) {
+                applicable.add(new HashSet<>(engine.applicableRules(SourceBytes.read(path).symbols())));
+            }
+        }
+
+        Map<String, Markers.Score> scores = new TreeMap<>();
+        List<Finding> findings = new ArrayList<>();
+        for (int f = 0; f < sources.size(); f++) {
+            SourceFile source = sources.get(f);
+            Rule scored = fixtureRule(rules, corpus.paths().get(f));
+            for (Rule rule : applicable.get(f)) {
+                findings.clear();
+                rule.evaluate(source, findings);
+                if (rule == scored) {
+                    Markers markers = Markers.of(source);
+                    if (!markers.isEmpty()) {
+                        scores.computeIfAbsent(rule.id(), id -> new Markers.Score()).add(markers.score(findings));
+                    }
+                }
+            }
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long thread = Thread.currentThread().getId();
+
+        System.out.printf("%-13s %-42s %5s %5s %5s %9s %7s %10s %10s%n",
+                "rule", "name", "tp", "fn", "fp", "precision", "recall", "ms/pass", "KB/pass");
+        Markers.Score total = new Markers.Score();
+        double totalMillis = 0;
+        double totalKilobytes = 0;
+        for (Rule rule : rules) {
+            long allocatedBefore = allocations == null ? 0 : allocations.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (int f = 0; f < sources.size(); f++) {
+                    if (applicable.get(f).contains(rule)) {
+                        findings.clear();
+                        rule.evaluate(sources.get(f), findings);
+                    }
+                }
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / iterations;
+            double kilobytes = allocations == null ? Double.NaN
+                    : (allocations.getThreadAllocatedBytes(thread) - allocatedBefore) / 1024.0 / iterations;
+            totalMillis += millis;
+            totalKilobytes += kilobytes;
+
+            Markers.Score score = scores.get(rule.id());
+            if (score == null) {
+                System.out.printf("%-13s %-42s %5s %5s %5s %9s %7s %10.2f %10.1f%n",
+                        rule.id(), rule.name(), "-", "-", "-", "-", "-", millis, kilobytes);
+            } else {
+                total.add(score);
+                System.out.printf("%-13s %-42s %5d %5d %5d %9.3f %7.3f %10.2f %10.1f%n",
+                        rule.id(), rule.name(), score.truePositives, score.falseNegatives, score.falsePositives,
+                        score.precision(), score.recall(), millis, kilobytes);
+            }
+        }
+        System.out.printf("%-56s %5d %5d %5d %9.3f %7.3f %10.2f %10.1f%n",
+                "total", total.truePositives, total.falseNegatives, total.falsePositives,
+                total.precision(), total.recall(), totalMillis, totalKilobytes);
+
+        if (baseline != null && !checkBaseline(baseline, scores)) {
+            System.exit(1);
+        }
+    }
+
+    private static Rule fixtureRule(List<Rule> rules, Path path) {
+        Matcher m = FIXTURE.matcher(path.getFileName().toString());
+        if (!m.lookingAt()) {
+            return null;
+        }
+        String id = String.format("sql-java-%03d", Integer.parseInt(m.group(1)));
+        for (Rule rule : rules) {
+            if (rule.id().equals(id)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares {@code scores} with the baseline file, or writes it if it does
+     * not exist yet. Returns false if any rule regressed.
+     */
+    private static boolean checkBaseline(Path file, Map<String, Markers.Score> scores) throws IOException {
+        if (Files.notExists(file)) {
+            List<String> lines = new ArrayList<>();
+            lines.add("rule\ttp\tfn\tfp");
+            for (Map.Entry<String, Markers.Score> entry : scores.entrySet()) {
+                Markers.Score score = entry.getValue();
+                lines.add(entry.getKey() + "\t" + score.truePositives + "\t" + score.falseNegatives
+                        + "\t" + score.falsePositives);
+            }
+            Files.write(file, lines, StandardCharsets.UTF_8);
+            System.out.println("wrote baseline " + file);
+            return true;
+        }
+        boolean ok = true;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] columns = line.split("\t");
+            if (columns.length != 4 || columns[0].equals("rule")) {
+                continue;
+            }
+            Markers.Score score = scores.get(columns[0]);
+            int truePositives = score == null ? 0 : score.truePositives;
+            int falsePositives = score == null ? 0 : score.falsePositives;
+            if (truePositives < Integer.parseInt(columns[1]) || falsePositives > Integer.parseInt(columns[3])) {
+                System.out.printf("REGRESSION %s: tp %s -> %d, fp %s -> %d%n",
+                        columns[0], columns[1], truePositives, columns[3], falsePositives);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.scanner.benchmarks;
+
+import com.example.scanner.ScanEngine;
+import com.example.scanner.SourceFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fixture corpus replayed by the benchmarks.
+ *
+ * <p>The directory comes from the {@code scanner.corpus} system property and
+ * defaults to {@code testdata}, falling back to {@code ../testdata} so the
+ * harness works from both the repository root and the module directory.
+ */
+final class Corpus {
+
+    static final String PROPERTY = "scanner.corpus";
+
+    private final List<Path> paths;
+    private final List<String> texts;
+    private final long bytes;
+
+    private Corpus(List<Path> paths, List<String> texts, long bytes) {
+        this.paths = paths;
+        this.texts = texts;
+        this.bytes = bytes;
+    }
+
+    static Corpus load() {
+        Path root = locate();
+        try {
+            List<Path> paths = ScanEngine.collectSources(root);
+            List<String> texts = new ArrayList<>(paths.size());
+            long bytes = 0;
+            for (Path path : paths) {
+                byte[] content = Files.readAllBytes(path);
+                bytes += content.length;
+                texts.add(new String(content, StandardCharsets.UTF_8));
+            }
+            if (paths.isEmpty()) {
+                throw new IllegalStateException("No .java files under " + root.toAbsolutePath());
+            }
+            return new Corpus(Collections.unmodifiableList(paths), Collections.unmodifiableList(texts), bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path locate() {
+        String configured = System.getProperty(PROPERTY);
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        Path local = Paths.get("testdata");
+        return Files.isDirectory(local) ? local : Paths.get("..", "testdata");
+    }
+
+    List<Path> paths() {
+        return paths;
+    }
+
+    List<String> texts() {
+        return texts;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Parses every file up front, for benchmarks that measure rule
+     * evaluation alone.
+     */
+    List<SourceFile> parse() {
+        List<SourceFile> sources = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            sources.add(SourceFile.parse(paths.get(i).toString(), texts.get(i)));
+        }
+        return Collections.unmodifiableList(sources);
+    }
+}
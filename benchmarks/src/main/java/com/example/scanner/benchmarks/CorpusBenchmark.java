@@ -0,0 +1,88 @@
+package com.example.scanner.benchmarks;
+
+import com.example.scanner.Finding;
+import com.example.scanner.ScanEngine;
+import com.example.scanner.ScanReport;
+import com.example.scanner.SourceFile;
+import com.example.scanner.rule.RuleCatalog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-corpus cost of a scan, split into its phases: lexing every fixture,
+ * evaluating the full rule set over pre-parsed files, and the end-to-end
+ * parallel scan including file reads. Each invocation covers the complete
+ * corpus, so the score divides directly into files/s and MB/s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorpusBenchmark {
+
+    private Corpus corpus;
+    private List<SourceFile> sources;
+    private ScanEngine sequential;
+    private ScanEngine parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        corpus = Corpus.load();
+        sources = corpus.parse();
+        sequential = new ScanEngine(RuleCatalog.defaultRules(), 1);
+        parallel = new ScanEngine(RuleCatalog.defaultRules());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sequential.close();
+        parallel.close();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        List<String> texts = corpus.texts();
+        for (int i = 0; i < texts.size(); i++) {
+            blackhole.consume(SourceFile.parse(corpus.paths().get(i).toString(), texts.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (SourceFile source : sources) {
+            List<Finding> findings = sequential.evaluate(source);
+            blackhole.consume(findings);
+        }
+    }
+
+    @Benchmark
+    public void parseAndEvaluate(Blackhole blackhole) {
+        List<String> texts = corpus.texts();
+        for (int i = 0; i < texts.size(); i++) {
+            SourceFile source = SourceFile.parse(corpus.paths().get(i).toString(), texts.get(i));
+            blackhole.consume(sequential.evaluate(source));
+        }
+    }
+
+    @Benchmark
+    public ScanReport scanParallel() {
+        return parallel.scan(corpus.paths());
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.scanner.benchmarks;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code // VIOLATION} and {@code // NON-VIOLATION} annotations of one
+ * fixture, as line regions that findings can be aligned to.
+ *
+ * <p>A marker after code on the same line covers that line. A marker on a
+ * line of its own covers the declaration or statement that follows, up to
+ * its closing brace or semicolon, and stops early where a later stand-alone
+ * marker at the same or a shallower indent begins. Markers inside a
+ * {@code main} method describe demo calls rather than the code under test
+ * and are ignored, as are markers inside string literals.
+ */
+final class Markers {
+
+    private static final Pattern MARKER = Pattern.compile("(?i)//.*?\\b(non-?\\s?violation|violation)\\b");
+
+    private final List<Region> regions;
+
+    private Markers(List<Region> regions) {
+        this.regions = regions;
+    }
+
+    static Markers of(SourceFile source) {
+        String[] lines = source.text().split("\n", -1);
+        List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            Matcher m = MARKER.matcher(lines[i]);
+            if (!m.find()) {
+                continue;
+            }
+            int line = i + 1;
+            boolean violation = !m.group(1).toLowerCase().startsWith("non");
+            String before = lines[i].substring(0, m.start());
+            if (insideMain(source, line)) {
+                continue;
+            }
+            if (before.trim().isEmpty()) {
+                regions.add(new Region(line, statementEnd(source, line), m.start(), violation, false));
+            } else if (!insideString(before)) {
+                regions.add(new Region(line, line, Integer.MAX_VALUE, violation, true));
+            }
+        }
+        for (int i = 0; i < regions.size(); i++) {
+            Region region = regions.get(i);
+            if (region.trailing) {
+                continue;
+            }
+            for (int j = i + 1; j < regions.size(); j++) {
+                Region next = regions.get(j);
+                if (!next.trailing && next.indent <= region.indent) {
+                    region.end = Math.min(region.end, next.start - 1);
+                    break;
+                }
+            }
+        }
+        return new Markers(Collections.unmodifiableList(regions));
+    }
+
+    boolean isEmpty() {
+        return regions.isEmpty();
+    }
+
+    /**
+     * Scores {@code findings} against the regions: a violation region with
+     * a finding anywhere inside is a true positive and one without is a
+     * false negative; a non-violation region is a false positive if it is
+     * the innermost region of some finding. Findings outside every region
+     * are not scored.
+     */
+    Score score(List<Finding> findings) {
+        boolean[] hit = new boolean[regions.size()];
+        boolean[] innermost = new boolean[regions.size()];
+        for (Finding finding : findings) {
+            int inner = -1;
+            for (int r = 0; r < regions.size(); r++) {
+                Region region = regions.get(r);
+                if (finding.line() >= region.start && finding.line() <= region.end) {
+                    hit[r] = true;
+                    if (inner < 0 || region.within(regions.get(inner))) {
+                        inner = r;
+                    }
+                }
+            }
+            if (inner >= 0) {
+                innermost[inner] = true;
+            }
+        }
+        Score score = new Score();
+        for (int r = 0; r < regions.size(); r++) {
+            Region region = regions.get(r);
+            if (region.violation) {
+                if (hit[r]) {
+                    score.truePositives++;
+                } else {
+                    score.falseNegatives++;
+                }
+            } else if (innermost[r]) {
+                score.falsePositives++;
+            }
+        }
+        return score;
+    }
+
+    private static boolean insideString(String before) {
+        int quote = before.indexOf('"');
+        return quote >= 0 && before.indexOf('"', quote + 1) < 0;
+    }
+
+    private static boolean insideMain(SourceFile source, int line) {
+        for (SourceFile.Method method : source.methods()) {
+            if (method.name().equals("main") && source.lineOf(method.bodyStart()) <= line
+                    && source.lineOf(method.bodyEnd() - 1) >= line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the last line of the declaration or statement starting after
+     * {@code markerLine}.
+     */
+    private static int statementEnd(SourceFile source, int markerLine) {
+        String skeleton = source.skeleton();
+        int offset = 0;
+        for (int line = 1; line <= markerLine && offset < skeleton.length(); offset++) {
+            if (skeleton.charAt(offset) == '\n') {
+                line++;
+            }
+        }
+        int depth = 0;
+        for (int i = offset; i < skeleton.length(); i++) {
+            char c = skeleton.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ';' && depth == 0) {
+                return source.lineOf(i);
+            } else if (c == '{' && depth == 0) {
+                return source.lineOf(source.blockEnd(i) - 1);
+            } else if (c == '}') {
+                return source.lineOf(i);
+            }
+        }
+        return source.lineCount();
+    }
+
+    /**
+     * True positives, false negatives and false positives of one rule.
+     */
+    static final class Score {
+
+        int truePositives;
+        int falseNegatives;
+        int falsePositives;
+
+        void add(Score other) {
+            truePositives += other.truePositives;
+            falseNegatives += other.falseNegatives;
+            falsePositives += other.falsePositives;
+        }
+
+        double precision() {
+            int reported = truePositives + falsePositives;
+            return reported == 0 ? 1 : (double) truePositives / reported;
+        }
+
+        double recall() {
+            int expected = truePositives + falseNegatives;
+            return expected == 0 ? 1 : (double) truePositives / expected;
+        }
+    }
+
+    private static final class Region {
+
+        final int start;
+        int end;
+        final int indent;
+        final boolean violation;
+        final boolean trailing;
+
+        Region(int start, int end, int indent, boolean violation, boolean trailing) {
+            this.start = start;
+            this.end = end;
+            this.indent = indent;
+            this.violation = violation;
+            this.trailing = trailing;
+        }
+
+        /**
+         * Returns whether this region is nested at least as deeply as
+         * {@code other}; trailing markers are the innermost of all.
+         */
+        boolean within(Region other) {
+            return trailing || (!other.trailing && start >= other.start);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.scanner.benchmarks;
+
+import com.example.scanner.Finding;
+import com.example.scanner.Rule;
+import com.example.scanner.SourceFile;
+import com.example.scanner.rule.RuleCatalog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single rule over the whole pre-parsed corpus. Every catalog
+ * rule is a parameter value, so one run yields a per-rule table; restrict it
+ * with {@code -p rule=sql-java-024,sql-java-081} when chasing one rule.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleBenchmark {
+
+    @Param({
+            "sql-java-001", "sql-java-002", "sql-java-003", "sql-java-004", "sql-java-005", "sql-java-006",
+            "sql-java-007", "sql-java-008", "sql-java-009", "sql-java-010", "sql-java-011", "sql-java-012",
+            "sql-java-013", "sql-java-014", "sql-java-015", "sql-java-016", "sql-java-017", "sql-java-018",
+            "sql-java-019", "sql-java-020", "sql-java-021", "sql-java-022", "sql-java-023", "sql-java-024",
+            "sql-java-025", "sql-java-026", "sql-java-027", "sql-java-028", "sql-java-029", "sql-java-030",
+            "sql-java-031", "sql-java-032", "sql-java-033", "sql-java-034", "sql-java-035", "sql-java-036",
+            "sql-java-037", "sql-java-038", "sql-java-039", "sql-java-040", "sql-java-041", "sql-java-042",
+            "sql-java-043", "sql-java-044", "sql-java-045", "sql-java-046", "sql-java-047", "sql-java-048",
+            "sql-java-049", "sql-java-050", "sql-java-051", "sql-java-052", "sql-java-053", "sql-java-054",
+            "sql-java-055", "sql-java-056", "sql-java-057", "sql-java-058", "sql-java-059", "sql-java-060",
+            "sql-java-061", "sql-java-062", "sql-java-063", "sql-java-064", "sql-java-065", "sql-java-066",
+            "sql-java-067", "sql-java-068", "sql-java-069", "sql-java-070", "sql-java-071", "sql-java-072",
+            "sql-java-073", "sql-java-074", "sql-java-075", "sql-java-076", "sql-java-077", "sql-java-078",
+            "sql-java-079", "sql-java-080", "sql-java-081", "sql-java-082", "sql-java-083", "sql-java-084",
+            "sql-java-085", "sql-java-086", "sql-java-087", "sql-java-088", "sql-java-089", "sql-java-090",
+            "sql-java-091", "sql-java-092", "sql-java-093", "sql-java-094", "sql-java-095", "sql-java-096",
+            "sql-java-097", "sql-java-098", "sql-java-099", "sql-java-100", "sql-java-101", "sql-java-102",
+            "sql-java-103", "sql-java-104", "sql-java-105", "sql-java-106", "sql-java-107", "sql-java-108",
+            "sql-java-109", "sql-java-110", "sql-java-111", "sql-java-112", "sql-java-113", "sql-java-114",
+            "sql-java-115", "sql-java-116", "sql-java-117", "sql-java-118", "sql-java-119", "sql-java-120",
+            "sql-java-121", "sql-java-122", "sql-java-123", "sql-java-124", "sql-java-125", "sql-java-126",
+            "sql-java-127", "sql-java-128", "sql-java-129", "sql-java-130", "sql-java-131", "sql-java-132",
+            "sql-java-133", "sql-java-134", "sql-java-135", "sql-java-136", "sql-java-137", "sql-java-138",
+            "sql-java-139", "sql-java-140", "sql-java-141", "sql-java-142", "sql-java-143", "sql-java-144",
+            "sql-java-145", "sql-java-146", "sql-java-147", "sql-java-148", "sql-java-149", "sql-java-150",
+            "sql-java-151", "sql-java-152", "sql-java-153", "sql-java-154", "sql-java-155", "sql-java-156",
+            "sql-java-157", "sql-java-158", "sql-java-159", "sql-java-160", "sql-java-161", "sql-java-162",
+            "sql-java-163", "sql-java-164", "sql-java-165", "sql-java-166", "sql-java-167", "sql-java-168",
+            "sql-java-169", "sql-java-170", "sql-java-171", "sql-java-172", "sql-java-173", "sql-java-174",
+            "sql-java-175", "sql-java-176", "sql-java-177", "sql-java-178", "sql-java-179", "sql-java-180",
+            "sql-java-181", "sql-java-182", "sql-java-183", "sql-java-184", "sql-java-185", "sql-java-186",
+            "sql-java-187", "sql-java-188", "sql-java-189", "sql-java-190", "sql-java-191", "sql-java-192",
+            "sql-java-193", "sql-java-194", "sql-java-195", "sql-java-196", "sql-java-197", "sql-java-198",
+            "sql-java-199", "sql-java-200"
+    })
+    public String rule;
+
+    private Rule target;
+    private List<SourceFile> sources;
+    private List<Finding> findings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (Rule candidate : RuleCatalog.defaultRules()) {
+            if (candidate.id().equals(rule)) {
+                target = candidate;
+            }
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown rule " + rule);
+        }
+        sources = Corpus.load().parse();
+        findings = new ArrayList<>();
+    }
+
+    @Benchmark
+    public int evaluate() {
+        findings.clear();
+        for (SourceFile source : sources) {
+            target.evaluate(source, findings);
+        }
+        return findings.size();
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.database.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Writes rows from any number of threads through one statement in batches
+ * of bounded size and age.
+ *
+ * <p>Calling {@code addBatch} for a whole list and then
+ * {@code executeBatch} once sends one batch as large as the list, which
+ * drivers buffer whole and servers may refuse. Here {@link #add(Object)}
+ * queues a row and returns at once, and a writer thread sends the queued
+ * rows as soon as {@code batchSize} of them are waiting or the oldest has
+ * waited {@code maxDelay}, whichever comes first, so no batch is larger
+ * than {@code batchSize} and no row waits much longer than
+ * {@code maxDelay}. When {@code 16 * batchSize} rows are queued,
+ * {@code add} waits for the writer.
+ *
+ * <p>Every row gets its own outcome: the future returned by {@code add}
+ * completes with the row's update count, which may be
+ * {@link Statement#SUCCESS_NO_INFO}, once the batch holding it has been
+ * committed, or fails with the exception that failed it. Each batch runs in
+ * a transaction of its own, with auto-commit turned off for it and back on
+ * after it, so that a pool whose connections do not auto-commit does not
+ * discard the rows on close. When {@code executeBatch} fails the batch is
+ * rolled back. From {@link BatchUpdateException#getUpdateCounts()} a row
+ * marked {@link Statement#EXECUTE_FAILED}, or the row the driver stopped
+ * at if it reported fewer counts than rows, fails with the exception, and
+ * the other rows are sent again in a batch of their own. A driver that
+ * reports no counts at all does not say which row failed, so, like any
+ * other failure, that fails every row of the batch.
+ *
+ * <p>If the writer thread stops other than through {@link #close()}, the
+ * rows still queued fail and {@code add} refuses new ones.
+ */
+public final class BatchWriter<T> implements AutoCloseable {
+
+    private static final int QUEUED_BATCHES = 16;
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final Binder<T> binder;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Row<T>> queue;
+    private final ReentrantReadWriteLock closing = new ReentrantReadWriteLock();
+    private final Thread writer;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile Throwable stopped;
+    private boolean closed;
+
+    public BatchWriter(DataSource dataSource, String sql, Binder<T> binder, int batchSize, Duration maxDelay) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+        }
+        this.dataSource = dataSource;
+        this.sql = sql;
+        this.binder = binder;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new LinkedBlockingQueue<>(QUEUED_BATCHES * batchSize);
+        this.writer = new Thread(this::run, "batch-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a row for writing.
+     *
+     * @throws IllegalStateException if the writer is closed or its thread
+     *                               has stopped
+     */
+    public CompletableFuture<Integer> add(T row) throws InterruptedException {
+        Row<T> queued = new Row<>(row);
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("batch writer is closed");
+            }
+            checkRunning();
+            queue.put(queued);
+            if (stopped != null && queue.remove(queued)) {
+                checkRunning();
+            }
+        } finally {
+            closing.readLock().unlock();
+        }
+        return queued.outcome;
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * Refuses new rows, writes the queued ones and waits for the writer
+     * thread to finish. An interrupt does not cut the wait short but is
+     * kept for the caller.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (stopped == null) {
+                try {
+                    queue.put(Row.end());
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            closing.writeLock().unlock();
+        }
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkRunning() {
+        Throwable cause = stopped;
+        if (cause != null) {
+            throw new IllegalStateException("batch writer has stopped", cause);
+        }
+    }
+
+    /**
+     * Writes batches until the end marker, then fails whatever the writer
+     * leaves unwritten, as it does when interrupted or failed.
+     */
+    private void run() {
+        List<Row<T>> batch = new ArrayList<>(batchSize);
+        Throwable failure = new IllegalStateException("batch writer is closed");
+        try {
+            boolean ending = false;
+            while (!ending) {
+                try {
+                    Row<T> first = queue.take();
+                    if (first.isEnd()) {
+                        return;
+                    }
+                    batch.add(first);
+                    long deadline = first.queuedAt + maxDelayNanos;
+                    while (batch.size() < batchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        Row<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                        if (next == null) {
+                            break;
+                        }
+                        if (next.isEnd()) {
+                            ending = true;
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                } catch (InterruptedException e) {
+                    failure = e;
+                    ending = true;
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            stopped = failure;
+            for (Row<T> row : batch) {
+                fail(row, failure);
+            }
+            for (Row<T> row; (row = queue.poll()) != null; ) {
+                if (!row.isEnd()) {
+                    fail(row, failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the rows until each has succeeded or failed.
+     */
+    private void write(List<Row<T>> rows) {
+        List<Row<T>> pending = rows;
+        while (!pending.isEmpty()) {
+            pending = attempt(pending);
+        }
+    }
+
+    /**
+     * Sends the rows as one batch in one transaction; returns the rows to
+     * send again.
+     */
+    private List<Row<T>> attempt(List<Row<T>> pending) {
+        batches.increment();
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            failAll(pending, e);
+            return List.of();
+        }
+        List<Row<T>> again = List.of();
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                again = execute(connection, pending);
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            failAll(pending, e);
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // the outcome of every row is settled; closing is the pool's concern
+            }
+        }
+        return again;
+    }
+
+    private List<Row<T>> execute(Connection connection, List<Row<T>> pending) throws SQLException {
+        int[] counts;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Row<T> row : pending) {
+                binder.bind(statement, row.value);
+                statement.addBatch();
+            }
+            counts = statement.executeBatch();
+            connection.commit();
+        } catch (BatchUpdateException e) {
+            rollback(connection, e);
+            return retry(pending, e);
+        } catch (SQLException | RuntimeException e) {
+            rollback(connection, e);
+            throw e;
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            succeed(pending.get(i), i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO);
+        }
+        return List.of();
+    }
+
+    /**
+     * Fails the rows a rolled-back batch reports as failed and returns the
+     * others, or fails them all if the batch does not say which failed.
+     */
+    private List<Row<T>> retry(List<Row<T>> pending, BatchUpdateException e) {
+        int[] counts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+        List<Row<T>> again = new ArrayList<>();
+        boolean blamed = false;
+        for (int i = 0; i < pending.size(); i++) {
+            boolean failedRow = i < counts.length ? counts[i] == Statement.EXECUTE_FAILED : i == counts.length;
+            if (failedRow && counts.length > 0) {
+                fail(pending.get(i), e);
+                blamed = true;
+            } else {
+                again.add(pending.get(i));
+            }
+        }
+        if (!blamed) {
+            failAll(pending, e);
+            return List.of();
+        }
+        return again;
+    }
+
+    private static void rollback(Connection connection, Exception e) {
+        try {
+            connection.rollback();
+        } catch (SQLException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+    }
+
+    private void failAll(List<Row<T>> rows, Throwable e) {
+        for (Row<T> row : rows) {
+            fail(row, e);
+        }
+    }
+
+    private void succeed(Row<T> row, int count) {
+        if (row.outcome.complete(count)) {
+            written.increment();
+        }
+    }
+
+    private void fail(Row<T> row, Throwable e) {
+        if (row.outcome.completeExceptionally(e)) {
+            failed.increment();
+        }
+    }
+
+    /**
+     * Sets the parameters of the statement from one row.
+     */
+    public interface Binder<T> {
+
+        void bind(PreparedStatement statement, T row) throws SQLException;
+    }
+
+    private static final class Row<T> {
+
+        final T value;
+        final long queuedAt = System.nanoTime();
+        final CompletableFuture<Integer> outcome;
+
+        Row(T value) {
+            this.value = value;
+            this.outcome = new CompletableFuture<>();
+        }
+
+        private Row() {
+            this.value = null;
+            this.outcome = null;
+        }
+
+        static <T> Row<T> end() {
+            return new Row<>();
+        }
+
+        boolean isEnd() {
+            return outcome == null;
+        }
+    }
+}
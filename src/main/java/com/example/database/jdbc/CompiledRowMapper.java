@@ -0,0 +1,486 @@
+package com.example.database.jdbc;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps rows to beans through setters resolved once per query shape.
+ *
+ * <p>{@link org.springframework.jdbc.core.BeanPropertyRowMapper} finds
+ * each column's property by name and sets it through a
+ * {@code BeanWrapper} on every row, boxing every primitive on the way.
+ * Here the columns of a result set are matched to properties by the same
+ * rules, the label with spaces removed equal to the property name or to
+ * its underscored form ignoring case, once per distinct list of column
+ * labels. Each matched property's setter is compiled with
+ * {@link LambdaMetafactory} into a lambda whose parameter is the
+ * property's own type, and the row is read with the matching typed getter,
+ * {@code getInt} for an {@code int} property, so mapping a row allocates
+ * the bean and whatever objects its non-primitive values are, and nothing
+ * else. Columns without a property are skipped; properties of wrapper
+ * types are set to null for SQL NULL and so are boxed. SQL NULL in a
+ * column of a primitive property fails the row with a
+ * {@link SQLDataException}, as {@code BeanPropertyRowMapper} fails it by
+ * default, rather than setting 0 or false.
+ *
+ * <p>A mapper may be shared between threads: each thread keeps the plan
+ * of the result set it is reading, so threads reading different queries
+ * do not resolve their plans again on every row. The result set itself is
+ * only held weakly, so a pooled thread does not keep the last one it read,
+ * and its statement and connection, from being collected.
+ *
+ * <p>The bean needs a no-argument constructor. Setters of a public class
+ * that are public themselves are called through compiled lambdas, others
+ * through method handles, which are slower but still do not box.
+ */
+public final class CompiledRowMapper<T> implements RowMapper<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<T> type;
+    private final Supplier<T> constructor;
+    private final Map<String, PropertyDescriptor> properties = new HashMap<>();
+    private final Map<String, Plan<T>> plans = new ConcurrentHashMap<>();
+    private final ThreadLocal<Bound<T>> bound = new ThreadLocal<>();
+
+    public CompiledRowMapper(Class<T> type) {
+        this.type = type;
+        this.constructor = constructor(type);
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(type)) {
+            if (property.getWriteMethod() != null) {
+                properties.put(property.getName().toLowerCase(Locale.ROOT), property);
+                properties.put(underscoreName(property.getName()), property);
+            }
+        }
+    }
+
+    /**
+     * Maps the current row, resolving the plan for the result set's
+     * columns on its first row, or when called with another result set
+     * than the last on this thread.
+     */
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Bound<T> current = bound.get();
+        if (current == null || current.get() != rs || rowNum == 0) {
+            current = new Bound<>(rs, plan(rs.getMetaData()));
+            bound.set(current);
+        }
+        T target = constructor.get();
+        for (Column<T> column : current.plan.columns) {
+            column.set(target, rs);
+        }
+        return target;
+    }
+
+    private Plan<T> plan(ResultSetMetaData meta) throws SQLException {
+        int count = meta.getColumnCount();
+        StringBuilder shape = new StringBuilder();
+        String[] fields = new String[count];
+        for (int i = 1; i <= count; i++) {
+            fields[i - 1] = JdbcUtils.lookupColumnName(meta, i).replace(" ", "").toLowerCase(Locale.ROOT);
+            shape.append(fields[i - 1]).append(',');
+        }
+        Plan<T> plan = plans.get(shape.toString());
+        if (plan == null) {
+            List<Column<T>> columns = new ArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                PropertyDescriptor property = properties.get(fields[i - 1]);
+                if (property != null) {
+                    columns.add(column(i, property.getWriteMethod()));
+                }
+            }
+            plan = new Plan<>(columns);
+            Plan<T> raced = plans.putIfAbsent(shape.toString(), plan);
+            if (raced != null) {
+                plan = raced;
+            }
+        }
+        return plan;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Column<T> column(int index, Method setter) {
+        Class<?> value = setter.getParameterTypes()[0];
+        if (value == int.class) {
+            IntSetter<T> set = compile(IntSetter.class, setter);
+            return (target, rs) -> {
+                int v = rs.getInt(index);
+                if (v == 0 && rs.wasNull()) {
+                    throw nullPrimitive(index, setter);
+                }
+                set.set(target, v);
+            };
+        }
+        if (value == long.class) {
+            LongSetter<T> set = compile(LongSetter.class, setter);
+            return (target, rs) -> {
+                long v = rs.getLong(index);
+                if (v == 0 && rs.wasNull()) {
+                    throw nullPrimitive(index, setter);
+                }
+                set.set(target, v);
+            };
+        }
+        if (value == double.class) {
+            DoubleSetter<T> set = compile(DoubleSetter.class, setter);
+            return (target, rs) -> {
+                double v = rs.getDouble(index);
+                if (v == 0 && rs.wasNull()) {
+                    throw nullPrimitive(index, setter);
+                }
+                set.set(target, v);
+            };
+        }
+        if (value == boolean.class) {
+            BooleanSetter<T> set = compile(BooleanSetter.class, setter);
+            return (target, rs) -> {
+                boolean v = rs.getBoolean(index);
+                if (!v && rs.wasNull()) {
+                    throw nullPrimitive(index, setter);
+                }
+                set.set(target, v);
+            };
+        }
+        if (value == float.class) {
+            FloatSetter<T> set = compile(FloatSetter.class, setter);
+            return (target, rs) -> {
+                float v = rs.getFloat(index);
+                if (v == 0 && rs.wasNull()) {
+                    throw nullPrimitive(index, setter);
+                }
+                set.set(target, v);
+            };
+        }
+        if (value == short.class) {
+            ShortSetter<T> set = compile(ShortSetter.class, setter);
+            return (target, rs) -> {
+                short v = rs.getShort(index);
+                if (v == 0 && rs.wasNull()) {
+                    throw nullPrimitive(index, setter);
+                }
+                set.set(target, v);
+            };
+        }
+        if (value == byte.class) {
+            ByteSetter<T> set = compile(ByteSetter.class, setter);
+            return (target, rs) -> {
+                byte v = rs.getByte(index);
+                if (v == 0 && rs.wasNull()) {
+                    throw nullPrimitive(index, setter);
+                }
+                set.set(target, v);
+            };
+        }
+        if (value == char.class) {
+            throw new IllegalArgumentException("char properties are not supported: " + setter);
+        }
+        ObjectSetter<T> set = compile(ObjectSetter.class, setter);
+        if (value == String.class) {
+            return (target, rs) -> set.set(target, rs.getString(index));
+        }
+        if (value == BigDecimal.class) {
+            return (target, rs) -> set.set(target, rs.getBigDecimal(index));
+        }
+        if (value == byte[].class) {
+            return (target, rs) -> set.set(target, rs.getBytes(index));
+        }
+        if (value == java.sql.Timestamp.class || value == java.util.Date.class) {
+            return (target, rs) -> set.set(target, rs.getTimestamp(index));
+        }
+        if (value == java.sql.Date.class) {
+            return (target, rs) -> set.set(target, rs.getDate(index));
+        }
+        if (value == java.sql.Time.class) {
+            return (target, rs) -> set.set(target, rs.getTime(index));
+        }
+        if (value == Integer.class) {
+            return (target, rs) -> {
+                int v = rs.getInt(index);
+                set.set(target, rs.wasNull() ? null : v);
+            };
+        }
+        if (value == Long.class) {
+            return (target, rs) -> {
+                long v = rs.getLong(index);
+                set.set(target, rs.wasNull() ? null : v);
+            };
+        }
+        if (value == Double.class) {
+            return (target, rs) -> {
+                double v = rs.getDouble(index);
+                set.set(target, rs.wasNull() ? null : v);
+            };
+        }
+        if (value == Boolean.class) {
+            return (target, rs) -> {
+                boolean v = rs.getBoolean(index);
+                set.set(target, rs.wasNull() ? null : v);
+            };
+        }
+        return (target, rs) -> set.set(target, rs.getObject(index, value));
+    }
+
+    private static SQLDataException nullPrimitive(int index, Method setter) {
+        return new SQLDataException("column " + index + " is SQL NULL but " + setter.getName() + " takes a "
+                + setter.getParameterTypes()[0], "22002");
+    }
+
+    /**
+     * Compiles {@code setter} into an implementation of the one-method
+     * interface {@code setterType}, whose method takes the bean and the
+     * value in the setter's own parameter type.
+     */
+    @SuppressWarnings("unchecked")
+    private <S> S compile(Class<?> setterType, Method setter) {
+        Class<?> value = setter.getParameterTypes()[0];
+        MethodType erased = MethodType.methodType(void.class, Object.class, value.isPrimitive() ? value : Object.class);
+        try {
+            if (Modifier.isPublic(type.getModifiers()) && Modifier.isPublic(setter.getModifiers())) {
+                MethodHandle handle = LOOKUP.unreflect(setter);
+                return (S) LambdaMetafactory.metafactory(LOOKUP, "set", MethodType.methodType(setterType), erased,
+                                handle, MethodType.methodType(void.class, type, value))
+                        .getTarget().invoke();
+            }
+            setter.setAccessible(true);
+            return (S) new HandleSetter(LOOKUP.unreflect(setter).asType(erased));
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("cannot compile " + setter, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructor(Class<T> type) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            if (Modifier.isPublic(type.getModifiers()) && Modifier.isPublic(constructor.getModifiers())) {
+                MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+                return (Supplier<T>) LambdaMetafactory.metafactory(LOOKUP, "get",
+                                MethodType.methodType(Supplier.class), MethodType.methodType(Object.class), handle,
+                                MethodType.methodType(type))
+                        .getTarget().invoke();
+            }
+            constructor.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return (T) handle.invokeExact();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type + " has no no-argument constructor", e);
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("cannot compile the constructor of " + type, e);
+        }
+    }
+
+    private static String underscoreName(String name) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                result.append('_');
+            }
+            result.append(Character.toLowerCase(c));
+        }
+        return result.toString();
+    }
+
+    /**
+     * The columns of one query shape that have a property.
+     */
+    private static final class Plan<T> {
+
+        final Column<T>[] columns;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Plan(List<Column<T>> columns) {
+            this.columns = columns.toArray(new Column[0]);
+        }
+    }
+
+    /**
+     * The result set a thread last resolved the plan for, and the plan.
+     */
+    private static final class Bound<T> extends WeakReference<ResultSet> {
+
+        final Plan<T> plan;
+
+        Bound(ResultSet rs, Plan<T> plan) {
+            super(rs);
+            this.plan = plan;
+        }
+    }
+
+    /**
+     * Reads one column of the current row into its property.
+     */
+    private interface Column<T> {
+
+        void set(T target, ResultSet rs) throws SQLException;
+    }
+
+    private interface IntSetter<T> {
+
+        void set(T target, int value);
+    }
+
+    private interface LongSetter<T> {
+
+        void set(T target, long value);
+    }
+
+    private interface DoubleSetter<T> {
+
+        void set(T target, double value);
+    }
+
+    private interface BooleanSetter<T> {
+
+        void set(T target, boolean value);
+    }
+
+    private interface FloatSetter<T> {
+
+        void set(T target, float value);
+    }
+
+    private interface ShortSetter<T> {
+
+        void set(T target, short value);
+    }
+
+    private interface ByteSetter<T> {
+
+        void set(T target, byte value);
+    }
+
+    private interface ObjectSetter<T> {
+
+        void set(T target, Object value);
+    }
+
+    /**
+     * Calls a setter the compiled lambdas cannot reach through its method
+     * handle, erased to take the bean as an {@code Object}.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final class HandleSetter implements IntSetter, LongSetter, DoubleSetter, BooleanSetter,
+            FloatSetter, ShortSetter, ByteSetter, ObjectSetter {
+
+        private final MethodHandle handle;
+
+        HandleSetter(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void set(Object target, int value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, long value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, double value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, boolean value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, float value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, short value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, byte value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        private static RuntimeException rethrow(Throwable e) {
+            if (e instanceof RuntimeException) {
+                return (RuntimeException) e;
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            return new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.database.jdbc;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks after a delay from one thread, however many are pending,
+ * after Netty's {@code HashedWheelTimer}.
+ *
+ * <p>Time is cut into ticks and pending tasks hang off a ring of buckets,
+ * one per tick, each task in the bucket of the tick it falls due in and
+ * counting the turns of the ring still to go. Scheduling and cancelling
+ * only put the task on a queue with a compare-and-set, so both cost the
+ * same however many tasks are pending. The timer thread moves queued tasks
+ * into their buckets and unlinks cancelled ones once per tick, then hands
+ * the tasks due in the current bucket to {@code executor}. A task runs up
+ * to one tick late, which for timeouts of seconds is no matter, and never
+ * early. Tasks that block, such as a {@code Statement.cancel()} that opens
+ * a connection of its own to kill the query, block the executor rather
+ * than the timer.
+ */
+public final class HashedWheelTimer implements AutoCloseable {
+
+    private static final int TRANSFER_LIMIT = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * Creates a timer ticking every 100 ms over 512 buckets that runs
+     * tasks on threads of its own, started as tasks fall due.
+     */
+    public HashedWheelTimer() {
+        this(Duration.ofMillis(100), 512, null);
+    }
+
+    /**
+     * Creates a timer. {@code wheelSize} is rounded up to a power of two;
+     * tasks run on {@code executor}, or on threads of the timer's own if it
+     * is null.
+     */
+    public HashedWheelTimer(Duration tick, int wheelSize, Executor executor) {
+        if (tick.toNanos() < TimeUnit.MILLISECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("tick must be at least 1 ms: " + tick);
+        }
+        if (wheelSize < 1 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^30: " + wheelSize);
+        }
+        this.tickNanos = tick.toNanos();
+        int size = Integer.highestOneBit(wheelSize - 1 == 0 ? 1 : (wheelSize - 1) << 1);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        if (executor == null) {
+            this.ownExecutor = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "wheel-timer-task");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownExecutor;
+        } else {
+            this.ownExecutor = null;
+            this.executor = executor;
+        }
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, "wheel-timer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Runs {@code task} once {@code delay} has passed, unless the returned
+     * timeout is cancelled first.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("timer is closed");
+        }
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(delay));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer. Pending tasks never run.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            unlinkCancelled();
+            transferScheduled();
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void unlinkCancelled() {
+        for (Timeout timeout; (timeout = cancelled.poll()) != null; ) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Files queued timeouts into their buckets. A timeout already due goes
+     * into the current bucket; the limit keeps a flood of new timeouts from
+     * delaying the tick.
+     */
+    private void transferScheduled() {
+        for (int i = 0; i < TRANSFER_LIMIT; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            long due = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (due - tick) / wheel.length;
+            wheel[(int) (Math.max(due, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket, long deadline) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                bucket.remove(timeout);
+                if (timeout.expire()) {
+                    try {
+                        executor.execute(timeout.task);
+                    } catch (RuntimeException e) {
+                        // a rejected task is as good as cancelled
+                    }
+                }
+            } else if (timeout.state != Timeout.PENDING) {
+                bucket.remove(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * A scheduled task, which can be cancelled until it falls due.
+     */
+    public static final class Timeout {
+
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Keeps the task from running. Returns false if it already fell
+         * due or was cancelled.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        private boolean expire() {
+            return STATE.compareAndSet(this, PENDING, EXPIRED);
+        }
+    }
+
+    /**
+     * The timeouts due in one tick of the ring, touched by the timer
+     * thread only.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
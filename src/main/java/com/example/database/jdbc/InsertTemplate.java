@@ -0,0 +1,194 @@
+package com.example.database.jdbc;
+
+/**
+ * A single-row {@code INSERT ... VALUES (...)} split around its row, so
+ * that the row can be repeated into a multi-row insert.
+ *
+ * <p>Only a statement of the form {@code INSERT ... VALUES (row) [suffix]}
+ * qualifies, with every parameter marker inside the row: the suffix, such
+ * as MySQL's {@code ON DUPLICATE KEY UPDATE}, is kept after the last row
+ * and so must not hold any. Quoted strings and identifiers and comments
+ * are skipped while looking for the row; square brackets quote only where
+ * the database says so, as SQL Server's do, and are plain SQL elsewhere.
+ */
+final class InsertTemplate {
+
+    private final String prefix;
+    private final String row;
+    private final String suffix;
+    private final int parameters;
+
+    private InsertTemplate(String prefix, String row, String suffix, int parameters) {
+        this.prefix = prefix;
+        this.row = row;
+        this.suffix = suffix;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Returns the template of {@code sql}, or null if it is not a
+     * single-row insert with parameters; {@code bracketQuotes} tells
+     * whether {@code [name]} is a quoted identifier.
+     */
+    static InsertTemplate parse(String sql, boolean bracketQuotes) {
+        String text = stripTrailingSemicolons(sql);
+        int start = skipBlank(text, 0);
+        if (!isWord(text, start, "INSERT")) {
+            return null;
+        }
+        int values = -1;
+        for (int i = start; i < text.length(); i = skip(text, i, bracketQuotes)) {
+            char c = text.charAt(i);
+            if (c == '?' || c == '(' && values < 0 && isWord(text, skipBlank(text, i + 1), "SELECT")) {
+                return null;
+            }
+            if (isWord(text, i, "VALUES")) {
+                values = i;
+                break;
+            }
+        }
+        if (values < 0) {
+            return null;
+        }
+        int open = skipBlank(text, values + "VALUES".length());
+        if (open >= text.length() || text.charAt(open) != '(') {
+            return null;
+        }
+        int depth = 0;
+        int parameters = 0;
+        int close = -1;
+        for (int i = open; i < text.length(); i = skip(text, i, bracketQuotes)) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                close = i;
+                break;
+            } else if (c == '?') {
+                parameters++;
+            }
+        }
+        if (close < 0 || parameters == 0) {
+            return null;
+        }
+        String suffix = text.substring(close + 1);
+        int after = skipBlank(suffix, 0);
+        if (after < suffix.length() && suffix.charAt(after) == ',') {
+            return null;
+        }
+        for (int i = 0; i < suffix.length(); i = skip(suffix, i, bracketQuotes)) {
+            if (suffix.charAt(i) == '?') {
+                return null;
+            }
+        }
+        return new InsertTemplate(text.substring(0, values).trim(), text.substring(open, close + 1), suffix,
+                parameters);
+    }
+
+    /**
+     * Returns the parameter markers in one row.
+     */
+    int parameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the characters the statement takes beyond its rows.
+     */
+    int fixedLength() {
+        return prefix.length() + " VALUES ".length() + suffix.length();
+    }
+
+    /**
+     * Returns the characters each row adds to the statement.
+     */
+    int rowLength() {
+        return row.length() + 2;
+    }
+
+    /**
+     * Returns the insert of {@code rows} rows.
+     */
+    String sql(int rows) {
+        StringBuilder sql = new StringBuilder(fixedLength() + rows * rowLength());
+        sql.append(prefix).append(" VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.append(suffix).toString();
+    }
+
+    private static String stripTrailingSemicolons(String sql) {
+        int end = sql.length();
+        while (end > 0 && (sql.charAt(end - 1) == ';' || Character.isWhitespace(sql.charAt(end - 1)))) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    private static int skipBlank(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWord(String text, int i, String word) {
+        int end = i + word.length();
+        return end <= text.length()
+                && text.regionMatches(true, i, word, 0, word.length())
+                && (i == 0 || !Character.isJavaIdentifierPart(text.charAt(i - 1)))
+                && (end == text.length() || !Character.isJavaIdentifierPart(text.charAt(end)));
+    }
+
+    /**
+     * Returns the index after the character, quoted text or comment that
+     * starts at {@code i}.
+     */
+    private static int skip(String text, int i, boolean bracketQuotes) {
+        char c = text.charAt(i);
+        switch (c) {
+            case '\'':
+            case '"':
+            case '`':
+                return closing(text, i + 1, c);
+            case '[':
+                return bracketQuotes ? closing(text, i + 1, ']') : i + 1;
+            case '-':
+                if (text.startsWith("--", i)) {
+                    int end = text.indexOf('\n', i);
+                    return end < 0 ? text.length() : end + 1;
+                }
+                return i + 1;
+            case '/':
+                if (text.startsWith("/*", i)) {
+                    int end = text.indexOf("*/", i + 2);
+                    return end < 0 ? text.length() : end + 2;
+                }
+                return i + 1;
+            default:
+                return i + 1;
+        }
+    }
+
+    /**
+     * Returns the index after the quote that closes text opened before
+     * {@code i}; a doubled quote stands for itself.
+     */
+    private static int closing(String text, int i, char quote) {
+        while (i < text.length()) {
+            if (text.charAt(i) == quote) {
+                if (i + 1 < text.length() && text.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.database.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * Sends batches of single-row inserts as multi-row inserts.
+ *
+ * <p>A batch of {@code INSERT ... VALUES (?, ?, ?)} costs MySQL and SQL
+ * Server a statement execution per row, and MySQL's driver a round trip
+ * per row unless it rewrites batches itself; one
+ * {@code INSERT ... VALUES (?, ?, ?), (?, ?, ?), ...} costs one. Statements
+ * prepared on connections from this source with the SQL of a single-row
+ * insert whose values are all inside its row, optionally asking for
+ * generated keys, are rewritten that way when their batch is executed;
+ * everything else passes through untouched. Executing such a statement
+ * outside a batch runs it as written.
+ *
+ * <p>A chunk holds at most {@code maxRows} rows and stays within the limits
+ * of the database, found from the first connection: 2000 parameters, short
+ * of the 2100 the server takes so that the driver has room for its own,
+ * and 1000 rows on SQL Server, 65535 parameters and
+ * {@code max_allowed_packet} bytes, estimated from the values, on MySQL and
+ * MariaDB, 32767 parameters on PostgreSQL and H2. Other databases, some of
+ * which lack multi-row {@code VALUES}, are not rewritten. Square brackets
+ * quote identifiers only on SQL Server; elsewhere they are left to the SQL,
+ * as in PostgreSQL's and H2's {@code ARRAY[?, ?]}.
+ *
+ * <p>{@code getGeneratedKeys()} after a batch returns one row per batched
+ * row, in batch order. MySQL and the others report the keys of every row of
+ * a multi-row insert. SQL Server's driver reports only the last, and an
+ * {@code OUTPUT} clause neither returns its rows in insert order nor works
+ * on tables with triggers, so there a batch that asks for keys is sent a
+ * row at a time, as it would be without this source.
+ */
+public final class MultiRowInsertDataSource implements DataSource {
+
+    private static final int DEFAULT_MAX_ROWS = 1000;
+    private static final long DEFAULT_MYSQL_PACKET = 4L * 1024 * 1024;
+    private static final long PACKET_HEADROOM = 1024;
+
+    private final DataSource pool;
+    private final int maxRows;
+    private volatile Limits limits;
+
+    public MultiRowInsertDataSource(DataSource pool) {
+        this(pool, DEFAULT_MAX_ROWS);
+    }
+
+    public MultiRowInsertDataSource(DataSource pool, int maxRows) {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("maxRows must be at least 1: " + maxRows);
+        }
+        this.pool = pool;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return rewriting(pool.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return rewriting(pool.getConnection(username, password));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return pool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        pool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        pool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return pool.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return pool.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(this) ? type.cast(this) : pool.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(this) || pool.isWrapperFor(type);
+    }
+
+    private Connection rewriting(Connection connection) throws SQLException {
+        Limits found = limits;
+        if (found == null) {
+            try {
+                found = Limits.of(connection, maxRows);
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+            limits = found;
+        }
+        return found == Limits.NONE ? connection : new RewritingConnection(connection, found);
+    }
+
+    /**
+     * How large a multi-row insert the database takes.
+     */
+    static final class Limits {
+
+        static final Limits NONE = new Limits(0, 0, 0, false, false);
+
+        final int maxParameters;
+        final int maxRows;
+        final long maxBytes;
+        final boolean keysPerRow;
+        final boolean bracketQuotes;
+
+        Limits(int maxParameters, int maxRows, long maxBytes, boolean keysPerRow, boolean bracketQuotes) {
+            this.maxParameters = maxParameters;
+            this.maxRows = maxRows;
+            this.maxBytes = maxBytes;
+            this.keysPerRow = keysPerRow;
+            this.bracketQuotes = bracketQuotes;
+        }
+
+        static Limits of(Connection connection, int maxRows) throws SQLException {
+            String product = connection.getMetaData().getDatabaseProductName();
+            if (product.startsWith("Microsoft SQL Server")) {
+                return new Limits(2000, Math.min(maxRows, 1000), Long.MAX_VALUE, true, true);
+            }
+            if (product.startsWith("MySQL") || product.startsWith("MariaDB")) {
+                return new Limits(65535, maxRows, maxAllowedPacket(connection) - PACKET_HEADROOM, false,
+                        false);
+            }
+            if (product.startsWith("PostgreSQL") || product.startsWith("H2")) {
+                return new Limits(32767, maxRows, Long.MAX_VALUE, false, false);
+            }
+            return NONE;
+        }
+
+        private static long maxAllowedPacket(Connection connection) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT @@max_allowed_packet")) {
+                return rs.next() ? rs.getLong(1) : DEFAULT_MYSQL_PACKET;
+            } catch (SQLException e) {
+                return DEFAULT_MYSQL_PACKET;
+            }
+        }
+    }
+
+    /**
+     * A connection whose single-row inserts batch as multi-row ones.
+     */
+    private static final class RewritingConnection extends DelegatingConnection {
+
+        private final Connection connection;
+        private final Limits limits;
+
+        RewritingConnection(Connection connection, Limits limits) {
+            this.connection = connection;
+            this.limits = limits;
+        }
+
+        @Override
+        protected Connection delegate() {
+            return connection;
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            InsertTemplate template = InsertTemplate.parse(sql, limits.bracketQuotes);
+            PreparedStatement statement = connection.prepareStatement(sql);
+            return template == null ? statement : rewriting(template, statement, Statement.NO_GENERATED_KEYS,
+                    null, null);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            InsertTemplate template = InsertTemplate.parse(sql, limits.bracketQuotes);
+            PreparedStatement statement = connection.prepareStatement(sql, autoGeneratedKeys);
+            return template == null ? statement : rewriting(template, statement, autoGeneratedKeys, null, null);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+            InsertTemplate template = InsertTemplate.parse(sql, limits.bracketQuotes);
+            PreparedStatement statement = connection.prepareStatement(sql, columnIndexes);
+            return template == null ? statement : rewriting(template, statement, Statement.NO_GENERATED_KEYS,
+                    columnIndexes.clone(), null);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+            InsertTemplate template = InsertTemplate.parse(sql, limits.bracketQuotes);
+            PreparedStatement statement = connection.prepareStatement(sql, columnNames);
+            return template == null ? statement : rewriting(template, statement, Statement.NO_GENERATED_KEYS,
+                    null, columnNames.clone());
+        }
+
+        private PreparedStatement rewriting(InsertTemplate template, PreparedStatement statement,
+                                            int autoGeneratedKeys, int[] columnIndexes, String[] columnNames) {
+            return new MultiRowInsertStatement(this, connection, template, limits, statement, autoGeneratedKeys,
+                    columnIndexes, columnNames);
+        }
+    }
+}
@@ -0,0 +1,650 @@
+package com.example.database.jdbc;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.BatchUpdateException;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * A single-row insert whose batch is sent as multi-row inserts.
+ *
+ * <p>Parameters are recorded rather than set, so that each row can be
+ * bound into its place in a multi-row statement. Executing the statement
+ * itself binds the current row to the single-row statement it was
+ * prepared as, which also serves everything else a caller asks of it.
+ * {@link #executeBatch()} splits the batch into chunks as large as
+ * {@link MultiRowInsertDataSource.Limits} allow and sends each as one
+ * {@code INSERT ... VALUES (...), (...)}; the statement for a full chunk
+ * is kept for the next one, a shorter last chunk is prepared and closed.
+ * Where the driver reports the keys of only one row per insert, a batch
+ * that asks for keys runs each row through the single-row statement.
+ *
+ * <p>A chunk is one statement, so it inserts all of its rows or none. A
+ * failed chunk fails the batch with a {@link BatchUpdateException} whose
+ * counts cover the chunks before it and mark each row of the failed chunk
+ * {@link Statement#EXECUTE_FAILED}; the chunks after it are not sent.
+ */
+final class MultiRowInsertStatement extends DelegatingPreparedStatement {
+
+    /**
+     * Bytes assumed for a parameter whose size is unknown in advance, which
+     * sends its row in a chunk of its own where statements are limited in
+     * bytes.
+     */
+    private static final long UNSIZED_BYTES = Integer.MAX_VALUE;
+    private static final long FIXED_BYTES = 32;
+
+    private final Connection owner;
+    private final Connection connection;
+    private final InsertTemplate template;
+    private final MultiRowInsertDataSource.Limits limits;
+    private final PreparedStatement single;
+    private final int autoGeneratedKeys;
+    private final int[] columnIndexes;
+    private final String[] columnNames;
+    private final List<Parameter[]> batch = new ArrayList<>();
+    private Parameter[] row;
+    private PreparedStatement chunk;
+    private int chunkRows;
+    private CachedRowSet batchKeys;
+
+    MultiRowInsertStatement(Connection owner, Connection connection, InsertTemplate template,
+                            MultiRowInsertDataSource.Limits limits, PreparedStatement single,
+                            int autoGeneratedKeys, int[] columnIndexes, String[] columnNames) {
+        this.owner = owner;
+        this.connection = connection;
+        this.template = template;
+        this.limits = limits;
+        this.single = single;
+        this.autoGeneratedKeys = autoGeneratedKeys;
+        this.columnIndexes = columnIndexes;
+        this.columnNames = columnNames;
+        this.row = new Parameter[template.parameters()];
+    }
+
+    @Override
+    protected PreparedStatement delegate() {
+        return single;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return owner;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        bindSingle();
+        return single.executeQuery();
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        bindSingle();
+        return single.executeUpdate();
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        bindSingle();
+        return single.executeLargeUpdate();
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        bindSingle();
+        return single.execute();
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        row = new Parameter[template.parameters()];
+        single.clearParameters();
+    }
+
+    /**
+     * Adds the current row to the batch; like a driver's, the row stays
+     * set for the next one to change.
+     */
+    @Override
+    public void addBatch() throws SQLException {
+        checkSet(row);
+        batch.add(row.clone());
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        batch.clear();
+        single.clearBatch();
+    }
+
+    /**
+     * Sends the batch as multi-row inserts. A row's count is 1 when its
+     * chunk inserted as many rows as it has, {@link Statement#SUCCESS_NO_INFO}
+     * otherwise.
+     */
+    @Override
+    public int[] executeBatch() throws SQLException {
+        closeBatchKeys();
+        int[] counts = new int[batch.size()];
+        int from = 0;
+        int rows = 0;
+        try {
+            while (from < batch.size()) {
+                rows = chunkRows(from);
+                int inserted = insert(from, rows);
+                Arrays.fill(counts, from, from + rows, inserted == rows ? 1 : Statement.SUCCESS_NO_INFO);
+                from += rows;
+            }
+            if (batchKeys != null) {
+                batchKeys.beforeFirst();
+            }
+            return counts;
+        } catch (SQLException e) {
+            int[] done = Arrays.copyOf(counts, from + rows);
+            Arrays.fill(done, from, from + rows, Statement.EXECUTE_FAILED);
+            closeBatchKeys();
+            throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), done, e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        return Arrays.stream(executeBatch()).asLongStream().toArray();
+    }
+
+    /**
+     * Returns the keys of the last batch, one row per batched row in batch
+     * order, or those of the last single execution.
+     */
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return batchKeys != null ? batchKeys : single.getGeneratedKeys();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            closeBatchKeys();
+            if (chunk != null) {
+                chunk.close();
+            }
+        } finally {
+            single.close();
+        }
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNull(index, sqlType), FIXED_BYTES);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBoolean(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setByte(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setShort(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setInt(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setLong(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setFloat(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setDouble(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBigDecimal(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setString(index, x), textBytes(x));
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBytes(index, x), binaryBytes(x));
+    }
+
+    @Override
+    public void setDate(int parameterIndex, java.sql.Date x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setDate(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, java.sql.Time x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setTime(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, java.sql.Timestamp x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setTimestamp(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setAsciiStream(index, x, length), 2L * length);
+    }
+
+    @Override
+    @Deprecated
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setUnicodeStream(index, x, length), 2L * length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBinaryStream(index, x, length), 2L * length);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setObject(index, x, targetSqlType), objectBytes(x));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setObject(index, x), objectBytes(x));
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setCharacterStream(index, reader, length), 3L * length);
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setRef(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBlob(index, x), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setClob(index, x), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setArray(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, java.sql.Date x, Calendar cal) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setDate(index, x, cal), FIXED_BYTES);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, java.sql.Time x, Calendar cal) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setTime(index, x, cal), FIXED_BYTES);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, java.sql.Timestamp x, Calendar cal) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setTimestamp(index, x, cal), FIXED_BYTES);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNull(index, sqlType, typeName), FIXED_BYTES);
+    }
+
+    @Override
+    public void setURL(int parameterIndex, java.net.URL x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setURL(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setRowId(index, x), FIXED_BYTES);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNString(index, value), textBytes(value));
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNCharacterStream(index, value, length), 3L * length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNClob(index, value), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setClob(index, reader, length), 3L * length);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBlob(index, inputStream, length), 2L * length);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNClob(index, reader, length), 3L * length);
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setSQLXML(index, xmlObject), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setObject(index, x, targetSqlType, scaleOrLength),
+                objectBytes(x));
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setAsciiStream(index, x, length), 2L * length);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBinaryStream(index, x, length), 2L * length);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setCharacterStream(index, reader, length), 3L * length);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setAsciiStream(index, x), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBinaryStream(index, x), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setCharacterStream(index, reader), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNCharacterStream(index, value), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setClob(index, reader), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setBlob(index, inputStream), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setNClob(index, reader), UNSIZED_BYTES);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setObject(index, x, targetSqlType, scaleOrLength),
+                objectBytes(x));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        set(parameterIndex, (statement, index) -> statement.setObject(index, x, targetSqlType), objectBytes(x));
+    }
+
+    private void set(int parameterIndex, Setter setter, long bytes) throws SQLException {
+        if (parameterIndex < 1 || parameterIndex > row.length) {
+            throw new SQLNonTransientException("parameter index out of range: " + parameterIndex);
+        }
+        row[parameterIndex - 1] = new Parameter(setter, bytes);
+    }
+
+    private void bindSingle() throws SQLException {
+        closeBatchKeys();
+        checkSet(row);
+        for (int i = 0; i < row.length; i++) {
+            row[i].setter.set(single, i + 1);
+        }
+    }
+
+    private static void checkSet(Parameter[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == null) {
+                throw new SQLNonTransientException("parameter " + (i + 1) + " is not set");
+            }
+        }
+    }
+
+    /**
+     * Returns how many rows from {@code from} on the next chunk takes: as
+     * many as the limits on parameters and rows allow, fewer if their SQL
+     * and values would overrun the limit on bytes, and always at least one.
+     */
+    private int chunkRows(int from) {
+        if (keysPerRow()) {
+            return 1;
+        }
+        int max = Math.min(batch.size() - from,
+                Math.min(limits.maxRows, Math.max(1, limits.maxParameters / template.parameters())));
+        long bytes = template.fixedLength();
+        int rows = 0;
+        while (rows < max) {
+            long rowBytes = template.rowLength();
+            for (Parameter parameter : batch.get(from + rows)) {
+                rowBytes += parameter.bytes;
+            }
+            if (rows > 0 && bytes + rowBytes > limits.maxBytes) {
+                break;
+            }
+            bytes += rowBytes;
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Inserts {@code rows} rows from {@code from} on in one statement and
+     * collects their keys; returns the rows inserted.
+     */
+    private int insert(int from, int rows) throws SQLException {
+        PreparedStatement statement = keysPerRow() ? single : chunk(rows);
+        try {
+            int parameters = template.parameters();
+            for (int i = 0; i < rows; i++) {
+                Parameter[] values = batch.get(from + i);
+                for (int j = 0; j < parameters; j++) {
+                    values[j].setter.set(statement, i * parameters + j + 1);
+                }
+            }
+            if (!wantsKeys()) {
+                return statement.executeUpdate();
+            }
+            int inserted = statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                collectKeys(keys);
+            }
+            return inserted;
+        } finally {
+            if (statement != chunk && statement != single) {
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * Returns a statement for {@code rows} rows, kept if it is the size of
+     * a full chunk.
+     */
+    private PreparedStatement chunk(int rows) throws SQLException {
+        if (chunk != null && chunkRows == rows) {
+            chunk.clearParameters();
+            return chunk;
+        }
+        PreparedStatement statement = prepare(template.sql(rows));
+        int full = Math.min(limits.maxRows, Math.max(1, limits.maxParameters / template.parameters()));
+        if (rows == full) {
+            if (chunk != null) {
+                chunk.close();
+            }
+            chunk = statement;
+            chunkRows = rows;
+        }
+        return statement;
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        if (!wantsKeys()) {
+            return connection.prepareStatement(sql);
+        }
+        if (columnNames != null) {
+            return connection.prepareStatement(sql, columnNames);
+        }
+        if (columnIndexes != null) {
+            return connection.prepareStatement(sql, columnIndexes);
+        }
+        return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    private boolean wantsKeys() {
+        return autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS || columnIndexes != null || columnNames != null;
+    }
+
+    private boolean keysPerRow() {
+        return limits.keysPerRow && wantsKeys();
+    }
+
+    /**
+     * Appends the rows of {@code keys} to the keys of the batch; returns
+     * how many there were.
+     */
+    private int collectKeys(ResultSet keys) throws SQLException {
+        if (batchKeys == null) {
+            batchKeys = RowSetProvider.newFactory().createCachedRowSet();
+            batchKeys.populate(keys);
+            return batchKeys.size();
+        }
+        int columns = batchKeys.getMetaData().getColumnCount();
+        int added = 0;
+        while (keys.next()) {
+            batchKeys.last();
+            batchKeys.moveToInsertRow();
+            for (int i = 1; i <= columns; i++) {
+                batchKeys.updateObject(i, keys.getObject(i));
+            }
+            batchKeys.insertRow();
+            batchKeys.moveToCurrentRow();
+            added++;
+        }
+        return added;
+    }
+
+    private void closeBatchKeys() throws SQLException {
+        if (batchKeys != null) {
+            CachedRowSet keys = batchKeys;
+            batchKeys = null;
+            keys.close();
+        }
+    }
+
+    private static long textBytes(String value) {
+        return value == null ? FIXED_BYTES : 3L * value.length() + 2;
+    }
+
+    private static long binaryBytes(byte[] value) {
+        return value == null ? FIXED_BYTES : 2L * value.length + 3;
+    }
+
+    private static long objectBytes(Object value) {
+        if (value instanceof String) {
+            return textBytes((String) value);
+        }
+        if (value instanceof byte[]) {
+            return binaryBytes((byte[]) value);
+        }
+        if (value instanceof InputStream || value instanceof Reader || value instanceof Blob
+                || value instanceof Clob || value instanceof SQLXML) {
+            return UNSIZED_BYTES;
+        }
+        return FIXED_BYTES;
+    }
+
+    /**
+     * Sets a recorded parameter on a statement, at an index of its own.
+     */
+    private interface Setter {
+
+        void set(PreparedStatement statement, int index) throws SQLException;
+    }
+
+    /**
+     * A recorded parameter with the bytes it is estimated to take in the
+     * SQL sent to the server.
+     */
+    private static final class Parameter {
+
+        final Setter setter;
+        final long bytes;
+
+        Parameter(Setter setter, long bytes) {
+            this.setter = setter;
+            this.bytes = bytes;
+        }
+    }
+}
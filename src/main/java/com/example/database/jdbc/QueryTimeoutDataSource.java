@@ -0,0 +1,195 @@
+package com.example.database.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.logging.Logger;
+
+/**
+ * Puts a query timeout on every statement of a pool, enforced by one
+ * {@link HashedWheelTimer} rather than by the driver.
+ *
+ * <p>Some drivers implement {@code setQueryTimeout} by starting a timer
+ * thread per timed statement, so a service running thousands of queries a
+ * second runs thousands of timer threads. Statements of connections from
+ * this source keep their timeout to themselves and share the wheel
+ * instead, which costs an execution one queue insert and one
+ * compare-and-set. Every statement starts with the pool's
+ * {@code defaultTimeout}, zero for none, and {@code setQueryTimeout}
+ * overrides it for that statement. A timed-out execution is cancelled with
+ * {@link Statement#cancel()} and fails with
+ * {@link java.sql.SQLTimeoutException}. Pools share the process-wide wheel
+ * unless given their own.
+ */
+public final class QueryTimeoutDataSource implements DataSource {
+
+    private final DataSource pool;
+    private final long defaultTimeoutNanos;
+    private final HashedWheelTimer wheel;
+
+    public QueryTimeoutDataSource(DataSource pool, Duration defaultTimeout) {
+        this(pool, defaultTimeout, SharedWheel.INSTANCE);
+    }
+
+    public QueryTimeoutDataSource(DataSource pool, Duration defaultTimeout, HashedWheelTimer wheel) {
+        if (defaultTimeout.isNegative()) {
+            throw new IllegalArgumentException("defaultTimeout must not be negative: " + defaultTimeout);
+        }
+        this.pool = pool;
+        this.defaultTimeoutNanos = defaultTimeout.toNanos();
+        this.wheel = wheel;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new TimedConnection(pool.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new TimedConnection(pool.getConnection(username, password));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return pool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        pool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        pool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return pool.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return pool.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(this) ? type.cast(this) : pool.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(this) || pool.isWrapperFor(type);
+    }
+
+    /**
+     * The wheel of pools not given one, started on first use.
+     */
+    private static final class SharedWheel {
+
+        static final HashedWheelTimer INSTANCE = new HashedWheelTimer();
+    }
+
+    /**
+     * A pooled connection whose statements are timed on the wheel.
+     */
+    private final class TimedConnection extends DelegatingConnection {
+
+        private final Connection connection;
+
+        TimedConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        protected Connection delegate() {
+            return connection;
+        }
+
+        @Override
+        public Statement createStatement() throws SQLException {
+            return timed(connection.createStatement());
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+            return timed(connection.createStatement(resultSetType, resultSetConcurrency));
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+                throws SQLException {
+            return timed(connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            return timed(connection.prepareStatement(sql));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+                throws SQLException {
+            return timed(connection.prepareStatement(sql, resultSetType, resultSetConcurrency));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                                  int resultSetHoldability) throws SQLException {
+            return timed(connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            return timed(connection.prepareStatement(sql, autoGeneratedKeys));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+            return timed(connection.prepareStatement(sql, columnIndexes));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+            return timed(connection.prepareStatement(sql, columnNames));
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql) throws SQLException {
+            return timed(connection.prepareCall(sql));
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+                throws SQLException {
+            return timed(connection.prepareCall(sql, resultSetType, resultSetConcurrency));
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                             int resultSetHoldability) throws SQLException {
+            return timed(connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+        }
+
+        private Statement timed(Statement statement) {
+            return new TimedStatement(this, statement, wheel, defaultTimeoutNanos);
+        }
+
+        private PreparedStatement timed(PreparedStatement statement) {
+            return new TimedPreparedStatement(this, statement, wheel, defaultTimeoutNanos);
+        }
+
+        private CallableStatement timed(CallableStatement statement) {
+            return new TimedCallableStatement(this, statement, wheel, defaultTimeoutNanos);
+        }
+    }
+}
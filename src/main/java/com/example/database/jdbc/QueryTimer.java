@@ -0,0 +1,115 @@
+package com.example.database.jdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Enforces the query timeout of one statement with a shared
+ * {@link HashedWheelTimer} instead of the driver's own timer.
+ *
+ * <p>The timeout set on the statement is kept here and never reaches the
+ * driver, so drivers that start a timer thread per timed statement start
+ * none. Each execution schedules a call to {@link Statement#cancel()} and
+ * cancels it when the execution returns, and an execution the timer
+ * cancelled fails with {@link SQLTimeoutException}. The end of an
+ * execution and its cancel exclude each other: a cancel that falls due
+ * after its execution returned is dropped, and an execution that returns
+ * while its cancel is being sent parks until the cancel has finished, so a
+ * cancel can never stop the next statement on the connection. Sending a
+ * cancel may mean opening a connection to the server, so the execution
+ * does not spin while it waits.
+ */
+final class QueryTimer {
+
+    private static final long CANCELLING = -1;
+
+    private final HashedWheelTimer timer;
+    private final Statement statement;
+    private long timeoutNanos;
+    private final AtomicLong running = new AtomicLong();
+    private volatile Thread owner;
+    private long executions;
+
+    QueryTimer(HashedWheelTimer timer, Statement statement, long defaultTimeoutNanos) {
+        this.timer = timer;
+        this.statement = statement;
+        this.timeoutNanos = defaultTimeoutNanos;
+    }
+
+    void setQueryTimeout(int seconds) throws SQLException {
+        if (seconds < 0) {
+            throw new SQLException("query timeout must not be negative: " + seconds);
+        }
+        timeoutNanos = TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    int getQueryTimeout() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return (int) Math.min(Integer.MAX_VALUE, (timeoutNanos + second - 1) / second);
+    }
+
+    <T> T execute(Execution<T> execution) throws SQLException {
+        if (timeoutNanos == 0) {
+            return execution.run();
+        }
+        long id = ++executions;
+        owner = Thread.currentThread();
+        running.set(id);
+        HashedWheelTimer.Timeout timeout = timer.schedule(() -> cancel(id), timeoutNanos, TimeUnit.NANOSECONDS);
+        try {
+            return execution.run();
+        } catch (SQLException e) {
+            if (timeout.isExpired()) {
+                throw new SQLTimeoutException("query cancelled after "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", e.getSQLState(), e.getErrorCode(), e);
+            }
+            throw e;
+        } finally {
+            timeout.cancel();
+            if (!running.compareAndSet(id, 0)) {
+                awaitCancel();
+            }
+        }
+    }
+
+    /**
+     * Parks until the cancel being sent has finished, keeping an interrupt
+     * for the caller rather than letting it end the wait.
+     */
+    private void awaitCancel() {
+        boolean interrupted = false;
+        while (running.get() == CANCELLING) {
+            LockSupport.park(this);
+            interrupted |= Thread.interrupted();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void cancel(long id) {
+        if (!running.compareAndSet(id, CANCELLING)) {
+            return;
+        }
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            // the execution finished or the connection is gone
+        } finally {
+            running.set(0);
+            LockSupport.unpark(owner);
+        }
+    }
+
+    /**
+     * One call into the driver that the timeout covers.
+     */
+    interface Execution<T> {
+
+        T run() throws SQLException;
+    }
+}
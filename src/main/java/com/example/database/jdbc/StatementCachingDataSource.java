@@ -0,0 +1,440 @@
+package com.example.database.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Keeps prepared statements open between uses, per physical connection.
+ *
+ * <p>Preparing a statement costs a parse on the server, and with many
+ * drivers a round trip, however often the same SQL was prepared before on
+ * that connection. Each connection from this source keeps up to
+ * {@code cacheSize} idle statements, least recently used first out,
+ * keyed by the SQL text and the result set type, concurrency and
+ * holdability or generated-keys flag it was prepared with. Preparing
+ * takes a matching idle statement if there is one. Closing the statement
+ * returns it instead: its parameters, batch and warnings are cleared, its
+ * result set and generated keys closed, and the max rows, query timeout
+ * and fetch size the caller set put back to what the driver prepared it
+ * with, so that they do not carry over to the next use. A statement
+ * evicted, set not poolable by the caller, or returned while an equal one
+ * is already idle is closed for real, and closing the connection closes
+ * all of its idle statements.
+ * Statements prepared with column indexes or names, and callable
+ * statements, are not cached.
+ *
+ * <p>The cache must outlive the connections a pool hands out, so this
+ * source goes under the pool, as the source the pool opens physical
+ * connections from. Hits, misses and evictions are counted across all of
+ * them, which makes one instance per pool the unit of the statistics.
+ */
+public final class StatementCachingDataSource implements DataSource {
+
+    private final DataSource source;
+    private final int cacheSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StatementCachingDataSource(DataSource source, int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("cacheSize must be at least 1: " + cacheSize);
+        }
+        this.source = source;
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new CachingConnection(source.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new CachingConnection(source.getConnection(username, password));
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the share of prepares served from a cache, or 0 before the
+     * first.
+     */
+    public double hitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return source.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        source.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        source.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return source.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return source.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(this) ? type.cast(this) : source.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(this) || source.isWrapperFor(type);
+    }
+
+    /**
+     * The SQL and options a statement was prepared with; -1 marks an option
+     * not given.
+     */
+    private static final class Key {
+
+        final String sql;
+        final int resultSetType;
+        final int resultSetConcurrency;
+        final int resultSetHoldability;
+        final int autoGeneratedKeys;
+
+        Key(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability,
+            int autoGeneratedKeys) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return sql.equals(other.sql)
+                    && resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && resultSetHoldability == other.resultSetHoldability
+                    && autoGeneratedKeys == other.autoGeneratedKeys;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = sql.hashCode();
+            hash = 31 * hash + resultSetType;
+            hash = 31 * hash + resultSetConcurrency;
+            hash = 31 * hash + resultSetHoldability;
+            return 31 * hash + autoGeneratedKeys;
+        }
+    }
+
+    /**
+     * A physical connection with its idle statements. Like the connection
+     * itself it is used by one thread at a time.
+     */
+    private final class CachingConnection extends DelegatingConnection {
+
+        private final Connection connection;
+        private final LinkedHashMap<Key, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+
+        CachingConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        protected Connection delegate() {
+            return connection;
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            Key key = new Key(sql, -1, -1, -1, -1);
+            PreparedStatement statement = take(key);
+            return lend(key, statement != null ? statement : connection.prepareStatement(sql));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+                throws SQLException {
+            Key key = new Key(sql, resultSetType, resultSetConcurrency, -1, -1);
+            PreparedStatement statement = take(key);
+            return lend(key, statement != null ? statement
+                    : connection.prepareStatement(sql, resultSetType, resultSetConcurrency));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                                  int resultSetHoldability) throws SQLException {
+            Key key = new Key(sql, resultSetType, resultSetConcurrency, resultSetHoldability, -1);
+            PreparedStatement statement = take(key);
+            return lend(key, statement != null ? statement
+                    : connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            Key key = new Key(sql, -1, -1, -1, autoGeneratedKeys);
+            PreparedStatement statement = take(key);
+            return lend(key, statement != null ? statement : connection.prepareStatement(sql, autoGeneratedKeys));
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                closeIdle();
+            } finally {
+                connection.close();
+            }
+        }
+
+        @Override
+        public void abort(Executor executor) throws SQLException {
+            idle.clear();
+            connection.abort(executor);
+        }
+
+        private PreparedStatement take(Key key) {
+            PreparedStatement statement = idle.remove(key);
+            if (statement != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return statement;
+        }
+
+        private PreparedStatement lend(Key key, PreparedStatement statement) {
+            return new CachedStatement(this, key, statement);
+        }
+
+        /**
+         * Keeps a statement a caller closed, evicting the least recently
+         * used one if the cache is full.
+         */
+        void giveBack(Key key, PreparedStatement statement, boolean poolable) throws SQLException {
+            if (!poolable || statement.isClosed() || idle.containsKey(key) || connection.isClosed()) {
+                statement.close();
+                return;
+            }
+            PreparedStatement evicted = null;
+            if (idle.size() >= cacheSize) {
+                Iterator<PreparedStatement> eldest = idle.values().iterator();
+                evicted = eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+            idle.put(key, statement);
+            if (evicted != null) {
+                evicted.close();
+            }
+        }
+
+        private void closeIdle() throws SQLException {
+            SQLException failure = null;
+            for (PreparedStatement statement : idle.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            idle.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * A caller's use of a cached statement; closing it returns the
+     * statement to the connection's cache. Every prepare gets a new one,
+     * so a caller holding on to a closed one cannot reach the statement
+     * while someone else uses it.
+     */
+    private static final class CachedStatement extends DelegatingPreparedStatement {
+
+        private final CachingConnection connection;
+        private final Key key;
+        private final PreparedStatement statement;
+        private ResultSet results;
+        private ResultSet generatedKeys;
+        private boolean poolable = true;
+        private boolean closed;
+        private Integer maxRows;
+        private Integer queryTimeout;
+        private Integer fetchSize;
+
+        CachedStatement(CachingConnection connection, Key key, PreparedStatement statement) {
+            this.connection = connection;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        protected PreparedStatement delegate() throws SQLException {
+            if (closed) {
+                throw new SQLNonTransientException("statement is closed");
+            }
+            return statement;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            delegate();
+            return connection;
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            results = delegate().executeQuery();
+            return results;
+        }
+
+        @Override
+        public ResultSet executeQuery(String sql) throws SQLException {
+            results = delegate().executeQuery(sql);
+            return results;
+        }
+
+        @Override
+        public ResultSet getResultSet() throws SQLException {
+            results = delegate().getResultSet();
+            return results;
+        }
+
+        @Override
+        public ResultSet getGeneratedKeys() throws SQLException {
+            generatedKeys = delegate().getGeneratedKeys();
+            return generatedKeys;
+        }
+
+        /**
+         * Records whether the caller lets the statement be cached, which
+         * some drivers, H2 among them, deny every statement by default.
+         */
+        @Override
+        public void setPoolable(boolean poolable) throws SQLException {
+            delegate().setPoolable(poolable);
+            this.poolable = poolable;
+        }
+
+        @Override
+        public boolean isPoolable() throws SQLException {
+            delegate();
+            return poolable;
+        }
+
+        /**
+         * Remembers the max rows the statement had before the caller's
+         * first change, to restore them when it is returned; the query
+         * timeout and fetch size are remembered the same way.
+         */
+        @Override
+        public void setMaxRows(int max) throws SQLException {
+            if (maxRows == null) {
+                maxRows = delegate().getMaxRows();
+            }
+            statement.setMaxRows(max);
+        }
+
+        @Override
+        public void setQueryTimeout(int seconds) throws SQLException {
+            if (queryTimeout == null) {
+                queryTimeout = delegate().getQueryTimeout();
+            }
+            statement.setQueryTimeout(seconds);
+        }
+
+        @Override
+        public void setFetchSize(int rows) throws SQLException {
+            if (fetchSize == null) {
+                fetchSize = delegate().getFetchSize();
+            }
+            statement.setFetchSize(rows);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Clears the statement, restores the settings the caller changed
+         * and hands it back to the cache, or closes it if it cannot be
+         * cleared.
+         */
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (results != null) {
+                    results.close();
+                }
+                if (generatedKeys != null) {
+                    generatedKeys.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                if (maxRows != null) {
+                    statement.setMaxRows(maxRows);
+                }
+                if (queryTimeout != null) {
+                    statement.setQueryTimeout(queryTimeout);
+                }
+                if (fetchSize != null) {
+                    statement.setFetchSize(fetchSize);
+                }
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+            connection.giveBack(key, statement, poolable);
+        }
+    }
+}
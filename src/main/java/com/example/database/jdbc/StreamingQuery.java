@@ -0,0 +1,417 @@
+package com.example.database.jdbc;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerStatement;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs queries whose rows are read as they are consumed, in memory that
+ * does not grow with the number of rows.
+ *
+ * <p>Most drivers read a whole result into memory unless told otherwise,
+ * and a scrollable result set always is, so that {@code last()} works. The
+ * result sets here are forward-only and read-only, and the statement is
+ * set up for streaming as its driver wants it: MySQL's driver streams row
+ * by row only at a fetch size of {@link Integer#MIN_VALUE}; PostgreSQL's
+ * fetches {@code fetchSize} rows at a time only outside auto-commit, so
+ * auto-commit is turned off for the query and back on after it; SQL
+ * Server's is set to adaptive response buffering; every other driver is
+ * given {@code fetchSize} as a hint. The product is found from the first
+ * connection.
+ *
+ * <p>Each {@link #stream} or subscription to a {@link #publisher} holds a
+ * connection of its own until its rows are read or it is closed or
+ * cancelled, which closes the result set, statement and connection.
+ */
+public final class StreamingQuery {
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+    private volatile Product product;
+
+    public StreamingQuery(DataSource dataSource, int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be at least 1: " + fetchSize);
+        }
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper) throws SQLException {
+        return stream(sql, statement -> { }, mapper);
+    }
+
+    /**
+     * Runs the query and returns its rows. The stream must be closed, as
+     * with try-with-resources, unless it is read to the end; a
+     * {@link SQLException} while reading is thrown as an
+     * {@link UncheckedSQLException}.
+     */
+    public <T> Stream<T> stream(String sql, PreparedStatementSetter parameters, RowMapper<T> mapper)
+            throws SQLException {
+        Cursor cursor = open(sql, parameters);
+        return StreamSupport.stream(new RowSpliterator<>(cursor, mapper), false).onClose(cursor::closeUnchecked);
+    }
+
+    public <T> Flow.Publisher<T> publisher(String sql, RowMapper<T> mapper, Executor executor) {
+        return publisher(sql, statement -> { }, mapper, executor);
+    }
+
+    /**
+     * Returns a publisher that runs the query for each subscriber and
+     * reads no more rows than the subscriber has requested. The query runs
+     * and the rows are read and delivered on {@code executor}, one task at
+     * a time per subscriber.
+     */
+    public <T> Flow.Publisher<T> publisher(String sql, PreparedStatementSetter parameters, RowMapper<T> mapper,
+                                           Executor executor) {
+        return subscriber -> {
+            RowSubscription<T> subscription = new RowSubscription<>(this, sql, parameters, mapper, executor,
+                    subscriber);
+            subscriber.onSubscribe(subscription);
+            subscription.start();
+        };
+    }
+
+    private Cursor open(String sql, PreparedStatementSetter parameters) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        Cursor cursor = new Cursor(connection);
+        try {
+            Product found = product;
+            if (found == null) {
+                found = Product.of(connection.getMetaData().getDatabaseProductName());
+                product = found;
+            }
+            if (found == Product.POSTGRESQL && connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                cursor.restoreAutoCommit = true;
+            }
+            cursor.statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            found.configure(cursor.statement, fetchSize);
+            parameters.setValues(cursor.statement);
+            cursor.rs = cursor.statement.executeQuery();
+            return cursor;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                cursor.close();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * How a driver is told to stream.
+     */
+    private enum Product {
+        MYSQL {
+            @Override
+            void configure(PreparedStatement statement, int fetchSize) throws SQLException {
+                statement.setFetchSize(Integer.MIN_VALUE);
+            }
+        },
+        POSTGRESQL,
+        SQL_SERVER {
+            @Override
+            void configure(PreparedStatement statement, int fetchSize) throws SQLException {
+                if (statement.isWrapperFor(ISQLServerStatement.class)) {
+                    statement.unwrap(ISQLServerStatement.class).setResponseBuffering("adaptive");
+                }
+                statement.setFetchSize(fetchSize);
+            }
+        },
+        OTHER;
+
+        static Product of(String name) {
+            if (name.startsWith("MySQL")) {
+                return MYSQL;
+            }
+            if (name.startsWith("PostgreSQL")) {
+                return POSTGRESQL;
+            }
+            if (name.startsWith("Microsoft SQL Server")) {
+                return SQL_SERVER;
+            }
+            return OTHER;
+        }
+
+        void configure(PreparedStatement statement, int fetchSize) throws SQLException {
+            statement.setFetchSize(fetchSize);
+        }
+    }
+
+    /**
+     * The open result set of one query and what it holds.
+     */
+    private static final class Cursor implements AutoCloseable {
+
+        final Connection connection;
+        PreparedStatement statement;
+        ResultSet rs;
+        boolean restoreAutoCommit;
+        private boolean closed;
+
+        Cursor(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Closes the result set, statement and connection, ending the
+         * transaction the query was run in if auto-commit was turned off
+         * for it.
+         */
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            SQLException failure = null;
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException e) {
+                failure = e;
+            }
+            try {
+                if (statement != null) {
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                failure = chain(failure, e);
+            }
+            try {
+                if (restoreAutoCommit) {
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                failure = chain(failure, e);
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                failure = chain(failure, e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        void closeUnchecked() {
+            try {
+                close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        private static SQLException chain(SQLException failure, SQLException e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+            return failure;
+        }
+    }
+
+    /**
+     * Reads a row per advance and closes the cursor after the last one.
+     */
+    private static final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final Cursor cursor;
+        private final RowMapper<T> mapper;
+        private int rowNum;
+
+        RowSpliterator(Cursor cursor, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.cursor = cursor;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            T row;
+            try {
+                if (cursor.closed) {
+                    return false;
+                }
+                if (!cursor.rs.next()) {
+                    cursor.close();
+                    return false;
+                }
+                row = mapper.mapRow(cursor.rs, rowNum++);
+            } catch (SQLException e) {
+                try {
+                    cursor.close();
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw new UncheckedSQLException(e);
+            }
+            action.accept(row);
+            return true;
+        }
+    }
+
+    /**
+     * One subscriber's query. Requests and cancellation only record
+     * themselves and make sure a drain task is scheduled; the drain task,
+     * never more than one at a time, opens the cursor, reads as many rows
+     * as have been requested and closes the cursor once the rows run out,
+     * a read fails or the subscriber cancels. An executor that rejects
+     * the drain task leaves the caller holding the drain, so the rejection
+     * is recorded and the caller drains, which ends the query with it.
+     * The drain is held from creation until {@code onSubscribe} returns,
+     * so a request made inside {@code onSubscribe} cannot deliver rows
+     * before it has returned or on another thread at the same time.
+     */
+    private static final class RowSubscription<T> implements Flow.Subscription {
+
+        private final StreamingQuery query;
+        private final String sql;
+        private final PreparedStatementSetter parameters;
+        private final RowMapper<T> mapper;
+        private final Executor executor;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger scheduled = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private volatile Throwable rejected;
+        private Cursor cursor;
+        private int rowNum;
+        private boolean done;
+
+        RowSubscription(StreamingQuery query, String sql, PreparedStatementSetter parameters, RowMapper<T> mapper,
+                        Executor executor, Flow.Subscriber<? super T> subscriber) {
+            this.query = query;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.mapper = mapper;
+            this.executor = executor;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request must be positive: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        /**
+         * Releases the drain held since creation, draining whatever was
+         * requested or cancelled while {@code onSubscribe} ran.
+         */
+        void start() {
+            if (!scheduled.compareAndSet(1, 0)) {
+                execute();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                rejected = e;
+                drain();
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!done) {
+                    emit();
+                }
+                missed = scheduled.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            while (!cancelled && invalidRequest == null && rejected == null && demand.get() > 0) {
+                T row;
+                try {
+                    if (cursor == null) {
+                        cursor = query.open(sql, parameters);
+                    }
+                    if (!cursor.rs.next()) {
+                        done = true;
+                        closeCursor();
+                        break;
+                    }
+                    row = mapper.mapRow(cursor.rs, rowNum++);
+                } catch (SQLException | RuntimeException e) {
+                    done = true;
+                    closeCursor();
+                    subscriber.onError(e);
+                    return;
+                }
+                demand.decrementAndGet();
+                try {
+                    subscriber.onNext(row);
+                } catch (RuntimeException e) {
+                    done = true;
+                    closeCursor();
+                    throw e;
+                }
+            }
+            if (done) {
+                subscriber.onComplete();
+            } else if (cancelled || invalidRequest != null || rejected != null) {
+                done = true;
+                closeCursor();
+                if (!cancelled) {
+                    subscriber.onError(rejected != null ? rejected : invalidRequest);
+                }
+            }
+        }
+
+        private void closeCursor() {
+            if (cursor != null) {
+                try {
+                    cursor.close();
+                } catch (SQLException ignored) {
+                    // the rows already read stand; closing failed connections is the pool's concern
+                }
+                cursor = null;
+            }
+        }
+    }
+}
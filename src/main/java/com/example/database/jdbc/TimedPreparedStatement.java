@@ -0,0 +1,139 @@
+package com.example.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A prepared statement whose executions are bounded by a
+ * {@link QueryTimer}.
+ */
+final class TimedPreparedStatement extends DelegatingPreparedStatement {
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final QueryTimer timer;
+
+    TimedPreparedStatement(Connection connection, PreparedStatement statement,
+                           HashedWheelTimer wheel, long defaultTimeoutNanos) {
+        this.connection = connection;
+        this.statement = statement;
+        this.timer = new QueryTimer(wheel, statement, defaultTimeoutNanos);
+    }
+
+    @Override
+    protected PreparedStatement delegate() {
+        return statement;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        timer.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public int getQueryTimeout() {
+        return timer.getQueryTimeout();
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return timer.execute(statement::executeQuery);
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return timer.execute(statement::executeUpdate);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return timer.execute(statement::execute);
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return timer.execute(statement::executeLargeUpdate);
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        return timer.execute(() -> statement.executeQuery(sql));
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        return timer.execute(() -> statement.executeUpdate(sql));
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        return timer.execute(() -> statement.execute(sql));
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        return timer.execute(statement::executeBatch);
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return timer.execute(() -> statement.executeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return timer.execute(() -> statement.executeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        return timer.execute(() -> statement.executeUpdate(sql, columnNames));
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        return timer.execute(() -> statement.execute(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        return timer.execute(() -> statement.execute(sql, columnIndexes));
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        return timer.execute(() -> statement.execute(sql, columnNames));
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        return timer.execute(statement::executeLargeBatch);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        return timer.execute(() -> statement.executeLargeUpdate(sql));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return timer.execute(() -> statement.executeLargeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return timer.execute(() -> statement.executeLargeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        return timer.execute(() -> statement.executeLargeUpdate(sql, columnNames));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.database.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Carries a {@link SQLException} out of code that cannot throw it, such as
+ * the operations of a {@link java.util.stream.Stream}.
+ */
+public final class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
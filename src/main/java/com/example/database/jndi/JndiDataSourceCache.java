@@ -0,0 +1,234 @@
+package com.example.database.jndi;
+
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caches the data sources bound in JNDI so that a lookup goes to the naming
+ * service once per name and environment rather than once per call.
+ *
+ * <p>On WebLogic and WebSphere a lookup is a remote call, and creating the
+ * {@link InitialContext} for it authenticates against the server. Here the
+ * first lookup of a name with a given environment does that, and every
+ * caller asking for the same pair meanwhile waits for the same result.
+ * Later lookups return the cached data source. Once an entry is older
+ * than {@code refreshAfter}, the next lookup still returns it but looks
+ * the name up again in the background, so a data source that was rebound,
+ * for instance after a redeploy, is picked up without any caller waiting
+ * on the naming service. A failed refresh drops the entry, so the next
+ * lookup goes to the naming service and reports its error. When the cached
+ * data source cannot connect, {@link #getConnection(String, Hashtable)}
+ * drops it and looks the name up at once; if that yields the same data
+ * source, the fault lies with the database and its error is thrown.
+ */
+public final class JndiDataSourceCache implements AutoCloseable {
+
+    private final long refreshAfterNanos;
+    private final ConcurrentHashMap<Key, CompletableFuture<Cached>> entries = new ConcurrentHashMap<>();
+    private final ExecutorService refresher;
+
+    public JndiDataSourceCache(Duration refreshAfter) {
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.refresher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "jndi-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Looks up {@code name} in the default initial context.
+     */
+    public DataSource lookup(String name) throws NamingException {
+        return lookup(name, null);
+    }
+
+    /**
+     * Looks up {@code name} in the initial context built from
+     * {@code environment}, or returns the data source cached for them.
+     */
+    public DataSource lookup(String name, Hashtable<?, ?> environment) throws NamingException {
+        Key key = new Key(name, environment);
+        CompletableFuture<Cached> entry = entries.get(key);
+        if (entry == null) {
+            key = key.detached();
+            CompletableFuture<Cached> loading = new CompletableFuture<>();
+            entry = entries.putIfAbsent(key, loading);
+            if (entry == null) {
+                return load(key, loading).dataSource;
+            }
+        }
+        Cached cached;
+        try {
+            cached = entry.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NamingException) {
+                throw (NamingException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+        if (System.nanoTime() - cached.loadedAt > refreshAfterNanos && cached.refreshing.compareAndSet(false, true)) {
+            Key detached = key.detached();
+            CompletableFuture<Cached> current = entry;
+            refresher.execute(() -> refresh(detached, current));
+        }
+        return cached.dataSource;
+    }
+
+    /**
+     * Opens a connection from the data source bound to {@code name}. If the
+     * cached data source fails, it is dropped and the name looked up once
+     * more before giving up.
+     */
+    public Connection getConnection(String name, Hashtable<?, ?> environment) throws NamingException, SQLException {
+        DataSource dataSource = lookup(name, environment);
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            invalidate(name, environment);
+            DataSource fresh = lookup(name, environment);
+            if (fresh == dataSource) {
+                throw e;
+            }
+            return fresh.getConnection();
+        }
+    }
+
+    /**
+     * Drops the data source cached for {@code name} and {@code environment}.
+     */
+    public void invalidate(String name, Hashtable<?, ?> environment) {
+        entries.remove(new Key(name, environment));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+        entries.clear();
+    }
+
+    /**
+     * Looks the name up on the calling thread and publishes the result, or
+     * the failure to everyone waiting for it, which then is not cached. An
+     * error is published as well, so no waiter is left blocked on it, and
+     * each of them rethrows it as it is.
+     */
+    private Cached load(Key key, CompletableFuture<Cached> loading) throws NamingException {
+        try {
+            Cached cached = new Cached(resolve(key));
+            loading.complete(cached);
+            return cached;
+        } catch (NamingException | RuntimeException | Error e) {
+            entries.remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the entry with a fresh lookup, or drops it if the lookup
+     * fails in any way; an entry left behind would stay marked as
+     * refreshing and never be looked up again.
+     */
+    private void refresh(Key key, CompletableFuture<Cached> current) {
+        try {
+            entries.replace(key, current, CompletableFuture.completedFuture(new Cached(resolve(key))));
+        } catch (NamingException | RuntimeException e) {
+            entries.remove(key, current);
+        } catch (Error e) {
+            entries.remove(key, current);
+            throw e;
+        }
+    }
+
+    private static DataSource resolve(Key key) throws NamingException {
+        Context context = new InitialContext(key.environment == null ? null : new Hashtable<>(key.environment));
+        try {
+            Object bound = context.lookup(key.name);
+            if (!(bound instanceof DataSource)) {
+                throw new NamingException(key.name + " is bound to "
+                        + (bound == null ? "null" : bound.getClass().getName()) + ", not a DataSource");
+            }
+            return (DataSource) bound;
+        } finally {
+            context.close();
+        }
+    }
+
+    private static final class Cached {
+
+        final DataSource dataSource;
+        final long loadedAt = System.nanoTime();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Cached(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    /**
+     * A name and the environment it is looked up in, equal when both are.
+     * A key used only to find an entry refers to the caller's environment;
+     * one that is stored or used later holds a copy of it.
+     */
+    private static final class Key {
+
+        final String name;
+        final Map<?, ?> environment;
+        final int hash;
+
+        Key(String name, Map<?, ?> environment) {
+            this.name = name;
+            this.environment = environment;
+            this.hash = Objects.hash(name, environment);
+        }
+
+        Key detached() {
+            return environment == null ? this : new Key(name, new HashMap<>(environment));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return name.equals(other.name) && Objects.equals(environment, other.environment);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
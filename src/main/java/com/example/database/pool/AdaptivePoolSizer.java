@@ -0,0 +1,158 @@
+package com.example.database.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes a running HikariCP pool from its own {@link HikariPoolMXBean}
+ * metrics, keeping {@code maximumPoolSize} and {@code minimumIdle} between
+ * a floor and a ceiling instead of at one static value.
+ *
+ * <p>By Little's law the mean number of connections a workload holds is its
+ * request rate times the hold time. Active connections plus threads waiting
+ * for one measure that product directly at each sample; it is smoothed into
+ * a demand estimate, and the target size is the demand plus a quarter.
+ * The pool then follows an AIMD policy. As soon as a sample sees waiting
+ * threads the maximum grows at once, by at least two connections and up to
+ * the target for that sample's load, so a burst is not starved. It shrinks
+ * multiplicatively to three quarters, but never below the target, and only
+ * after 30 samples in a row below the current maximum. A short lull
+ * therefore does not close connections the next burst needs.
+ * {@code minimumIdle} tracks the demand itself, so idle sessions are
+ * released overnight down to the floor.
+ *
+ * <p>HikariCP applies a lower maximum lazily. Surplus idle connections are
+ * retired by its housekeeper after {@code idleTimeout}; connections in use
+ * are never interrupted. The ceiling should leave room for every other
+ * client of the database within its connection limit.
+ */
+public final class AdaptivePoolSizer implements AutoCloseable {
+
+    /**
+     * Weight of the newest sample in the demand estimate.
+     */
+    static final double SMOOTHING = 0.2;
+
+    /**
+     * Spare capacity over the estimated demand.
+     */
+    static final double HEADROOM = 1.25;
+
+    static final int INCREMENT = 2;
+
+    static final double DECREASE = 0.75;
+
+    static final int QUIET_SAMPLES = 30;
+
+    private final HikariDataSource dataSource;
+    private final int floor;
+    private final int ceiling;
+    private ScheduledExecutorService timer;
+    private double demand = -1;
+    private int quiet;
+
+    /**
+     * Creates a sizer that keeps the pool of {@code dataSource} between
+     * {@code floor} and {@code ceiling} connections. Nothing changes until
+     * {@link #start} or {@link #adjust} is called.
+     */
+    public AdaptivePoolSizer(HikariDataSource dataSource, int floor, int ceiling) {
+        if (floor < 1 || ceiling < floor) {
+            throw new IllegalArgumentException("invalid bounds [" + floor + ", " + ceiling + "]");
+        }
+        this.dataSource = dataSource;
+        this.floor = floor;
+        this.ceiling = ceiling;
+    }
+
+    /**
+     * Samples the pool every {@code period} on a daemon thread of its own
+     * until {@link #close()}.
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (timer != null) {
+            throw new IllegalStateException("already started");
+        }
+        String name = "pool-sizer-" + dataSource.getPoolName();
+        timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::adjustQuietly, period, period, unit);
+    }
+
+    /**
+     * Takes one sample and resizes the pool if the policy calls for it.
+     * Does nothing while the pool has not started or after it closed.
+     */
+    public synchronized void adjust() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null || dataSource.isClosed()) {
+            return;
+        }
+        int waiting = pool.getThreadsAwaitingConnection();
+        int load = pool.getActiveConnections() + waiting;
+        demand = demand < 0 ? load : demand + SMOOTHING * (load - demand);
+
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        int maximum = config.getMaximumPoolSize();
+        int target = bound((int) Math.ceil(demand * HEADROOM));
+        int resized = maximum;
+        if (waiting > 0) {
+            quiet = 0;
+            resized = bound(Math.max(maximum + INCREMENT, (int) Math.ceil(load * HEADROOM)));
+        } else if (target < maximum) {
+            if (++quiet >= QUIET_SAMPLES) {
+                quiet = 0;
+                resized = Math.max(target, bound((int) (maximum * DECREASE)));
+            }
+        } else {
+            quiet = 0;
+        }
+        int minimumIdle = Math.min(resized, bound((int) Math.ceil(demand)));
+
+        // keep minimumIdle <= maximumPoolSize at every step
+        if (resized < maximum) {
+            config.setMinimumIdle(Math.min(minimumIdle, config.getMinimumIdle()));
+            config.setMaximumPoolSize(resized);
+        } else if (resized > maximum) {
+            config.setMaximumPoolSize(resized);
+        }
+        if (config.getMinimumIdle() != minimumIdle) {
+            config.setMinimumIdle(minimumIdle);
+        }
+    }
+
+    /**
+     * Returns the smoothed number of connections in use or awaited, or -1
+     * before the first sample.
+     */
+    public synchronized double demand() {
+        return demand;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    private void adjustQuietly() {
+        try {
+            adjust();
+        } catch (RuntimeException e) {
+            // a failed sample must not cancel the schedule; the next one retries
+        }
+    }
+
+    private int bound(int size) {
+        return Math.max(floor, Math.min(ceiling, size));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.database.pool;
+
+import com.mchange.v2.c3p0.AbstractComboPooledDataSource;
+import com.mchange.v2.c3p0.AbstractConnectionCustomizer;
+import com.mchange.v2.c3p0.PooledDataSource;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * c3p0 has no creation counters; it reports physical connections only to
+ * a connection customizer, which it instantiates by class name and calls
+ * with the identity token of the data source. The counts therefore live
+ * on the metrics instance and {@link Counter} finds them by token through
+ * a registry that holds them weakly, so they go once the metrics are no
+ * longer referenced, and the registry drops their tokens as metrics for
+ * other pools are attached. The counter is installed on combo data
+ * sources that have no customizer of their own; other data sources
+ * report -1.
+ */
+final class C3p0PoolMetrics implements PoolMetrics {
+
+    private static final Map<String, WeakReference<LongAdder[]>> COUNTS = new ConcurrentHashMap<>();
+
+    private final PooledDataSource pool;
+    private final LongAdder[] counts;
+
+    C3p0PoolMetrics(PooledDataSource pool) {
+        this.pool = pool;
+        if (pool instanceof AbstractComboPooledDataSource
+                && ((AbstractComboPooledDataSource) pool).getConnectionCustomizerClassName() == null) {
+            counts = new LongAdder[] {new LongAdder(), new LongAdder()};
+            COUNTS.values().removeIf(registered -> registered.get() == null);
+            COUNTS.put(pool.getIdentityToken(), new WeakReference<>(counts));
+            ((AbstractComboPooledDataSource) pool).setConnectionCustomizerClassName(Counter.class.getName());
+        } else {
+            counts = null;
+        }
+    }
+
+    @Override
+    public int active() {
+        try {
+            return pool.getNumBusyConnectionsDefaultUser();
+        } catch (SQLException e) {
+            throw new IllegalStateException("c3p0 pool unavailable", e);
+        }
+    }
+
+    @Override
+    public int idle() {
+        try {
+            return pool.getNumIdleConnectionsDefaultUser();
+        } catch (SQLException e) {
+            throw new IllegalStateException("c3p0 pool unavailable", e);
+        }
+    }
+
+    @Override
+    public int waiting() {
+        try {
+            return pool.getNumThreadsAwaitingCheckoutDefaultUser();
+        } catch (SQLException e) {
+            throw new IllegalStateException("c3p0 pool unavailable", e);
+        }
+    }
+
+    @Override
+    public long created() {
+        return counts == null ? -1 : counts[0].sum();
+    }
+
+    @Override
+    public long destroyed() {
+        return counts == null ? -1 : counts[1].sum();
+    }
+
+    /**
+     * Counts acquired and destroyed connections for {@link C3p0PoolMetrics};
+     * public because c3p0 creates it reflectively.
+     */
+    public static final class Counter extends AbstractConnectionCustomizer {
+
+        @Override
+        public void onAcquire(Connection connection, String token) {
+            LongAdder[] counts = counts(token);
+            if (counts != null) {
+                counts[0].increment();
+            }
+        }
+
+        @Override
+        public void onDestroy(Connection connection, String token) {
+            LongAdder[] counts = counts(token);
+            if (counts != null) {
+                counts[1].increment();
+            }
+        }
+
+        private static LongAdder[] counts(String token) {
+            WeakReference<LongAdder[]> registered = COUNTS.get(token);
+            return registered == null ? null : registered.get();
+        }
+    }
+}
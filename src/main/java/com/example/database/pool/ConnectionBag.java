@@ -0,0 +1,127 @@
+package com.example.database.pool;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Idle pooled items claimed by compare-and-set, after HikariCP's
+ * {@code ConcurrentBag}.
+ *
+ * <p>Every item lives in one shared list for its whole life and carries its
+ * own state, so taking or returning one flips that state and touches no
+ * lock. Each thread also remembers the items it returned last. A borrow
+ * tries those first, newest first, because a thread that runs one request
+ * after another will usually find its previous connection still free, and
+ * it then needs no scan of the shared list and competes with no other
+ * thread for it. Items that another thread claimed in the meantime are
+ * simply skipped. A thread holds its recent items weakly and drops the
+ * removed ones whenever it returns another, so a thread that stops using
+ * the pool does not keep closed connections from being collected.
+ *
+ * <p>The bag never waits; callers bound the number of items they take, as
+ * {@link FairPoolingDataSource} does with its permits.
+ */
+final class ConnectionBag<T extends ConnectionBag.Item> {
+
+    private static final int RECENT_LIMIT = 16;
+
+    private final CopyOnWriteArrayList<T> items = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ArrayList<WeakReference<T>>> recent =
+            ThreadLocal.withInitial(() -> new ArrayList<>(RECENT_LIMIT));
+
+    /**
+     * Claims an idle item, or returns null if there is none.
+     */
+    T borrow() {
+        ArrayList<WeakReference<T>> mine = recent.get();
+        for (int i = mine.size() - 1; i >= 0; i--) {
+            T item = mine.remove(i).get();
+            if (item != null && item.claim()) {
+                return item;
+            }
+        }
+        for (T item : items) {
+            if (item.claim()) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new item, claimed by the caller.
+     */
+    void add(T item) {
+        items.add(item);
+    }
+
+    /**
+     * Makes a claimed item idle again and remembers it for this thread.
+     */
+    void requite(T item) {
+        item.state = Item.IDLE;
+        ArrayList<WeakReference<T>> mine = recent.get();
+        mine.removeIf(reference -> {
+            T remembered = reference.get();
+            return remembered == null || remembered == item || remembered.state == Item.REMOVED;
+        });
+        if (mine.size() == RECENT_LIMIT) {
+            mine.remove(0);
+        }
+        mine.add(new WeakReference<>(item));
+    }
+
+    /**
+     * Drops an item claimed by the caller for good.
+     */
+    void remove(T item) {
+        item.state = Item.REMOVED;
+        items.remove(item);
+    }
+
+    /**
+     * Claims and removes every idle item.
+     */
+    List<T> drain() {
+        List<T> drained = new ArrayList<>();
+        for (T item : items) {
+            if (item.claim()) {
+                remove(item);
+                drained.add(item);
+            }
+        }
+        return drained;
+    }
+
+    int idleCount() {
+        int count = 0;
+        for (T item : items) {
+            if (item.state == Item.IDLE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Something kept in the bag; its state says who may use it.
+     */
+    abstract static class Item {
+
+        static final int IDLE = 0;
+        static final int IN_USE = 1;
+        static final int REMOVED = -1;
+
+        private static final AtomicIntegerFieldUpdater<Item> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Item.class, "state");
+
+        volatile int state = IN_USE;
+
+        final boolean claim() {
+            return state == IDLE && STATE.compareAndSet(this, IDLE, IN_USE);
+        }
+    }
+}
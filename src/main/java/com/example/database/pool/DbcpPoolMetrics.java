@@ -0,0 +1,81 @@
+package com.example.database.pool;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DBCP2 keeps its counters on the commons-pool object pool, which
+ * {@link BasicDataSource} creates on first use and drops on close, and
+ * creates anew on {@link BasicDataSource#restart()}. When the object pool
+ * last read has been replaced, its final counts are carried over, so the
+ * counts keep growing across restarts.
+ */
+final class DbcpPoolMetrics implements PoolMetrics {
+
+    private final BasicDataSource pool;
+    private final ReentrantLock lock = new ReentrantLock();
+    private GenericObjectPool<PoolableConnection> seen;
+    private long createdBefore;
+    private long destroyedBefore;
+
+    DbcpPoolMetrics(BasicDataSource pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public int active() {
+        return pool.getNumActive();
+    }
+
+    @Override
+    public int idle() {
+        return pool.getNumIdle();
+    }
+
+    @Override
+    public int waiting() {
+        GenericObjectPool<PoolableConnection> connections = pool.getConnectionPool();
+        return connections == null ? 0 : connections.getNumWaiters();
+    }
+
+    @Override
+    public long created() {
+        lock.lock();
+        try {
+            GenericObjectPool<PoolableConnection> connections = current();
+            return createdBefore + (connections == null ? 0 : connections.getCreatedCount());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long destroyed() {
+        lock.lock();
+        try {
+            GenericObjectPool<PoolableConnection> connections = current();
+            return destroyedBefore + (connections == null ? 0 : connections.getDestroyedCount());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the object pool in use, first adding the final counts of the
+     * one last seen if it was replaced. Called holding the lock.
+     */
+    private GenericObjectPool<PoolableConnection> current() {
+        GenericObjectPool<PoolableConnection> connections = pool.getConnectionPool();
+        if (connections != seen) {
+            if (seen != null) {
+                createdBefore += seen.getCreatedCount();
+                destroyedBefore += seen.getDestroyedCount();
+            }
+            seen = connections;
+        }
+        return connections;
+    }
+}
@@ -0,0 +1,431 @@
+package com.example.database.pool;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * A connection pool that never pins a virtual thread to its carrier.
+ *
+ * <p>c3p0 and DBCP guard their pools with {@code synchronized} and wait on
+ * monitors, which on Java 21 holds the carrier thread for as long as a
+ * virtual thread waits for a connection. Here a fair {@link Semaphore} with
+ * one permit per connection is the only place a caller waits. It parks
+ * through {@code java.util.concurrent}, which unmounts a virtual thread,
+ * and hands out permits in arrival order, so under contention no caller
+ * overtakes one that has waited longer. Opening, validating and resetting
+ * connections happen outside any lock. Whether the driver itself pins is
+ * up to the driver.
+ *
+ * <p>By default idle connections are kept on a stack under a
+ * {@link ReentrantLock}, held only to push or pop one, and reused most
+ * recent first. Under virtual threads, which run one task each, thread
+ * affinity has nothing to remember and would only cost a thread-local list
+ * per thread. With {@code threadAffinity} on, for pools used from a fixed
+ * set of platform threads, they are kept in a {@link ConnectionBag}
+ * instead, so an uncontended checkout and return take no lock at all: a
+ * compare-and-set on the semaphore and one on the connection, which is
+ * usually the one the same thread returned last. Either way a connection idle for more
+ * than half a second is checked with {@link Connection#isValid(int)}
+ * before it is handed out. Connections are opened from {@code source} on
+ * demand, up to {@code maximumSize}, and reset on return to the session
+ * settings they were opened with, as {@link SessionState} records them.
+ * Statements left open are closed and an open transaction is rolled back.
+ */
+public final class FairPoolingDataSource implements DataSource, PoolMetrics, AutoCloseable {
+
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource source;
+    private final int maximumSize;
+    private final long acquireTimeoutNanos;
+    private final Semaphore permits;
+    private final IdleConnections idle;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private volatile boolean closed;
+
+    public FairPoolingDataSource(DataSource source, int maximumSize) {
+        this(source, maximumSize, Duration.ofSeconds(30));
+    }
+
+    public FairPoolingDataSource(DataSource source, int maximumSize, Duration acquireTimeout) {
+        this(source, maximumSize, acquireTimeout, false);
+    }
+
+    public FairPoolingDataSource(DataSource source, int maximumSize, Duration acquireTimeout,
+                                 boolean threadAffinity) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1: " + maximumSize);
+        }
+        this.source = source;
+        this.maximumSize = maximumSize;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.permits = new Semaphore(maximumSize, true);
+        this.idle = threadAffinity ? new BagConnections() : new StackConnections();
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Waits in line for a connection for up to the acquire timeout.
+     *
+     * @throws SQLTransientConnectionException if none became available in time
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        ensureOpen();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("no connection available within "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + " ms, "
+                        + permits.getQueueLength() + " threads waiting");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("interrupted while waiting for a connection", e);
+        }
+        boolean leased = false;
+        try {
+            ensureOpen();
+            Lease lease = new Lease(borrow());
+            active.incrementAndGet();
+            leased = true;
+            return lease;
+        } finally {
+            if (!leased) {
+                permits.release();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("pooled connections all use the source's credentials");
+    }
+
+    /**
+     * Closes the idle connections and refuses new checkouts. Connections
+     * still in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Entry entry : idle.drain()) {
+            discard(entry);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int active() {
+        return active.get();
+    }
+
+    @Override
+    public int idle() {
+        return idle.size();
+    }
+
+    @Override
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public long created() {
+        return created.sum();
+    }
+
+    @Override
+    public long destroyed() {
+        return destroyed.sum();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return source.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        source.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        source.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return source.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return source.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(this) ? type.cast(this) : source.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(this) || source.isWrapperFor(type);
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLNonTransientConnectionException("pool is closed");
+        }
+    }
+
+    /**
+     * Takes an idle connection that is still alive, or opens a new one.
+     * The caller holds a permit, so the pool never exceeds its size.
+     */
+    private Entry borrow() throws SQLException {
+        while (true) {
+            Entry entry = idle.poll();
+            if (entry == null) {
+                return open();
+            }
+            if (System.nanoTime() - entry.lastUsed < VALIDATION_BYPASS_NANOS || isAlive(entry.connection)) {
+                return entry;
+            }
+            discard(entry);
+        }
+    }
+
+    private Entry open() throws SQLException {
+        Connection connection = source.getConnection();
+        try {
+            Entry entry = new Entry(connection);
+            created.increment();
+            idle.add(entry);
+            return entry;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.close();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Puts a returned connection back, or closes it if it cannot be reset,
+     * then lets the next waiter in. If the pool closed meanwhile, either
+     * this call or {@link #close()} drains the connection, whichever looks
+     * last.
+     */
+    private void release(Entry entry, Lease lease, boolean broken) {
+        try {
+            if (broken || !lease.reset(entry.state)) {
+                discard(entry);
+                return;
+            }
+            entry.lastUsed = System.nanoTime();
+            idle.offer(entry);
+            if (closed) {
+                for (Entry drained : idle.drain()) {
+                    discard(drained);
+                }
+            }
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private static boolean isAlive(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a connection that is checked out or drained.
+     */
+    private void discard(Entry entry) {
+        idle.remove(entry);
+        destroyed.increment();
+        try {
+            entry.connection.close();
+        } catch (SQLException e) {
+            // the connection is gone either way
+        }
+    }
+
+    /**
+     * A physical connection and the state it was opened with.
+     */
+    private static final class Entry extends ConnectionBag.Item {
+
+        final Connection connection;
+        final SessionState state;
+        long lastUsed;
+
+        Entry(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.state = new SessionState(connection);
+            this.lastUsed = System.nanoTime();
+        }
+    }
+
+    /**
+     * Where idle connections wait. The pool calls {@link #poll()} only
+     * while holding a permit and {@link #remove(Entry)} only for a
+     * connection checked out or drained.
+     */
+    private interface IdleConnections {
+
+        Entry poll();
+
+        void add(Entry entry);
+
+        void offer(Entry entry);
+
+        void remove(Entry entry);
+
+        List<Entry> drain();
+
+        int size();
+    }
+
+    private static final class BagConnections implements IdleConnections {
+
+        private final ConnectionBag<Entry> bag = new ConnectionBag<>();
+
+        @Override
+        public Entry poll() {
+            return bag.borrow();
+        }
+
+        @Override
+        public void add(Entry entry) {
+            bag.add(entry);
+        }
+
+        @Override
+        public void offer(Entry entry) {
+            bag.requite(entry);
+        }
+
+        @Override
+        public void remove(Entry entry) {
+            bag.remove(entry);
+        }
+
+        @Override
+        public List<Entry> drain() {
+            return bag.drain();
+        }
+
+        @Override
+        public int size() {
+            return bag.idleCount();
+        }
+    }
+
+    private static final class StackConnections implements IdleConnections {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Entry> stack = new ArrayDeque<>();
+        private volatile int size;
+
+        @Override
+        public Entry poll() {
+            lock.lock();
+            try {
+                Entry entry = stack.pollFirst();
+                size = stack.size();
+                return entry;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void add(Entry entry) {
+            // only idle connections are kept
+        }
+
+        @Override
+        public void offer(Entry entry) {
+            lock.lock();
+            try {
+                stack.addFirst(entry);
+                size = stack.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void remove(Entry entry) {
+            // checked-out and drained connections are no longer on the stack
+        }
+
+        @Override
+        public List<Entry> drain() {
+            lock.lock();
+            try {
+                List<Entry> drained = new ArrayList<>(stack);
+                stack.clear();
+                size = 0;
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class Lease extends PooledLease {
+
+        private final Entry entry;
+
+        Lease(Entry entry) {
+            super(entry.connection);
+            this.entry = entry;
+        }
+
+        @Override
+        protected void release(boolean broken) {
+            FairPoolingDataSource.this.release(entry, this, broken);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.database.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HikariCP reports creations only to a {@link MetricsTrackerFactory}, so one
+ * is installed unless the pool already has a tracker or registry, in which
+ * case creations and destructions are unknown. Every connection leaves the
+ * pool by being closed, so destroyed is created minus the current total.
+ */
+final class HikariPoolMetrics implements PoolMetrics, MetricsTrackerFactory {
+
+    private final HikariDataSource pool;
+    private final LongAdder created = new LongAdder();
+    private final boolean tracking;
+
+    HikariPoolMetrics(HikariDataSource pool) {
+        this.pool = pool;
+        this.tracking = pool.getMetricsTrackerFactory() == null && pool.getMetricRegistry() == null;
+        if (tracking) {
+            pool.setMetricsTrackerFactory(this);
+        }
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats stats) {
+        // connections opened before the tracker, such as the fail-fast check
+        created.add(stats.getTotalConnections());
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long millis) {
+                created.increment();
+            }
+        };
+    }
+
+    @Override
+    public int active() {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean == null ? 0 : bean.getActiveConnections();
+    }
+
+    @Override
+    public int idle() {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean == null ? 0 : bean.getIdleConnections();
+    }
+
+    @Override
+    public int waiting() {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean == null ? 0 : bean.getThreadsAwaitingConnection();
+    }
+
+    @Override
+    public long created() {
+        return tracking ? created.sum() : -1;
+    }
+
+    @Override
+    public long destroyed() {
+        return tracking ? Math.max(0, created.sum() - total()) : -1;
+    }
+
+    private int total() {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean == null ? 0 : bean.getTotalConnections();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.database.pool;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A pool behind a data source that times every {@code getConnection} call,
+ * so all pool implementations are measured at the same point.
+ *
+ * <p>Latencies go into an HdrHistogram {@link Recorder}, which records
+ * values without locks; {@link #snapshot()} swaps in a fresh
+ * histogram and returns the interval since the previous snapshot together
+ * with the pool's {@link PoolMetrics}. Snapshots are meant to be taken by
+ * one reporting thread.
+ */
+public final class MeteredDataSource implements DataSource {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final DataSource pool;
+    private final PoolMetrics metrics;
+    private final Recorder acquireNanos = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder failedAcquires = new LongAdder();
+    private Histogram interval;
+    private long intervalStart = System.nanoTime();
+    private long failedBefore;
+    private long createdBefore;
+    private long destroyedBefore;
+
+    public MeteredDataSource(DataSource pool) {
+        this(pool, PoolMetrics.of(pool));
+    }
+
+    public MeteredDataSource(DataSource pool, PoolMetrics metrics) {
+        this.pool = pool;
+        this.metrics = metrics;
+        this.createdBefore = metrics.created();
+        this.destroyedBefore = metrics.destroyed();
+    }
+
+    public DataSource pool() {
+        return pool;
+    }
+
+    public PoolMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            Connection connection = pool.getConnection();
+            acquired = true;
+            return connection;
+        } finally {
+            record(start, acquired);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            Connection connection = pool.getConnection(username, password);
+            acquired = true;
+            return connection;
+        } finally {
+            record(start, acquired);
+        }
+    }
+
+    /**
+     * Returns the metrics since the previous snapshot, or since creation.
+     * The histogram of the returned snapshot is recycled by the next call,
+     * so copy it if it has to outlive that.
+     */
+    public synchronized PoolSnapshot snapshot() {
+        long now = System.nanoTime();
+        interval = acquireNanos.getIntervalHistogram(interval);
+        long failed = failedAcquires.sum();
+        long created = metrics.created();
+        long destroyed = metrics.destroyed();
+        PoolSnapshot snapshot = new PoolSnapshot(now - intervalStart, interval, failed - failedBefore,
+                metrics.active(), metrics.idle(), metrics.waiting(),
+                created < 0 ? -1 : created - createdBefore, destroyed < 0 ? -1 : destroyed - destroyedBefore);
+        intervalStart = now;
+        failedBefore = failed;
+        createdBefore = created;
+        destroyedBefore = destroyed;
+        return snapshot;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return pool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        pool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        pool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return pool.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return pool.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(this) ? type.cast(this) : pool.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(this) || pool.isWrapperFor(type);
+    }
+
+    private void record(long start, boolean acquired) {
+        acquireNanos.recordValue(System.nanoTime() - start);
+        if (!acquired) {
+            failedAcquires.increment();
+        }
+    }
+}
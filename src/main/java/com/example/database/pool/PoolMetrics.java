@@ -0,0 +1,67 @@
+package com.example.database.pool;
+
+import com.mchange.v2.c3p0.PooledDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.tomcat.jdbc.pool.DataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * The state of a connection pool through the same fields whatever the pool
+ * implementation, read from the pool's own counters.
+ *
+ * <p>Gauges are read at the time of the call. {@link #created()} and
+ * {@link #destroyed()} count physical connections since the metrics were
+ * attached and only ever grow; a pool that cannot report them returns -1.
+ * Acquire latency is not a pool statistic here but is measured by
+ * {@link MeteredDataSource} in front of the pool, identically for every
+ * implementation.
+ */
+public interface PoolMetrics {
+
+    /**
+     * Returns the connections checked out of the pool.
+     */
+    int active();
+
+    /**
+     * Returns the open connections available for checkout.
+     */
+    int idle();
+
+    /**
+     * Returns the threads blocked waiting for a connection.
+     */
+    int waiting();
+
+    long created();
+
+    long destroyed();
+
+    /**
+     * Attaches metrics to {@code pool}, which must report metrics itself
+     * or be a HikariCP, DBCP2, c3p0 or Tomcat JDBC data source. Attach
+     * before the pool is first used: HikariCP and c3p0 count creations
+     * through a callback that would miss the connections opened earlier,
+     * and c3p0 restarts a running pool to install it.
+     */
+    static PoolMetrics of(DataSource pool) {
+        if (pool instanceof PoolMetrics) {
+            return (PoolMetrics) pool;
+        }
+        if (pool instanceof HikariDataSource) {
+            return new HikariPoolMetrics((HikariDataSource) pool);
+        }
+        if (pool instanceof BasicDataSource) {
+            return new DbcpPoolMetrics((BasicDataSource) pool);
+        }
+        if (pool instanceof PooledDataSource) {
+            return new C3p0PoolMetrics((PooledDataSource) pool);
+        }
+        if (pool instanceof DataSourceProxy) {
+            return new TomcatPoolMetrics((DataSourceProxy) pool);
+        }
+        throw new IllegalArgumentException("unsupported pool " + pool.getClass().getName());
+    }
+}
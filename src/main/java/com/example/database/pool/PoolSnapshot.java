@@ -0,0 +1,93 @@
+package com.example.database.pool;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The metrics of one pool over one interval: gauges as of its end, counts
+ * and acquire latencies for its whole length.
+ */
+public final class PoolSnapshot {
+
+    private final long intervalNanos;
+    private final Histogram acquireNanos;
+    private final long failedAcquires;
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final long created;
+    private final long destroyed;
+
+    PoolSnapshot(long intervalNanos, Histogram acquireNanos, long failedAcquires,
+                 int active, int idle, int waiting, long created, long destroyed) {
+        this.intervalNanos = intervalNanos;
+        this.acquireNanos = acquireNanos;
+        this.failedAcquires = failedAcquires;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.created = created;
+        this.destroyed = destroyed;
+    }
+
+    public long intervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Returns the time each {@code getConnection} call of the interval
+     * took, failed calls included, in nanoseconds.
+     */
+    public Histogram acquireNanos() {
+        return acquireNanos;
+    }
+
+    public long failedAcquires() {
+        return failedAcquires;
+    }
+
+    public int active() {
+        return active;
+    }
+
+    public int idle() {
+        return idle;
+    }
+
+    public int waiting() {
+        return waiting;
+    }
+
+    /**
+     * Returns the physical connections opened during the interval, or -1
+     * if the pool does not report them.
+     */
+    public long created() {
+        return created;
+    }
+
+    /**
+     * Returns the physical connections closed during the interval, or -1
+     * if the pool does not report them.
+     */
+    public long destroyed() {
+        return destroyed;
+    }
+
+    public double createdPerSecond() {
+        return created < 0 ? Double.NaN : created * 1e9 / intervalNanos;
+    }
+
+    public double destroyedPerSecond() {
+        return destroyed < 0 ? Double.NaN : destroyed * 1e9 / intervalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("acquires=%d failed=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus"
+                        + " active=%d idle=%d waiting=%d created/s=%.2f destroyed/s=%.2f",
+                acquireNanos.getTotalCount(), failedAcquires,
+                acquireNanos.getValueAtPercentile(50) / 1e3, acquireNanos.getValueAtPercentile(99) / 1e3,
+                acquireNanos.getValueAtPercentile(99.9) / 1e3, acquireNanos.getMaxValue() / 1e3,
+                active, idle, waiting, createdPerSecond(), destroyedPerSecond());
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.database.pool;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills a pool with validated connections before it takes traffic.
+ *
+ * <p>Pools open their minimum idle connections lazily or one after
+ * another, so the first burst after a deploy pays the network round trips,
+ * TLS handshake and login of every connection in turn. The warmer checks
+ * out the requested number of connections from {@code parallelism} threads
+ * at once, runs the validation query on each, and holds them until all are
+ * open so the pool has to create that many, then returns them all as idle
+ * connections. A connection that fails validation is aborted before it is
+ * closed, so that the pool drops it rather than keeping it idle. It stops
+ * at the deadline and reports how far it got.
+ *
+ * <p>{@link #warmAsync(int)} runs alongside the rest of startup, and the
+ * service reports ready once the future completes, so warming adds time
+ * only if it outlasts the other startup work. Pools that open connections
+ * on the calling thread, such as DBCP2, Tomcat JDBC and
+ * {@link FairPoolingDataSource}, open them in parallel. HikariCP opens
+ * every connection on one thread of its own and c3p0 on its few helper
+ * threads, so for them the gain is that filling starts at once. The count
+ * must not exceed the pool's maximum size, or checkouts wait for
+ * connections the warmer holds itself.
+ */
+public final class PoolWarmer {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource pool;
+    private final int parallelism;
+    private final Duration deadline;
+    private final String validationQuery;
+
+    /**
+     * Creates a warmer that validates with {@code validationQuery}, or with
+     * {@link Connection#isValid(int)} if it is null.
+     */
+    public PoolWarmer(DataSource pool, int parallelism, Duration deadline, String validationQuery) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.deadline = deadline;
+        this.validationQuery = validationQuery;
+    }
+
+    /**
+     * Opens and validates {@code connections} connections and returns them
+     * to the pool.
+     *
+     * @throws SQLTransientConnectionException if fewer were validated by the
+     *         deadline; the failures are attached as suppressed exceptions
+     */
+    public void warm(int connections) throws SQLException {
+        if (connections < 0) {
+            throw new IllegalArgumentException("connections must not be negative: " + connections);
+        }
+        if (connections == 0) {
+            return;
+        }
+        Queue<Connection> held = new ConcurrentLinkedQueue<>();
+        Queue<Exception> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger validated = new AtomicInteger();
+        Finish finish = new Finish();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(Math.min(parallelism, connections), task -> {
+            Thread thread = new Thread(task, "pool-warmer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < connections; i++) {
+                threads.execute(() -> {
+                    if (finish.done) {
+                        return;
+                    }
+                    try {
+                        Connection connection = pool.getConnection();
+                        held.add(connection);
+                        if (finish.done) {
+                            closeAll(held);
+                            return;
+                        }
+                        boolean valid;
+                        try {
+                            valid = validate(connection);
+                        } catch (SQLException | RuntimeException e) {
+                            evict(held, connection);
+                            throw e;
+                        }
+                        if (valid) {
+                            validated.incrementAndGet();
+                        } else {
+                            evict(held, connection);
+                            failures.add(new SQLException("validation failed on a new connection"));
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        failures.add(e);
+                    }
+                });
+            }
+            threads.shutdown();
+            if (!threads.awaitTermination(deadline.toNanos(), TimeUnit.NANOSECONDS)) {
+                threads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            threads.shutdownNow();
+            Thread.currentThread().interrupt();
+            failures.add(e);
+        } finally {
+            finish.done = true;
+            closeAll(held);
+        }
+        if (validated.get() < connections) {
+            SQLTransientConnectionException e = new SQLTransientConnectionException("validated " + validated
+                    + " of " + connections + " connections within " + deadline.toMillis() + " ms");
+            failures.forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs {@link #warm(int)} on a thread of its own.
+     */
+    public CompletableFuture<Void> warmAsync(int connections) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                warm(connections);
+                result.complete(null);
+            } catch (SQLException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, "pool-warmer");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    private boolean validate(Connection connection) throws SQLException {
+        if (validationQuery == null) {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+            statement.execute(validationQuery);
+            return true;
+        }
+    }
+
+    /**
+     * Returns every held connection to the pool. Both the warming threads
+     * and the caller drain the queue, so a connection checked out after
+     * the deadline is returned by whichever side sees it last.
+     */
+    private static void closeAll(Queue<Connection> held) {
+        for (Connection connection; (connection = held.poll()) != null; ) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // the pool discards it
+            }
+        }
+    }
+
+    /**
+     * Aborts and closes a connection that failed validation, unless the
+     * caller already returned it. Pools drop an aborted connection on
+     * close instead of keeping it idle.
+     */
+    private static void evict(Queue<Connection> held, Connection connection) {
+        if (!held.remove(connection)) {
+            return;
+        }
+        try {
+            connection.abort(Runnable::run);
+        } catch (SQLException | RuntimeException e) {
+            // closing it below is all that is left to try
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // the pool discards it
+        }
+    }
+
+    private static final class Finish {
+
+        volatile boolean done;
+    }
+}
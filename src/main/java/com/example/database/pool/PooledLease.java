@@ -0,0 +1,380 @@
+package com.example.database.pool;
+
+import com.example.database.jdbc.DelegatingCallableStatement;
+import com.example.database.jdbc.DelegatingConnection;
+import com.example.database.jdbc.DelegatingPreparedStatement;
+import com.example.database.jdbc.DelegatingStatement;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The connection a pool hands to a caller. Closing it returns the physical
+ * connection to the pool once; the lease records which session settings
+ * the caller changed so that {@link #reset(SessionState)} restores only
+ * those.
+ *
+ * <p>Statements created through the lease report the lease as their
+ * connection and are closed, with their result sets, when it is returned,
+ * so a caller that forgets one leaves nothing open on the physical
+ * connection for the next.
+ */
+abstract class PooledLease extends DelegatingConnection {
+
+    private final Connection physical;
+    private final AtomicBoolean returned = new AtomicBoolean();
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private boolean autoCommitChanged;
+    private boolean readOnlyChanged;
+    private boolean isolationChanged;
+    private boolean catalogChanged;
+    private boolean schemaChanged;
+    private boolean holdabilityChanged;
+    private boolean typeMapChanged;
+    private boolean networkTimeoutChanged;
+    private boolean clientInfoChanged;
+
+    PooledLease(Connection physical) {
+        this.physical = physical;
+    }
+
+    /**
+     * Gives the physical connection back to the pool, or drops it if
+     * {@code broken}. Called once, by the first close or abort.
+     */
+    protected abstract void release(boolean broken);
+
+    @Override
+    protected Connection delegate() throws SQLException {
+        if (returned.get()) {
+            throw new SQLNonTransientConnectionException("connection is closed");
+        }
+        return physical;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return track(new LeaseStatement(delegate().createStatement()));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(new LeaseStatement(delegate().createStatement(resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        return track(new LeaseStatement(delegate().createStatement(resultSetType, resultSetConcurrency,
+                resultSetHoldability)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return track(new LeasePreparedStatement(delegate().prepareStatement(sql)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return track(new LeasePreparedStatement(delegate().prepareStatement(sql, resultSetType,
+                resultSetConcurrency)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return track(new LeasePreparedStatement(delegate().prepareStatement(sql, resultSetType,
+                resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return track(new LeasePreparedStatement(delegate().prepareStatement(sql, autoGeneratedKeys)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return track(new LeasePreparedStatement(delegate().prepareStatement(sql, columnIndexes)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return track(new LeasePreparedStatement(delegate().prepareStatement(sql, columnNames)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return track(new LeaseCallableStatement(delegate().prepareCall(sql)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return track(new LeaseCallableStatement(delegate().prepareCall(sql, resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return track(new LeaseCallableStatement(delegate().prepareCall(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability)));
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        delegate().setAutoCommit(autoCommit);
+        autoCommitChanged = true;
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        delegate().setReadOnly(readOnly);
+        readOnlyChanged = true;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        delegate().setTransactionIsolation(level);
+        isolationChanged = true;
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        delegate().setCatalog(catalog);
+        catalogChanged = true;
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        delegate().setSchema(schema);
+        schemaChanged = true;
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        delegate().setHoldability(holdability);
+        holdabilityChanged = true;
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        delegate().setTypeMap(map);
+        typeMapChanged = true;
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        delegate().setNetworkTimeout(executor, milliseconds);
+        networkTimeoutChanged = true;
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        clientInfoChanged = true;
+        try {
+            delegate().setClientInfo(name, value);
+        } catch (SQLClientInfoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new SQLClientInfoException(e.getMessage(), e.getSQLState(), e.getErrorCode(), Map.of(), e);
+        }
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        clientInfoChanged = true;
+        try {
+            delegate().setClientInfo(properties);
+        } catch (SQLClientInfoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new SQLClientInfoException(e.getMessage(), e.getSQLState(), e.getErrorCode(), Map.of(), e);
+        }
+    }
+
+    /**
+     * Closes the statements still open and returns the physical connection.
+     */
+    @Override
+    public void close() {
+        if (returned.compareAndSet(false, true)) {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // resetting the connection finds out whether it is still usable
+                }
+            }
+            release(false);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return returned.get();
+    }
+
+    /**
+     * Aborts the physical connection, which is then dropped from the
+     * pool rather than returned.
+     */
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        if (returned.compareAndSet(false, true)) {
+            statements.clear();
+            try {
+                physical.abort(executor);
+            } finally {
+                release(true);
+            }
+        }
+    }
+
+    /**
+     * Rolls back an open transaction and restores the settings this lease
+     * changed to those the connection was opened with. Returns false if
+     * the connection cannot be reused, among others because a setting
+     * changed that the driver did not report when it was opened.
+     */
+    final boolean reset(SessionState opened) {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (autoCommitChanged || !opened.autoCommit) {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                }
+                physical.setAutoCommit(opened.autoCommit);
+            }
+            if (readOnlyChanged) {
+                physical.setReadOnly(opened.readOnly);
+            }
+            if (isolationChanged) {
+                physical.setTransactionIsolation(opened.isolation);
+            }
+            if (catalogChanged) {
+                physical.setCatalog(opened.catalog);
+            }
+            if (schemaChanged) {
+                physical.setSchema(opened.schema);
+            }
+            if (holdabilityChanged) {
+                physical.setHoldability(opened.holdability);
+            }
+            if (typeMapChanged) {
+                if (opened.typeMap == null) {
+                    return false;
+                }
+                physical.setTypeMap(opened.typeMap);
+            }
+            if (networkTimeoutChanged) {
+                if (opened.networkTimeout == null) {
+                    return false;
+                }
+                physical.setNetworkTimeout(Runnable::run, opened.networkTimeout);
+            }
+            if (clientInfoChanged) {
+                if (opened.clientInfo == null) {
+                    return false;
+                }
+                physical.setClientInfo(opened.clientInfo);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private <S extends Statement> S track(S statement) {
+        statements.add(statement);
+        return statement;
+    }
+
+    private final class LeaseStatement extends DelegatingStatement {
+
+        private final Statement statement;
+
+        LeaseStatement(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        protected Statement delegate() {
+            return statement;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return PooledLease.this;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statements.remove(this);
+            statement.close();
+        }
+    }
+
+    private final class LeasePreparedStatement extends DelegatingPreparedStatement {
+
+        private final PreparedStatement statement;
+
+        LeasePreparedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        protected PreparedStatement delegate() {
+            return statement;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return PooledLease.this;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statements.remove(this);
+            statement.close();
+        }
+    }
+
+    private final class LeaseCallableStatement extends DelegatingCallableStatement {
+
+        private final CallableStatement statement;
+
+        LeaseCallableStatement(CallableStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        protected CallableStatement delegate() {
+            return statement;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return PooledLease.this;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statements.remove(this);
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.database.pool;
+
+import com.example.database.jdbc.DelegatingConnection;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Sends read-only work to replicas and everything else to the primary.
+ *
+ * <p>A connection from this source picks its database on first use rather
+ * than at checkout, because Spring's transaction managers mark a
+ * {@code @Transactional(readOnly = true)} transaction read-only only after
+ * they have fetched the connection. If by then the connection was set
+ * read-only, or Spring reports the current transaction as read-only, it is
+ * taken from a replica, otherwise from the primary. Auto-commit, read-only
+ * and isolation set before that are applied to the chosen connection;
+ * commit and rollback before it are no-ops. Setting a replica connection
+ * back to read-write outside a transaction, as the transaction managers
+ * do on cleanup, returns it so the next use picks again.
+ *
+ * <p>A background check runs {@code lagQuery} on every replica each
+ * {@code checkInterval}. The query returns the replica's lag in seconds in
+ * its first column, for example
+ * {@code SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())}
+ * on PostgreSQL; null or a failed query counts as unknown lag. Replicas
+ * lagging more than {@code maxLag}, not yet checked, or that could not be
+ * connected to take no reads until their next check, and reads fall back
+ * to the primary when no replica is left. A replica whose pool only timed
+ * out, being busy, stays in rotation; that one read goes elsewhere.
+ * Healthy replicas are used in turn.
+ */
+public final class ReadWriteRoutingDataSource implements DataSource, AutoCloseable {
+
+    private static final int LAG_QUERY_TIMEOUT_SECONDS = 5;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final ScheduledExecutorService checker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, String lagQuery,
+                                      Duration maxLag, Duration checkInterval) {
+        this.primary = primary;
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLag.toMillis();
+        this.checker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns a connection that goes to a replica or the primary once it
+     * is first used.
+     */
+    @Override
+    public Connection getConnection() {
+        return new RoutingConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("routed connections use the pools' credentials");
+    }
+
+    /**
+     * Returns the read-only connections served by replicas.
+     */
+    public long replicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * Returns the read-only connections that fell back to the primary.
+     */
+    public long primaryReads() {
+        return primaryReads.sum();
+    }
+
+    /**
+     * Returns the last measured lag of the replica at {@code index} in
+     * milliseconds, or -1 if unknown.
+     */
+    public long lagMillis(int index) {
+        return replicas.get(index).lagMillis;
+    }
+
+    /**
+     * Stops checking replica lag. The primary and replica sources are the
+     * caller's to close.
+     */
+    @Override
+    public void close() {
+        checker.shutdownNow();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(this) ? type.cast(this) : primary.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(this) || primary.isWrapperFor(type);
+    }
+
+    /**
+     * Takes a connection from the next healthy replica, marking replicas
+     * that cannot be connected to as unhealthy until their next check, or
+     * from the primary if none is left.
+     */
+    private Connection openRead() throws SQLException {
+        int count = replicas.size();
+        int start = count == 0 ? 0 : Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (replica.healthy) {
+                try {
+                    Connection connection = replica.source.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    if (unreachable(e)) {
+                        replica.healthy = false;
+                    }
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Tells a replica that cannot be connected to from one whose pool is
+     * only busy, which reports a transient failure such as an acquire
+     * timeout.
+     */
+    private static boolean unreachable(SQLException e) {
+        if (e instanceof SQLTransientException) {
+            return false;
+        }
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException || (state != null && state.startsWith("08"));
+    }
+
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            long lag = measureLag(replica.source);
+            replica.lagMillis = lag;
+            replica.healthy = lag >= 0 && lag <= maxLagMillis;
+        }
+    }
+
+    private long measureLag(DataSource source) {
+        try (Connection connection = source.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(LAG_QUERY_TIMEOUT_SECONDS);
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) {
+                    return -1;
+                }
+                double seconds = rs.getDouble(1);
+                return rs.wasNull() ? -1 : Math.max(0, Math.round(seconds * 1000));
+            }
+        } catch (SQLException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static final class Replica {
+
+        final DataSource source;
+        volatile boolean healthy;
+        volatile long lagMillis = -1;
+
+        Replica(DataSource source) {
+            this.source = source;
+        }
+    }
+
+    /**
+     * A connection that is not taken from any pool until it is needed, and
+     * then from the one its read-only setting calls for.
+     */
+    private final class RoutingConnection extends DelegatingConnection {
+
+        private Connection target;
+        private boolean onReplica;
+        private boolean closed;
+        private boolean readOnly;
+        private boolean autoCommit = true;
+        private boolean autoCommitSet;
+        private Integer isolation;
+
+        @Override
+        protected Connection delegate() throws SQLException {
+            if (closed) {
+                throw new SQLNonTransientConnectionException("connection is closed");
+            }
+            if (target == null) {
+                onReplica = readOnly || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+                Connection connection = onReplica ? openRead() : primary.getConnection();
+                try {
+                    if (readOnly) {
+                        connection.setReadOnly(true);
+                    }
+                    if (autoCommitSet) {
+                        connection.setAutoCommit(autoCommit);
+                    }
+                    if (isolation != null) {
+                        connection.setTransactionIsolation(isolation);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    connection.close();
+                    throw e;
+                }
+                target = connection;
+            }
+            return target;
+        }
+
+        @Override
+        public void setReadOnly(boolean readOnly) throws SQLException {
+            if (target == null) {
+                this.readOnly = readOnly;
+            } else if (!readOnly && onReplica && target.getAutoCommit()) {
+                target.setReadOnly(false);
+                target.close();
+                target = null;
+                this.readOnly = false;
+                this.autoCommitSet = false;
+            } else {
+                target.setReadOnly(readOnly);
+            }
+        }
+
+        @Override
+        public boolean isReadOnly() throws SQLException {
+            return target == null ? readOnly : target.isReadOnly();
+        }
+
+        @Override
+        public void setAutoCommit(boolean autoCommit) throws SQLException {
+            if (target == null) {
+                this.autoCommit = autoCommit;
+                this.autoCommitSet = true;
+            } else {
+                target.setAutoCommit(autoCommit);
+            }
+        }
+
+        @Override
+        public boolean getAutoCommit() throws SQLException {
+            return target == null ? autoCommit : target.getAutoCommit();
+        }
+
+        @Override
+        public void setTransactionIsolation(int level) throws SQLException {
+            if (target == null) {
+                this.isolation = level;
+            } else {
+                target.setTransactionIsolation(level);
+            }
+        }
+
+        @Override
+        public int getTransactionIsolation() throws SQLException {
+            return target == null && isolation != null ? isolation : delegate().getTransactionIsolation();
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            if (target != null) {
+                target.commit();
+            }
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            if (target != null) {
+                target.rollback();
+            }
+        }
+
+        @Override
+        public SQLWarning getWarnings() throws SQLException {
+            return target == null ? null : target.getWarnings();
+        }
+
+        @Override
+        public void clearWarnings() throws SQLException {
+            if (target != null) {
+                target.clearWarnings();
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (!closed) {
+                closed = true;
+                if (target != null) {
+                    target.close();
+                }
+            }
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void abort(Executor executor) throws SQLException {
+            if (!closed) {
+                closed = true;
+                if (target != null) {
+                    target.abort(executor);
+                }
+            }
+        }
+    }
+}
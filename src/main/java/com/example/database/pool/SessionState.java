@@ -0,0 +1,70 @@
+package com.example.database.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The session settings of a physical connection when it was opened, which
+ * a pool restores before handing the connection to the next caller.
+ *
+ * <p>The type map, network timeout and client info are optional to
+ * drivers; one the driver could not report is null, and a connection on
+ * which a caller changed it cannot be reset.
+ */
+final class SessionState {
+
+    final boolean autoCommit;
+    final boolean readOnly;
+    final int isolation;
+    final String catalog;
+    final String schema;
+    final int holdability;
+    final Map<String, Class<?>> typeMap;
+    final Integer networkTimeout;
+    final Properties clientInfo;
+
+    SessionState(Connection connection) throws SQLException {
+        this.autoCommit = connection.getAutoCommit();
+        this.readOnly = connection.isReadOnly();
+        this.isolation = connection.getTransactionIsolation();
+        this.catalog = connection.getCatalog();
+        this.schema = connection.getSchema();
+        this.holdability = connection.getHoldability();
+        this.typeMap = typeMap(connection);
+        this.networkTimeout = networkTimeout(connection);
+        this.clientInfo = clientInfo(connection);
+    }
+
+    private static Map<String, Class<?>> typeMap(Connection connection) {
+        try {
+            Map<String, Class<?>> map = connection.getTypeMap();
+            return map == null ? new HashMap<>() : new HashMap<>(map);
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static Integer networkTimeout(Connection connection) {
+        try {
+            return connection.getNetworkTimeout();
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static Properties clientInfo(Connection connection) {
+        try {
+            Properties properties = new Properties();
+            Properties current = connection.getClientInfo();
+            if (current != null) {
+                properties.putAll(current);
+            }
+            return properties;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,608 @@
+package com.example.database.pool;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Routes each checkout to the database of the current tenant, with every
+ * tenant's connections drawn from one shared budget.
+ *
+ * <p>Each tenant has its own pool of connections to its own source, but
+ * the sum of connections open across all tenants never exceeds
+ * {@code budget}. While the budget lasts, a tenant opens what it needs.
+ * Once it is spent, callers queue per tenant, and every connection that
+ * comes free goes to the waiting tenant holding the fewest connections
+ * for its weight, so a tenant of weight 2 settles at twice the connections
+ * of a tenant of weight 1 and a busy tenant cannot starve a quiet one. To
+ * get there, a tenant returning a connection while another tenant waits
+ * closes the connection instead of keeping it, unless it has waiters of
+ * its own and the other tenant is not further below its weighted share,
+ * and idle connections of tenants nobody is waiting for are closed to
+ * make room. Idle connections are closed after {@code idleTimeout}, so a
+ * tenant that goes quiet holds nothing.
+ *
+ * <p>The tenant comes from {@code tenantResolver}, typically a thread local
+ * set per request, or is named with {@link #getConnection(String)}. Waiting
+ * parks on a {@link ReentrantLock} condition and the lock is never held
+ * while a connection is opened, validated or closed. Connections are reset
+ * on return as in {@link FairPoolingDataSource}.
+ */
+public final class TenantRoutingDataSource implements DataSource, PoolMetrics, AutoCloseable {
+
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final int budget;
+    private final Supplier<String> tenantResolver;
+    private final long acquireTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+    private final ScheduledExecutorService reaper;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private int open;
+    private int idle;
+    private int waiting;
+    private volatile boolean closed;
+    private volatile PrintWriter logWriter;
+    private volatile int loginTimeout;
+
+    public TenantRoutingDataSource(int budget, Supplier<String> tenantResolver) {
+        this(budget, tenantResolver, Duration.ofSeconds(30), Duration.ofMinutes(5));
+    }
+
+    public TenantRoutingDataSource(int budget, Supplier<String> tenantResolver, Duration acquireTimeout,
+                                   Duration idleTimeout) {
+        if (budget < 1) {
+            throw new IllegalArgumentException("budget must be at least 1: " + budget);
+        }
+        this.budget = budget;
+        this.tenantResolver = tenantResolver;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.reaper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "tenant-pool-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(100), idleTimeoutNanos / 2);
+        reaper.scheduleWithFixedDelay(this::closeExpired, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds a tenant whose connections come from {@code source}. Under
+     * contention its share of the budget is proportional to {@code weight}.
+     */
+    public void addTenant(String tenant, DataSource source, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be at least 1: " + weight);
+        }
+        lock.lock();
+        try {
+            if (tenants.putIfAbsent(tenant, new Tenant(source, weight, lock.newCondition())) != null) {
+                throw new IllegalArgumentException("tenant already added: " + tenant);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int budget() {
+        return budget;
+    }
+
+    /**
+     * Returns the connections the tenant holds, in use or idle.
+     */
+    public int held(String tenant) {
+        lock.lock();
+        try {
+            Tenant t = tenants.get(tenant);
+            return t == null ? 0 : t.held;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks out a connection for the tenant named by the resolver.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(tenantResolver.get());
+    }
+
+    /**
+     * Checks out a connection for {@code tenant}, waiting for its turn for
+     * up to the acquire timeout.
+     *
+     * @throws SQLTransientConnectionException if none became available in time
+     */
+    public Connection getConnection(String tenant) throws SQLException {
+        Tenant t;
+        Entry entry;
+        List<Entry> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            ensureOpen();
+            t = tenants.get(tenant);
+            if (t == null) {
+                throw new SQLNonTransientConnectionException("unknown tenant " + tenant);
+            }
+            entry = acquire(t, evicted);
+        } finally {
+            lock.unlock();
+            closeAll(evicted);
+        }
+        try {
+            if (entry != null && (System.nanoTime() - entry.lastUsed < VALIDATION_BYPASS_NANOS
+                    || isAlive(entry.connection))) {
+                return new Lease(t, entry);
+            }
+            if (entry != null) {
+                close(entry);
+            }
+            return new Lease(t, open(t));
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                free(t, 1);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("pooled connections all use the tenant's credentials");
+    }
+
+    /**
+     * Closes the idle connections and refuses new checkouts. Connections
+     * still in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+        List<Entry> drained = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            for (Tenant t : tenants.values()) {
+                drained.addAll(t.idle);
+                free(t, t.idle.size());
+                idle -= t.idle.size();
+                t.idle.clear();
+                t.turn.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeAll(drained);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int active() {
+        lock.lock();
+        try {
+            return open - idle;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int idle() {
+        lock.lock();
+        try {
+            return idle;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long created() {
+        return created.sum();
+    }
+
+    @Override
+    public long destroyed() {
+        return destroyed.sum();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("no single parent logger across tenants");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        throw new SQLException(getClass().getName() + " does not wrap " + type.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) {
+        return type.isInstance(this);
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLNonTransientConnectionException("pool is closed");
+        }
+    }
+
+    /**
+     * Takes one of the tenant's idle connections, or reserves room in the
+     * budget for a new one and returns null, waiting for a turn if there
+     * is neither. Connections closed to make room are added to
+     * {@code evicted}. Called with the lock held.
+     */
+    private Entry acquire(Tenant t, List<Entry> evicted) throws SQLException {
+        if (!t.idle.isEmpty()) {
+            return takeIdle(t);
+        }
+        if (waiting == 0) {
+            if (open < budget) {
+                t.held++;
+                open++;
+                return null;
+            }
+            Tenant victim = mostIdleShare(t);
+            if (victim != null) {
+                evicted.add(victim.idle.pollLast());
+                idle--;
+                victim.held--;
+                t.held++;
+                return null;
+            }
+        }
+        long deadline = System.nanoTime() + acquireTimeoutNanos;
+        t.waiting++;
+        waiting++;
+        if (t.waiting == 1) {
+            t.waitingSince = System.nanoTime();
+        }
+        try {
+            makeRoom(evicted);
+            while (true) {
+                ensureOpen();
+                if (t.grants > 0) {
+                    t.grants--;
+                    return null;
+                }
+                if (!t.idle.isEmpty()) {
+                    return takeIdle(t);
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SQLTransientConnectionException("no connection available within "
+                            + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + " ms, "
+                            + waiting + " threads waiting across tenants");
+                }
+                try {
+                    t.turn.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLTransientConnectionException("interrupted while waiting for a connection", e);
+                }
+            }
+        } finally {
+            t.waiting--;
+            waiting--;
+            t.waitingSince = System.nanoTime();
+            if (t.grants > t.waiting) {
+                int unused = t.grants - t.waiting;
+                t.grants = t.waiting;
+                free(t, unused);
+            }
+        }
+    }
+
+    private Entry takeIdle(Tenant t) {
+        idle--;
+        return t.idle.pollFirst();
+    }
+
+    /**
+     * Closes idle connections of tenants nobody waits for, oldest first and
+     * from the tenant furthest over its share, until every waiter has a
+     * turn or none are left. Called with the lock held.
+     */
+    private void makeRoom(List<Entry> evicted) {
+        int missing = open - budget;
+        for (Tenant t : tenants.values()) {
+            missing += t.waiting - t.grants;
+        }
+        while (missing > 0) {
+            Tenant victim = mostIdleShare(null);
+            if (victim == null) {
+                break;
+            }
+            evicted.add(victim.idle.pollLast());
+            idle--;
+            free(victim, 1);
+            missing--;
+        }
+        grant();
+    }
+
+    /**
+     * Returns the tenant with idle connections and no waiters that holds
+     * the most for its weight, other than {@code except}.
+     */
+    private Tenant mostIdleShare(Tenant except) {
+        Tenant most = null;
+        for (Tenant t : tenants.values()) {
+            if (t != except && t.waiting == 0 && !t.idle.isEmpty()
+                    && (most == null || t.compareShare(most) > 0)) {
+                most = t;
+            }
+        }
+        return most;
+    }
+
+    /**
+     * Returns the waiting tenant without a turn that holds the fewest
+     * connections for its weight, the one waiting longest on a tie.
+     */
+    private Tenant neediest() {
+        Tenant needy = null;
+        for (Tenant t : tenants.values()) {
+            if (t.waiting > t.grants) {
+                int order = needy == null ? -1 : t.compareShare(needy);
+                if (order < 0 || order == 0 && t.waitingSince - needy.waitingSince < 0) {
+                    needy = t;
+                }
+            }
+        }
+        return needy;
+    }
+
+    /**
+     * Gives room in the budget to waiting tenants, neediest first. Called
+     * with the lock held.
+     */
+    private void grant() {
+        while (open < budget) {
+            Tenant needy = neediest();
+            if (needy == null) {
+                return;
+            }
+            needy.held++;
+            open++;
+            needy.grants++;
+            needy.turn.signal();
+        }
+    }
+
+    /**
+     * Takes {@code count} connections off the tenant's account and passes
+     * the room on. Called with the lock held.
+     */
+    private void free(Tenant t, int count) {
+        t.held -= count;
+        open -= count;
+        grant();
+    }
+
+    private Entry open(Tenant t) throws SQLException {
+        Connection connection = t.source.getConnection();
+        try {
+            Entry entry = new Entry(connection);
+            created.increment();
+            return entry;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.close();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Keeps a returned connection for its tenant if no other tenant is
+     * waiting, or if the tenant has waiters of its own and no tenant with a
+     * smaller share is waiting. Otherwise, and when the connection cannot
+     * be reset or the pool has closed, closes it and passes its room in the
+     * budget to the neediest waiting tenant: an idle connection kept for a
+     * tenant without waiters would hold room another tenant is waiting for,
+     * and only a new waiter would make room by closing it.
+     */
+    private void release(Tenant t, Entry entry, Lease lease, boolean broken) {
+        boolean reusable = !broken && lease.reset(entry.state);
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                Tenant needy = neediest();
+                if (needy == null || needy == t || t.waiting > 0 && !t.shouldYieldTo(needy)) {
+                    entry.lastUsed = System.nanoTime();
+                    t.idle.addFirst(entry);
+                    idle++;
+                    if (t.waiting > 0) {
+                        t.turn.signal();
+                    }
+                    return;
+                }
+            }
+            free(t, 1);
+        } finally {
+            lock.unlock();
+        }
+        close(entry);
+    }
+
+    /**
+     * Closes connections idle for longer than the idle timeout, down to
+     * none for a tenant that has gone quiet.
+     */
+    private void closeExpired() {
+        List<Entry> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (Tenant t : tenants.values()) {
+                while (!t.idle.isEmpty() && now - t.idle.peekLast().lastUsed > idleTimeoutNanos) {
+                    expired.add(t.idle.pollLast());
+                    idle--;
+                    free(t, 1);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeAll(expired);
+    }
+
+    private static boolean isAlive(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            close(entry);
+        }
+    }
+
+    private void close(Entry entry) {
+        destroyed.increment();
+        try {
+            entry.connection.close();
+        } catch (SQLException e) {
+            // the connection is gone either way
+        }
+    }
+
+    /**
+     * A tenant's source, weight and connections. Guarded by the lock.
+     */
+    private static final class Tenant {
+
+        final DataSource source;
+        final int weight;
+        final Condition turn;
+        final ArrayDeque<Entry> idle = new ArrayDeque<>();
+        int held;
+        int waiting;
+        int grants;
+        long waitingSince;
+
+        Tenant(DataSource source, int weight, Condition turn) {
+            this.source = source;
+            this.weight = weight;
+            this.turn = turn;
+        }
+
+        /**
+         * Compares connections held per unit of weight.
+         */
+        int compareShare(Tenant other) {
+            return Long.compare((long) held * other.weight, (long) other.held * weight);
+        }
+
+        /**
+         * Tells whether handing one connection to {@code needy} leaves this
+         * tenant with at least its share, so connections do not bounce
+         * between two tenants whose shares differ by less than one.
+         */
+        boolean shouldYieldTo(Tenant needy) {
+            return (long) (held - 1) * needy.weight >= (long) (needy.held + 1) * weight;
+        }
+    }
+
+    private static final class Entry {
+
+        final Connection connection;
+        final SessionState state;
+        long lastUsed;
+
+        Entry(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.state = new SessionState(connection);
+            this.lastUsed = System.nanoTime();
+        }
+    }
+
+    private final class Lease extends PooledLease {
+
+        private final Tenant tenant;
+        private final Entry entry;
+
+        Lease(Tenant tenant, Entry entry) {
+            super(entry.connection);
+            this.tenant = tenant;
+            this.entry = entry;
+        }
+
+        @Override
+        protected void release(boolean broken) {
+            TenantRoutingDataSource.this.release(tenant, entry, this, broken);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.database.pool;
+
+import org.apache.tomcat.jdbc.pool.DataSourceProxy;
+
+/**
+ * Tomcat JDBC counts closed physical connections as released. Reading any
+ * statistic starts the pool, so attaching metrics opens its initial
+ * connections and they are not counted as created during an interval.
+ */
+final class TomcatPoolMetrics implements PoolMetrics {
+
+    private final DataSourceProxy pool;
+
+    TomcatPoolMetrics(DataSourceProxy pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public int active() {
+        return pool.getNumActive();
+    }
+
+    @Override
+    public int idle() {
+        return pool.getNumIdle();
+    }
+
+    @Override
+    public int waiting() {
+        return pool.getWaitCount();
+    }
+
+    @Override
+    public long created() {
+        return pool.getCreatedCount();
+    }
+
+    @Override
+    public long destroyed() {
+        return pool.getReleasedCount();
+    }
+}
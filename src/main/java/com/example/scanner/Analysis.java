@@ -0,0 +1,14 @@
+package com.example.scanner;
+
+/**
+ * A derived view of a {@link SourceFile} that several rules share, such as an
+ * index of keyword hits. {@link SourceFile#analysis(Analysis)} computes each
+ * analysis at most once per file and caches the result, so the instance
+ * itself is the cache key and should be a constant.
+ *
+ * @param <T> the result type; results must be immutable once computed
+ */
+public interface Analysis<T> {
+
+    T compute(SourceFile source);
+}
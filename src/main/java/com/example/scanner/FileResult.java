@@ -0,0 +1,54 @@
+package com.example.scanner;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of scanning one file: its findings, or the error that
+ * prevented it from being read.
+ */
+public final class FileResult {
+
+    private final String path;
+    private final long bytes;
+    private final List<Finding> findings;
+    private final String error;
+
+    private FileResult(String path, long bytes, List<Finding> findings, String error) {
+        this.path = path;
+        this.bytes = bytes;
+        this.findings = findings;
+        this.error = error;
+    }
+
+    public static FileResult of(String path, long bytes, List<Finding> findings) {
+        return new FileResult(path, bytes, Collections.unmodifiableList(findings), null);
+    }
+
+    public static FileResult failed(String path, String error) {
+        return new FileResult(path, 0, Collections.emptyList(), error);
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public List<Finding> findings() {
+        return findings;
+    }
+
+    /**
+     * Returns the read error, or {@code null} if the file was scanned.
+     */
+    public String error() {
+        return error;
+    }
+
+    public boolean failed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.scanner;
+
+import java.util.Objects;
+
+/**
+ * A single rule match: which rule fired, where, and why.
+ */
+public final class Finding {
+
+    private final String ruleId;
+    private final String ruleName;
+    private final String path;
+    private final int line;
+    private final int column;
+    private final String message;
+
+    public Finding(String ruleId, String ruleName, String path, int line, int column, String message) {
+        this.ruleId = ruleId;
+        this.ruleName = ruleName;
+        this.path = path;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    public String ruleId() {
+        return ruleId;
+    }
+
+    public String ruleName() {
+        return ruleName;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public int line() {
+        return line;
+    }
+
+    public int column() {
+        return column;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Finding)) {
+            return false;
+        }
+        Finding other = (Finding) o;
+        return line == other.line
+                && column == other.column
+                && ruleId.equals(other.ruleId)
+                && path.equals(other.path)
+                && message.equals(other.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ruleId, path, line, column, message);
+    }
+
+    @Override
+    public String toString() {
+        return path + ":" + line + ":" + column + ": " + ruleId + " " + ruleName + ": " + message;
+    }
+}
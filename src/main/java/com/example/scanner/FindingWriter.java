@@ -0,0 +1,35 @@
+package com.example.scanner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives scan results one file at a time, in submission order, and
+ * writes them out without keeping earlier files around.
+ *
+ * <p>{@link #start(List)} is called once before the first file and
+ * {@link #close()} completes the document. A scan that stops early calls
+ * {@link #abort(Throwable)} before closing, possibly without having
+ * started. Calls come from a single thread.
+ */
+public interface FindingWriter extends Closeable {
+
+    /**
+     * Begins the output for a scan with the given rule set.
+     */
+    void start(List<Rule> rules) throws IOException;
+
+    /**
+     * Appends the findings of one file, or its read error.
+     */
+    void write(FileResult file) throws IOException;
+
+    /**
+     * Notes that the scan failed with {@code cause} before every file was
+     * written. Formats that report the outcome of the run report it when
+     * closed; the others ignore it.
+     */
+    default void abort(Throwable cause) throws IOException {
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.scanner;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for the blocking stages of a {@link ScanPipeline}.
+ *
+ * <p>This is the Java 11 version: cached daemon platform threads, so the
+ * default reader count stays modest. The Java 21 build replaces this class
+ * in the multi-release JAR with one that uses virtual threads; see
+ * {@code src/main/java21}.
+ */
+final class IoThreads {
+
+    private IoThreads() {
+    }
+
+    /**
+     * How many files are read concurrently unless configured otherwise. A
+     * method rather than a constant, which javac would copy into callers
+     * and so keep the other release's value.
+     */
+    static int defaultReaders() {
+        return 16;
+    }
+
+    static ExecutorService newExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "scan-io-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.scanner;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent per-file scan results for incremental re-scans.
+ *
+ * <p>Entries are keyed by path and validated by the SHA-256 of the file
+ * content; size and modification time only serve as a shortcut that avoids
+ * reading files that were not touched. The whole cache belongs to one
+ * rule-set version and is discarded when opened for another, or when the
+ * file cannot be read or fails to parse. Every count in the file is checked
+ * against the bytes left, so a truncated or corrupted cache cannot make the
+ * loader allocate more than the file holds.
+ *
+ * <p>Not thread-safe; the engine only reads it during the parallel phases
+ * and applies updates afterwards on the calling thread.
+ */
+public final class ResultCache {
+
+    private static final int MAGIC = 0x53514A43;
+    private static final int FORMAT = 2;
+
+    private final Path file;
+    private final String ruleSetVersion;
+    private final Map<String, Entry> entries;
+
+    private ResultCache(Path file, String ruleSetVersion, Map<String, Entry> entries) {
+        this.file = file;
+        this.ruleSetVersion = ruleSetVersion;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the cache stored at {@code file}, or starts an empty one if the
+     * file is missing, corrupt or was written for another rule-set version.
+     */
+    public static ResultCache open(Path file, String ruleSetVersion) {
+        Map<String, Entry> entries = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() == MAGIC && in.readInt() == FORMAT && in.readUTF().equals(ruleSetVersion)) {
+                int count = readCount(in, Entry.MIN_BYTES);
+                for (int i = 0; i < count; i++) {
+                    Entry entry = Entry.read(in);
+                    entries.put(entry.path, entry);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+        }
+        return new ResultCache(file, ruleSetVersion, entries);
+    }
+
+    /**
+     * Writes the cache to a temporary file next to the target and moves it
+     * into place, so an interrupted save leaves the previous cache intact.
+     */
+    public void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeUTF(ruleSetVersion);
+                out.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    entry.write(out);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    Entry get(String path) {
+        return entries.get(path);
+    }
+
+    void put(Entry entry) {
+        entries.put(entry.path, entry);
+    }
+
+    Entry remove(String path) {
+        return entries.remove(path);
+    }
+
+    Set<String> paths() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(entries.keySet()));
+    }
+
+    /**
+     * Reads the number of items that follow, each taking at least
+     * {@code minBytes}, and checks that the rest of the input can hold them.
+     */
+    private static int readCount(DataInputStream in, int minBytes) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / minBytes) {
+            throw new StreamCorruptedException("count " + count + " exceeds the " + in.available() + " bytes left");
+        }
+        return count;
+    }
+
+    static String hash(ByteBuffer content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(content);
+        byte[] sum = digest.digest();
+        StringBuilder hex = new StringBuilder(sum.length * 2);
+        for (byte b : sum) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The cached outcome of scanning one file.
+     */
+    static final class Entry {
+
+        /**
+         * The smallest an entry can be written: empty path and hash and no
+         * findings.
+         */
+        static final int MIN_BYTES = 2 + 8 + 8 + 2 + 4;
+
+        private static final int MIN_FINDING_BYTES = 2 + 2 + 4 + 4 + 2;
+
+        final String path;
+        final long size;
+        final long modified;
+        final String hash;
+        final List<Finding> findings;
+
+        Entry(String path, long size, long modified, String hash, List<Finding> findings) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.findings = Collections.unmodifiableList(new ArrayList<>(findings));
+        }
+
+        boolean sameStat(long size, long modified) {
+            return this.size == size && this.modified == modified;
+        }
+
+        Entry withStat(long size, long modified) {
+            return new Entry(path, size, modified, hash, findings);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeUTF(hash);
+            out.writeInt(findings.size());
+            for (Finding finding : findings) {
+                out.writeUTF(finding.ruleId());
+                out.writeUTF(finding.ruleName());
+                out.writeInt(finding.line());
+                out.writeInt(finding.column());
+                out.writeUTF(finding.message());
+            }
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            String path = in.readUTF();
+            long size = in.readLong();
+            long modified = in.readLong();
+            String hash = in.readUTF();
+            int count = readCount(in, MIN_FINDING_BYTES);
+            List<Finding> findings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String ruleId = in.readUTF();
+                String ruleName = in.readUTF();
+                int line = in.readInt();
+                int column = in.readInt();
+                findings.add(new Finding(ruleId, ruleName, path, line, column, in.readUTF()));
+            }
+            return new Entry(path, size, modified, hash, findings);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.scanner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A detection rule evaluated against a parsed source file.
+ *
+ * <p>Implementations must be stateless: the engine shares one instance
+ * across all worker threads.
+ */
+public interface Rule {
+
+    /**
+     * Returns the rule identifier, e.g. {@code sql-java-006}.
+     */
+    String id();
+
+    /**
+     * Returns the rule name, e.g. {@code HikariCpUsage}.
+     */
+    String name();
+
+    /**
+     * Appends every match in {@code source} to {@code findings}.
+     */
+    void evaluate(SourceFile source, List<Finding> findings);
+
+    /**
+     * Returns the symbols of which a file must contain at least one for the
+     * rule to match it, or an empty set if the rule must always run. A
+     * symbol is an identifier or two identifiers joined by a dot; see
+     * {@link SymbolFilter}.
+     */
+    default Set<String> requiredSymbols() {
+        return Collections.emptySet();
+    }
+}
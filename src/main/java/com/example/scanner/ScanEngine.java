@@ -0,0 +1,272 @@
+package com.example.scanner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Evaluates a rule set over many source files in parallel.
+ *
+ * <p>Each file is read and parsed exactly once, then every rule runs over the
+ * same {@link SourceFile}. Files are read through {@link SourceBytes}, and
+ * a rule is skipped when the file's {@link SymbolFilter} rules out all of
+ * its {@linkplain Rule#requiredSymbols() required symbols}. Files are distributed over a {@link ForkJoinPool}
+ * by recursive halving of the file list, so idle workers steal the remaining
+ * halves from busy ones and uneven file sizes balance out without a central
+ * queue.
+ */
+public final class ScanEngine implements AutoCloseable {
+
+    private final List<Rule> rules;
+    private final long[][] requiredSymbols;
+    private final ForkJoinPool pool;
+
+    public ScanEngine(List<Rule> rules) {
+        this(rules, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScanEngine(List<Rule> rules, int parallelism) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        this.requiredSymbols = new long[this.rules.size()][];
+        for (int r = 0; r < requiredSymbols.length; r++) {
+            requiredSymbols[r] = this.rules.get(r).requiredSymbols().stream().mapToLong(SymbolFilter::hash).toArray();
+        }
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public List<Rule> rules() {
+        return rules;
+    }
+
+    /**
+     * Returns every {@code .java} file under {@code root}, sorted by path so
+     * that report order is stable between runs.
+     */
+    public static List<Path> collectSources(Path root) throws IOException {
+        if (Files.isRegularFile(root)) {
+            return Collections.singletonList(root);
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(p -> p.toString().endsWith(".java"))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public ScanReport scan(List<Path> files) {
+        FileResult[] results = new FileResult[files.size()];
+        long start = System.nanoTime();
+        forEach(files.size(), i -> results[i] = scanFile(files.get(i)));
+        long elapsed = System.nanoTime() - start;
+        return new ScanReport(Arrays.asList(results), elapsed, pool.getParallelism());
+    }
+
+    /**
+     * Scans {@code files} and streams the results to {@code writer} in
+     * submission order, holding at most a few results per thread in memory.
+     * The caller closes the writer.
+     */
+    public ScanReport scan(List<Path> files, FindingWriter writer) throws IOException {
+        return new StreamingScan(this, pool, files, writer).run();
+    }
+
+    /**
+     * Walks {@code roots} and scans every {@code .java} file below them
+     * through a {@link ScanPipeline}, so directory listing and reads overlap
+     * with rule evaluation. Results stream to {@code writer} in walk order.
+     */
+    public ScanReport scanTree(List<Path> roots, FindingWriter writer, int readers) throws IOException {
+        return new ScanPipeline(this, pool, readers).run(roots, writer);
+    }
+
+    /**
+     * Scans {@code files}, reusing cached results for files whose content is
+     * unchanged, and records the new results in {@code cache}.
+     *
+     * <p>A file is unchanged when its size and modification time match the
+     * cache entry, or failing that when its content hash does. Every rule
+     * reads only the file it evaluates, so a file's findings depend on its
+     * content alone and no other file is re-scanned; a rule that took facts
+     * from other files would need those files to invalidate its results.
+     * Entries of files that no longer exist are dropped. The caller saves
+     * the cache.
+     */
+    public ScanReport scan(List<Path> files, ResultCache cache) {
+        int count = files.size();
+        FileResult[] results = new FileResult[count];
+        ResultCache.Entry[] entries = new ResultCache.Entry[count];
+        boolean[] reused = new boolean[count];
+        long start = System.nanoTime();
+
+        forEach(count, i -> {
+            Path file = files.get(i);
+            String path = file.toString();
+            ResultCache.Entry cached = cache.get(path);
+            try {
+                long size = Files.size(file);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (cached != null && cached.sameStat(size, modified)) {
+                    entries[i] = cached;
+                } else {
+                    SourceBytes bytes = SourceBytes.read(file);
+                    String hash = ResultCache.hash(bytes.buffer());
+                    if (cached != null && cached.hash.equals(hash)) {
+                        entries[i] = cached.withStat(size, modified);
+                    } else {
+                        entries[i] = new ResultCache.Entry(path, bytes.size(), modified, hash, evaluate(path, bytes));
+                        results[i] = FileResult.of(path, bytes.size(), entries[i].findings);
+                        return;
+                    }
+                }
+                reused[i] = true;
+                results[i] = FileResult.of(path, entries[i].size, entries[i].findings);
+            } catch (IOException e) {
+                results[i] = FileResult.failed(path, e.toString());
+            }
+        });
+
+        Set<String> scanned = new HashSet<>();
+        int reusedCount = 0;
+        for (int i = 0; i < count; i++) {
+            scanned.add(files.get(i).toString());
+            if (entries[i] != null) {
+                cache.put(entries[i]);
+            } else {
+                cache.remove(files.get(i).toString());
+            }
+            reusedCount += reused[i] ? 1 : 0;
+        }
+        for (String path : cache.paths()) {
+            if (!scanned.contains(path) && Files.notExists(Paths.get(path))) {
+                cache.remove(path);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new ScanReport(Arrays.asList(results), elapsed, pool.getParallelism(), reusedCount);
+    }
+
+    /**
+     * Reads, parses and evaluates a single file on the calling thread.
+     */
+    public FileResult scanFile(Path file) {
+        String path = file.toString();
+        try {
+            SourceBytes bytes = SourceBytes.read(file);
+            return FileResult.of(path, bytes.size(), evaluate(path, bytes));
+        } catch (IOException e) {
+            return FileResult.failed(path, e.toString());
+        }
+    }
+
+    /**
+     * Parses and evaluates a file that has already been read.
+     */
+    FileResult scan(String path, SourceBytes bytes) {
+        return FileResult.of(path, bytes.size(), evaluate(path, bytes));
+    }
+
+    private List<Finding> evaluate(String path, SourceBytes bytes) {
+        List<Rule> applicable = applicableRules(bytes.symbols());
+        if (applicable.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return evaluate(SourceFile.parse(path, bytes.decode()), applicable);
+    }
+
+    /**
+     * Returns the rules that may match a file with the given symbols, in
+     * rule order.
+     */
+    public List<Rule> applicableRules(SymbolFilter symbols) {
+        List<Rule> applicable = new ArrayList<>(rules.size());
+        for (int r = 0; r < rules.size(); r++) {
+            if (mayMatch(requiredSymbols[r], symbols)) {
+                applicable.add(rules.get(r));
+            }
+        }
+        return applicable;
+    }
+
+    private static boolean mayMatch(long[] required, SymbolFilter symbols) {
+        if (required.length == 0) {
+            return true;
+        }
+        for (long hash : required) {
+            if (symbols.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs every rule over an already parsed file.
+     */
+    public List<Finding> evaluate(SourceFile source) {
+        return evaluate(source, rules);
+    }
+
+    private static List<Finding> evaluate(SourceFile source, List<Rule> rules) {
+        List<Finding> findings = new ArrayList<>();
+        for (Rule rule : rules) {
+            rule.evaluate(source, findings);
+        }
+        return findings;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Runs {@code action} for every index in {@code [0, count)} on the pool.
+     */
+    private void forEach(int count, IntConsumer action) {
+        if (count > 0) {
+            pool.invoke(new RangeTask(action, 0, count));
+        }
+    }
+
+    /**
+     * Halves an index range until single indices remain, so idle workers
+     * steal the other halves.
+     */
+    private static final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+
+        RangeTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(action, from, mid), new RangeTask(action, mid, to));
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.scanner;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A scan split into stages connected by bounded queues: one thread walks
+ * the directories, {@code readers} threads read files, the engine's pool
+ * parses and evaluates them, and the calling thread writes the results.
+ *
+ * <p>The walk and read stages block on the file system, so they run on
+ * {@link IoThreads}, which are virtual threads on Java 21 and cached
+ * platform threads before. Parsing and evaluation stay on the engine's pool
+ * sized to the cores. On high-latency file systems many reads are in flight
+ * while the cores evaluate earlier files.
+ *
+ * <p>Files are numbered in walk order: depth first, each directory's
+ * entries sorted by name. The writer receives them in that order through a
+ * reorder buffer, and as in {@link StreamingScan} a semaphore caps the files
+ * walked but not yet written, one per reader plus a few per core, which
+ * bounds every queue, the buffer and the file contents held in memory.
+ * An exception or error in any stage other than a failed read aborts the
+ * scan with it.
+ */
+final class ScanPipeline {
+
+    private static final int WINDOW_PER_THREAD = 8;
+
+    private static final Item END = new Item(-1, null);
+
+    private static final Item FAILED = new Item(-1, null);
+
+    private final ScanEngine engine;
+    private final ForkJoinPool pool;
+    private final int readers;
+    private final int window;
+    private final Semaphore permits;
+    private final BlockingQueue<Item> walked;
+    private final BlockingQueue<Item> loaded;
+    private final BlockingQueue<Item> evaluated;
+    private final AtomicInteger activeReaders;
+    private volatile int total = -1;
+    private volatile IOException walkFailure;
+    private volatile Throwable failure;
+
+    ScanPipeline(ScanEngine engine, ForkJoinPool pool, int readers) {
+        this.engine = engine;
+        this.pool = pool;
+        this.readers = readers;
+        this.window = readers + WINDOW_PER_THREAD * pool.getParallelism();
+        this.permits = new Semaphore(window);
+        this.walked = new ArrayBlockingQueue<>(window);
+        this.loaded = new ArrayBlockingQueue<>(window);
+        this.evaluated = new ArrayBlockingQueue<>(window);
+        this.activeReaders = new AtomicInteger(readers);
+    }
+
+    ScanReport run(List<Path> roots, FindingWriter writer) throws IOException {
+        long start = System.nanoTime();
+        writer.start(engine.rules());
+        ExecutorService io = IoThreads.newExecutor();
+        List<ForkJoinTask<?>> evaluators = new ArrayList<>();
+        int written = 0;
+        long findings = 0;
+        long bytes = 0;
+        try {
+            io.execute(() -> walk(roots));
+            for (int r = 0; r < readers; r++) {
+                io.execute(this::read);
+            }
+            for (int p = 0; p < pool.getParallelism(); p++) {
+                evaluators.add(pool.submit(this::evaluate));
+            }
+            FileResult[] pending = new FileResult[window];
+            while (total < 0 || written < total) {
+                Item item = evaluated.take();
+                if (item == END) {
+                    continue;
+                }
+                if (item == FAILED) {
+                    throw unchecked(failure);
+                }
+                pending[item.index % window] = item.result;
+                for (FileResult result; (result = pending[written % window]) != null; ) {
+                    pending[written % window] = null;
+                    writer.write(result);
+                    findings += result.findings().size();
+                    bytes += result.bytes();
+                    written++;
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("scan interrupted after " + written + " files");
+        } finally {
+            if (total < 0 || written < total) {
+                io.shutdownNow();
+                loaded.clear();
+                for (int p = 0; p < evaluators.size(); p++) {
+                    loaded.offer(END);
+                }
+            } else {
+                io.shutdown();
+            }
+            for (ForkJoinTask<?> evaluator : evaluators) {
+                evaluator.join();
+            }
+        }
+        if (failure != null) {
+            throw unchecked(failure);
+        }
+        if (walkFailure != null) {
+            throw walkFailure;
+        }
+        return new ScanReport(written, findings, bytes, System.nanoTime() - start, pool.getParallelism());
+    }
+
+    private void walk(List<Path> roots) {
+        int count = 0;
+        try {
+            for (Path root : roots) {
+                if (Files.notExists(root, LinkOption.NOFOLLOW_LINKS)) {
+                    throw new NoSuchFileException(root.toString());
+                }
+                count = visit(root, count);
+            }
+        } catch (IOException e) {
+            walkFailure = e;
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            return;
+        } finally {
+            total = count;
+        }
+        try {
+            for (int r = 0; r < readers; r++) {
+                walked.put(END);
+            }
+            evaluated.put(END);
+        } catch (InterruptedException e) {
+            // cancelled; nobody is waiting for the end markers
+        }
+    }
+
+    private int visit(Path path, int count) throws IOException, InterruptedException {
+        if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            if (path.toString().endsWith(".java") && Files.isRegularFile(path)) {
+                permits.acquire();
+                walked.put(new Item(count, path));
+                return count + 1;
+            }
+            return count;
+        }
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+            for (Path child : entries) {
+                children.add(child);
+            }
+        }
+        Collections.sort(children);
+        for (Path child : children) {
+            count = visit(child, count);
+        }
+        return count;
+    }
+
+    private void read() {
+        try {
+            try {
+                for (Item item; (item = walked.take()) != END; ) {
+                    try {
+                        item.bytes = SourceBytes.readOwned(item.path);
+                    } catch (IOException e) {
+                        item.result = FileResult.failed(item.path.toString(), e.toString());
+                    }
+                    loaded.put(item);
+                }
+            } finally {
+                if (activeReaders.decrementAndGet() == 0) {
+                    for (int p = 0; p < pool.getParallelism(); p++) {
+                        loaded.put(END);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // cancelled
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        }
+    }
+
+    private void evaluate() {
+        try {
+            for (Item item; (item = loaded.take()) != END; ) {
+                if (item.result == null) {
+                    try {
+                        item.result = engine.scan(item.path.toString(), item.bytes);
+                    } catch (RuntimeException | Error e) {
+                        fail(e);
+                        return;
+                    }
+                    item.bytes = null;
+                }
+                evaluated.put(item);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the failure that aborts the scan and wakes the writing
+     * thread. The marker always fits: the item that failed holds a permit
+     * but no place in the queue. A walk that failed holds none, but then
+     * the writing thread checks the failure once the walked files are
+     * written.
+     */
+    private void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+        evaluated.offer(FAILED);
+    }
+
+    private static RuntimeException unchecked(Throwable failure) {
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return (RuntimeException) failure;
+    }
+
+    /**
+     * One file on its way through the stages.
+     */
+    private static final class Item {
+
+        final int index;
+        final Path path;
+        SourceBytes bytes;
+        FileResult result;
+
+        Item(int index, Path path) {
+            this.index = index;
+            this.path = path;
+        }
+    }
+}
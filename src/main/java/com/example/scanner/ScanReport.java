@@ -0,0 +1,110 @@
+package com.example.scanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of one scan, in the order the files were submitted, together
+ * with the throughput figures for the run. Reports of streamed scans carry
+ * only the totals; their files went to a {@link FindingWriter}.
+ */
+public final class ScanReport {
+
+    private final List<FileResult> files;
+    private final int fileCount;
+    private final long findingCount;
+    private final long byteCount;
+    private final long elapsedNanos;
+    private final int parallelism;
+    private final int reusedCount;
+
+    public ScanReport(List<FileResult> files, long elapsedNanos, int parallelism) {
+        this(files, elapsedNanos, parallelism, 0);
+    }
+
+    public ScanReport(List<FileResult> files, long elapsedNanos, int parallelism, int reusedCount) {
+        long findingCount = 0;
+        long byteCount = 0;
+        for (FileResult file : files) {
+            findingCount += file.findings().size();
+            byteCount += file.bytes();
+        }
+        this.files = Collections.unmodifiableList(files);
+        this.fileCount = files.size();
+        this.findingCount = findingCount;
+        this.byteCount = byteCount;
+        this.elapsedNanos = elapsedNanos;
+        this.parallelism = parallelism;
+        this.reusedCount = reusedCount;
+    }
+
+    /**
+     * Creates the report of a streamed scan, which has no per-file results.
+     */
+    public ScanReport(int fileCount, long findingCount, long byteCount, long elapsedNanos, int parallelism) {
+        this.files = Collections.emptyList();
+        this.fileCount = fileCount;
+        this.findingCount = findingCount;
+        this.byteCount = byteCount;
+        this.elapsedNanos = elapsedNanos;
+        this.parallelism = parallelism;
+        this.reusedCount = 0;
+    }
+
+    public List<FileResult> files() {
+        return files;
+    }
+
+    public List<Finding> findings() {
+        List<Finding> all = new ArrayList<>();
+        for (FileResult file : files) {
+            all.addAll(file.findings());
+        }
+        return all;
+    }
+
+    public int fileCount() {
+        return fileCount;
+    }
+
+    public long findingCount() {
+        return findingCount;
+    }
+
+    public long byteCount() {
+        return byteCount;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns how many files were answered from a {@link ResultCache}
+     * without being parsed.
+     */
+    public int reusedCount() {
+        return reusedCount;
+    }
+
+    public double filesPerSecond() {
+        return elapsedNanos == 0 ? 0 : fileCount() * 1e9 / elapsedNanos;
+    }
+
+    public double megabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : byteCount() * 1e9 / elapsedNanos / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        String summary = String.format("%d files, %d findings in %.1f ms (%d threads, %.0f files/s, %.2f MB/s)",
+                fileCount, findingCount, elapsedNanos / 1e6, parallelism,
+                filesPerSecond(), megabytesPerSecond());
+        return reusedCount == 0 ? summary : summary + ", " + reusedCount + " from cache";
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.scanner;
+
+import com.example.scanner.output.JsonLinesWriter;
+import com.example.scanner.output.SarifWriter;
+import com.example.scanner.output.TextWriter;
+import com.example.scanner.rule.RuleCatalog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line entry point.
+ *
+ * <pre>
+ * java com.example.scanner.ScannerMain [--parallelism N] [--cache FILE | --pipeline [--readers N]]
+ *     [--format text|jsonl|sarif] [--output FILE] &lt;file-or-directory&gt;...
+ * </pre>
+ *
+ * Findings go to standard output or the {@code --output} file, as text lines
+ * by default, JSON lines or a SARIF 2.1.0 log; they are written while the
+ * scan runs. Read errors and the throughput summary go to standard error.
+ * With {@code --pipeline}, directories are walked and files read by
+ * {@code --readers} I/O threads while earlier files are evaluated, instead
+ * of listing everything first; see {@link ScanPipeline}. With {@code --cache}, results are kept in the given
+ * file between runs and only changed files are re-scanned.
+ */
+public final class ScannerMain {
+
+    private ScannerMain() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Path cacheFile = null;
+        Path outputFile = null;
+        String format = "text";
+        boolean pipeline = false;
+        int readers = IoThreads.defaultReaders();
+        List<Path> roots = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--parallelism".equals(args[i]) && i + 1 < args.length) {
+                parallelism = Integer.parseInt(args[++i]);
+            } else if ("--cache".equals(args[i]) && i + 1 < args.length) {
+                cacheFile = Paths.get(args[++i]);
+            } else if ("--format".equals(args[i]) && i + 1 < args.length) {
+                format = args[++i];
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                outputFile = Paths.get(args[++i]);
+            } else if ("--pipeline".equals(args[i])) {
+                pipeline = true;
+            } else if ("--readers".equals(args[i]) && i + 1 < args.length) {
+                readers = Integer.parseInt(args[++i]);
+            } else {
+                roots.add(Paths.get(args[i]));
+            }
+        }
+        if (roots.isEmpty() || (pipeline && cacheFile != null)) {
+            usage();
+        }
+        List<Path> files = new ArrayList<>();
+        if (!pipeline) {
+            for (Path root : roots) {
+                files.addAll(ScanEngine.collectSources(root));
+            }
+            if (files.isEmpty()) {
+                usage();
+            }
+        }
+        Writer out = outputFile == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8);
+        FindingWriter writer;
+        switch (format) {
+            case "text":
+                writer = new TextWriter(out, System.err);
+                break;
+            case "jsonl":
+                writer = new JsonLinesWriter(out);
+                break;
+            case "sarif":
+                writer = new SarifWriter(out, "java-db-scanner", RuleCatalog.VERSION);
+                break;
+            default:
+                writer = null;
+                usage();
+        }
+
+        ScanReport report;
+        try (ScanEngine engine = new ScanEngine(RuleCatalog.defaultRules(), parallelism);
+             FindingWriter output = writer) {
+            try {
+                if (pipeline) {
+                    report = engine.scanTree(roots, output, readers);
+                } else if (cacheFile == null) {
+                    report = engine.scan(files, output);
+                } else {
+                    ResultCache cache = ResultCache.open(cacheFile, RuleCatalog.VERSION);
+                    report = engine.scan(files, cache);
+                    cache.save();
+                    output.start(engine.rules());
+                    for (FileResult file : report.files()) {
+                        output.write(file);
+                    }
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                try {
+                    output.abort(e);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+        System.err.println(report);
+    }
+
+    private static void usage() {
+        System.err.println("usage: ScannerMain [--parallelism N] [--cache FILE | --pipeline [--readers N]]"
+                + " [--format text|jsonl|sarif] [--output FILE] <file-or-directory>...");
+        System.exit(2);
+    }
+}
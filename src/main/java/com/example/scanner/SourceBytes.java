@@ -0,0 +1,113 @@
+package com.example.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The raw bytes of a source file, read without a per-file heap copy and
+ * decoded only on demand.
+ *
+ * <p>Files of at least {@link #MAP_THRESHOLD} bytes are memory-mapped.
+ * Smaller files are read into a buffer owned by the calling thread and
+ * reused for the next file, because mapping costs a system call and every
+ * mapping stays reserved until its buffer is collected, which on a large
+ * checkout exhausts the process map limit long before the heap fills up.
+ * Either way the returned view is only valid until the same thread reads
+ * another file. {@link #readOwned(Path)} instead gives small files an array
+ * of their own, for bytes that are handed to another thread.
+ *
+ * <p>{@link #symbols()} works on the bytes directly, so rules that cannot
+ * match a file are dropped before any decoding happens.
+ */
+public final class SourceBytes {
+
+    /**
+     * Files at least this large are mapped rather than read.
+     */
+    public static final int MAP_THRESHOLD = 1 << 20;
+
+    private static final int INITIAL_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER]);
+
+    private final ByteBuffer bytes;
+    private SymbolFilter symbols;
+
+    private SourceBytes(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    public static SourceBytes read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                return new SourceBytes(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            byte[] buffer = BUFFERS.get();
+            if (buffer.length < size) {
+                buffer = new byte[Integer.highestOneBit((int) size) << 1];
+                BUFFERS.set(buffer);
+            }
+            ByteBuffer target = ByteBuffer.wrap(buffer, 0, (int) size);
+            while (target.hasRemaining() && channel.read(target) >= 0) {
+                // keep reading until the file is exhausted
+            }
+            target.flip();
+            return new SourceBytes(target);
+        }
+    }
+
+    /**
+     * Reads {@code file} into memory that belongs to the result alone, so
+     * it stays valid after the calling thread moves on.
+     */
+    public static SourceBytes readOwned(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                return new SourceBytes(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            ByteBuffer target = ByteBuffer.allocate((int) size);
+            while (target.hasRemaining() && channel.read(target) >= 0) {
+                // keep reading until the file is exhausted
+            }
+            target.flip();
+            return new SourceBytes(target);
+        }
+    }
+
+    public int size() {
+        return bytes.limit();
+    }
+
+    /**
+     * Returns a read-only view of the content, positioned at the start.
+     */
+    public ByteBuffer buffer() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the identifier filter of the content, built on first use.
+     */
+    public SymbolFilter symbols() {
+        if (symbols == null) {
+            symbols = SymbolFilter.of(bytes);
+        }
+        return symbols;
+    }
+
+    /**
+     * Decodes the content as UTF-8.
+     */
+    public String decode() {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset(), bytes.limit(), StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A Java source file parsed once for rule evaluation.
+ *
+ * <p>Parsing is a single lexical pass that records line offsets, string
+ * literals and import declarations, and produces a copy of the text with
+ * every comment blanked out. Rules match against that copy, so commented-out
+ * code and marker comments never produce findings. A second copy with
+ * literal contents blanked as well backs brace matching and method
+ * discovery. Instances are immutable and safe to share between rules; views
+ * derived from the parse are computed on first use through
+ * {@link #analysis(Analysis)} and cached for every later rule.
+ */
+public final class SourceFile {
+
+    private static final Pattern METHOD = Pattern.compile(
+            "(?m)^[ \\t]*(?:[\\w@<>\\[\\],.?]+[ \\t]+)+(\\w+)\\s*\\((?:[^()]|\\([^()]*\\))*\\)"
+                    + "\\s*(?:throws\\s+[\\w.,\\s]+)?\\{");
+
+    private final String path;
+    private final String text;
+    private final String code;
+    private final String skeleton;
+    private final int[] lineStarts;
+    private final List<StringLiteral> literals;
+    private final List<String> imports;
+    private final List<Method> methods;
+    private final Map<Analysis<?>, Object> analyses = new ConcurrentHashMap<>(4);
+
+    private SourceFile(String path, String text, String code, String skeleton, int[] lineStarts,
+                       List<StringLiteral> literals, List<String> imports) {
+        this.path = path;
+        this.text = text;
+        this.code = code;
+        this.skeleton = skeleton;
+        this.lineStarts = lineStarts;
+        this.literals = literals;
+        this.imports = imports;
+        this.methods = findMethods();
+    }
+
+    public static SourceFile parse(String path, String text) {
+        char[] code = text.toCharArray();
+        char[] skeleton = text.toCharArray();
+        int[] lineStarts = new int[64];
+        int lineCount = 1;
+        List<StringLiteral> literals = new ArrayList<>();
+
+        int length = code.length;
+        int i = 0;
+        while (i < length) {
+            char c = code[i];
+            if (c == '\n') {
+                if (lineCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                }
+                lineStarts[lineCount++] = i + 1;
+                i++;
+            } else if (c == '/' && i + 1 < length && code[i + 1] == '/') {
+                while (i < length && code[i] != '\n') {
+                    code[i] = ' ';
+                    skeleton[i++] = ' ';
+                }
+            } else if (c == '/' && i + 1 < length && code[i + 1] == '*') {
+                blank(code, skeleton, i, 2);
+                i += 2;
+                while (i < length && !(code[i] == '*' && i + 1 < length && code[i + 1] == '/')) {
+                    if (code[i] == '\n') {
+                        if (lineCount == lineStarts.length) {
+                            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                        }
+                        lineStarts[lineCount++] = i + 1;
+                    } else {
+                        code[i] = ' ';
+                        skeleton[i] = ' ';
+                    }
+                    i++;
+                }
+                if (i < length) {
+                    blank(code, skeleton, i, 2);
+                    i += 2;
+                }
+            } else if (c == '"') {
+                int start = i++;
+                StringBuilder value = new StringBuilder();
+                while (i < length && code[i] != '"' && code[i] != '\n') {
+                    if (code[i] == '\\' && i + 1 < length) {
+                        value.append(unescape(code[i + 1]));
+                        skeleton[i] = ' ';
+                        skeleton[i + 1] = ' ';
+                        i += 2;
+                    } else {
+                        value.append(code[i]);
+                        skeleton[i++] = ' ';
+                    }
+                }
+                i = Math.min(i + 1, length);
+                literals.add(new StringLiteral(start, i, value.toString()));
+            } else if (c == '\'') {
+                i++;
+                while (i < length && code[i] != '\'' && code[i] != '\n') {
+                    skeleton[i] = ' ';
+                    i++;
+                    if (code[i - 1] == '\\' && i < length) {
+                        skeleton[i++] = ' ';
+                    }
+                }
+                i = Math.min(i + 1, length);
+            } else {
+                i++;
+            }
+        }
+
+        String stripped = new String(code);
+        return new SourceFile(path, text, stripped, new String(skeleton), Arrays.copyOf(lineStarts, lineCount),
+                Collections.unmodifiableList(literals), findImports(stripped));
+    }
+
+    private static void blank(char[] code, char[] skeleton, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            code[i] = ' ';
+            skeleton[i] = ' ';
+        }
+    }
+
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            default:
+                return c;
+        }
+    }
+
+    private static List<String> findImports(String code) {
+        List<String> imports = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int at = code.indexOf("import ", from);
+            if (at < 0) {
+                break;
+            }
+            int end = code.indexOf(';', at);
+            if (end < 0) {
+                break;
+            }
+            if (at == 0 || code.charAt(at - 1) == '\n') {
+                String name = code.substring(at + 7, end).trim();
+                if (name.startsWith("static ")) {
+                    name = name.substring(7).trim();
+                }
+                imports.add(name);
+            }
+            from = end + 1;
+        }
+        return Collections.unmodifiableList(imports);
+    }
+
+    private List<Method> findMethods() {
+        List<Method> found = new ArrayList<>();
+        Matcher m = METHOD.matcher(skeleton);
+        while (m.find()) {
+            String name = m.group(1);
+            if (isKeyword(name)) {
+                continue;
+            }
+            int open = m.end() - 1;
+            int declaration = m.start();
+            while (declaration < open && Character.isWhitespace(skeleton.charAt(declaration))) {
+                declaration++;
+            }
+            found.add(new Method(name, declaration, open, blockEnd(open)));
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    private static boolean isKeyword(String name) {
+        switch (name) {
+            case "if":
+            case "for":
+            case "while":
+            case "switch":
+            case "catch":
+            case "synchronized":
+            case "try":
+            case "return":
+            case "new":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the original source text.
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Returns the source text with comments replaced by spaces. Offsets and
+     * line breaks are identical to {@link #text()}.
+     */
+    public String code() {
+        return code;
+    }
+
+    /**
+     * Returns the source text with comments and the contents of string and
+     * character literals replaced by spaces.
+     */
+    public String skeleton() {
+        return skeleton;
+    }
+
+    /**
+     * Returns the offset just past the brace that closes the block opened at
+     * {@code openBrace}, or the end of the file if it is never closed.
+     */
+    public int blockEnd(int openBrace) {
+        int depth = 0;
+        for (int i = openBrace; i < skeleton.length(); i++) {
+            char c = skeleton.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return skeleton.length();
+    }
+
+    /**
+     * Returns the method and constructor declarations that have a body, in
+     * source order. Nested and anonymous-class methods are included.
+     */
+    public List<Method> methods() {
+        return methods;
+    }
+
+    /**
+     * Returns the result of {@code analysis} for this file, computing it on
+     * the first call. Concurrent first calls may both compute; one result
+     * wins and is returned to both.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T analysis(Analysis<T> analysis) {
+        Object result = analyses.get(analysis);
+        if (result == null) {
+            result = analysis.compute(this);
+            Object prior = analyses.putIfAbsent(analysis, result);
+            if (prior != null) {
+                result = prior;
+            }
+        }
+        return (T) result;
+    }
+
+    public List<StringLiteral> literals() {
+        return literals;
+    }
+
+    public List<String> imports() {
+        return imports;
+    }
+
+    public int lineCount() {
+        return lineStarts.length;
+    }
+
+    /**
+     * Returns the 1-based line number containing the given character offset.
+     */
+    public int lineOf(int offset) {
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Returns the 1-based column of the given character offset.
+     */
+    public int columnOf(int offset) {
+        return offset - lineStarts[lineOf(offset) - 1] + 1;
+    }
+
+    /**
+     * A string literal in the source. Offsets cover the surrounding quotes;
+     * the value has simple escape sequences resolved.
+     */
+    public static final class StringLiteral {
+
+        private final int start;
+        private final int end;
+        private final String value;
+
+        StringLiteral(int start, int end, String value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        public String value() {
+            return value;
+        }
+    }
+
+    /**
+     * A method or constructor with a body. Offsets index into
+     * {@link #code()}; the body range includes both braces.
+     */
+    public static final class Method {
+
+        private final String name;
+        private final int start;
+        private final int bodyStart;
+        private final int bodyEnd;
+
+        Method(String name, int start, int bodyStart, int bodyEnd) {
+            this.name = name;
+            this.start = start;
+            this.bodyStart = bodyStart;
+            this.bodyEnd = bodyEnd;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int bodyStart() {
+            return bodyStart;
+        }
+
+        public int bodyEnd() {
+            return bodyEnd;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.scanner;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One scan whose results go to a {@link FindingWriter} as soon as they can
+ * be written in order, so memory stays bounded however many findings the
+ * scan produces.
+ *
+ * <p>Each worker claims the next file index, scans the file and hands the
+ * result to the calling thread through a bounded queue. The caller parks
+ * results in a reorder buffer keyed by file index and writes every result
+ * whose predecessors have been written. A worker may only claim an index
+ * while fewer than {@code window} results are claimed but unwritten, which
+ * bounds both the queue and the reorder buffer even if one early file is
+ * slow. A rule that throws aborts the scan with that exception or error.
+ */
+final class StreamingScan {
+
+    private static final int WINDOW_PER_THREAD = 8;
+
+    private final ScanEngine engine;
+    private final List<Path> files;
+    private final FindingWriter writer;
+    private final ForkJoinPool pool;
+    private final int window;
+    private final Semaphore permits;
+    private final BlockingQueue<Batch> queue;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+
+    StreamingScan(ScanEngine engine, ForkJoinPool pool, List<Path> files, FindingWriter writer) {
+        this.engine = engine;
+        this.files = files;
+        this.writer = writer;
+        this.pool = pool;
+        this.window = WINDOW_PER_THREAD * pool.getParallelism();
+        this.permits = new Semaphore(window);
+        this.queue = new ArrayBlockingQueue<>(window);
+    }
+
+    ScanReport run() throws IOException {
+        long start = System.nanoTime();
+        writer.start(engine.rules());
+        int count = files.size();
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int w = 0; w < pool.getParallelism() && w < count; w++) {
+            workers.add(pool.submit(this::work));
+        }
+        FileResult[] pending = new FileResult[window];
+        int written = 0;
+        long findings = 0;
+        long bytes = 0;
+        try {
+            while (written < count) {
+                Batch batch = queue.take();
+                if (batch.result == null) {
+                    throw unchecked(failure);
+                }
+                pending[batch.index % window] = batch.result;
+                for (FileResult result; written < count && (result = pending[written % window]) != null; ) {
+                    pending[written % window] = null;
+                    writer.write(result);
+                    findings += result.findings().size();
+                    bytes += result.bytes();
+                    written++;
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("scan interrupted after " + written + " files");
+        } finally {
+            if (written < count) {
+                cancelled = true;
+                permits.release(pool.getParallelism());
+            }
+            for (ForkJoinTask<?> worker : workers) {
+                worker.join();
+            }
+        }
+        return new ScanReport(count, findings, bytes, System.nanoTime() - start, pool.getParallelism());
+    }
+
+    private void work() {
+        while (!cancelled) {
+            permits.acquireUninterruptibly();
+            int index = next.getAndIncrement();
+            if (cancelled || index >= files.size()) {
+                permits.release();
+                return;
+            }
+            try {
+                queue.add(new Batch(index, engine.scanFile(files.get(index))));
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                cancelled = true;
+                queue.offer(new Batch(index, null));
+                return;
+            }
+        }
+    }
+
+    private static RuntimeException unchecked(Throwable failure) {
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return (RuntimeException) failure;
+    }
+
+    /**
+     * The result of one file on its way to the writer.
+     */
+    private static final class Batch {
+
+        final int index;
+        final FileResult result;
+
+        Batch(int index, FileResult result) {
+            this.index = index;
+            this.result = result;
+        }
+    }
+}
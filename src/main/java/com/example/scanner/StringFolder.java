@@ -0,0 +1,697 @@
+package com.example.scanner;
+
+import com.example.scanner.SourceFile.Method;
+import com.example.scanner.SourceFile.StringLiteral;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a {@link StringIndex} for one file.
+ *
+ * <p>The file is walked once in source order. String and builder variable
+ * declarations, reassignments, {@code +=} and {@code append} calls update a
+ * table of variables scoped to their innermost method (or to the class for
+ * fields), and each remaining literal is expanded to the {@code +} chain
+ * around it. Folding is flow-insensitive within a method: appends in
+ * alternative branches are all kept, in source order.
+ */
+final class StringFolder {
+
+    private static final String PLACEHOLDER = "?";
+
+    private static final Set<String> STRING_TYPES = new HashSet<>(
+            Arrays.asList("String", "StringBuilder", "StringBuffer", "var"));
+
+    private static final Pattern BUILDER = Pattern.compile("new\\s+(StringBuilder|StringBuffer)\\s*\\(");
+
+    private static final Pattern APPEND = Pattern.compile("\\.\\s*append\\s*\\(");
+
+    private final SourceFile source;
+    private final String skeleton;
+    private final List<StringLiteral> literals;
+    private final int[] literalStarts;
+    private final int[] entryOfLiteral;
+    private final List<Method> methods;
+    private final Map<String, Variable> variables = new HashMap<>();
+
+    private int[] offsets = new int[16];
+    private final List<CharSequence> texts = new ArrayList<>();
+    private final BitSet tainted = new BitSet();
+
+    StringFolder(SourceFile source) {
+        this.source = source;
+        this.skeleton = source.skeleton();
+        this.literals = source.literals();
+        this.methods = source.methods();
+        this.literalStarts = new int[literals.size()];
+        for (int i = 0; i < literalStarts.length; i++) {
+            literalStarts[i] = literals.get(i).start();
+        }
+        this.entryOfLiteral = new int[literals.size()];
+        Arrays.fill(entryOfLiteral, -1);
+    }
+
+    StringIndex fold() {
+        int next = 0;
+        int length = skeleton.length();
+        for (int i = 0; i < length; i++) {
+            char c = skeleton.charAt(i);
+            if (c == '=') {
+                if (i + 1 < length && skeleton.charAt(i + 1) == '=') {
+                    i++;
+                    continue;
+                }
+                boolean append = i > 0 && skeleton.charAt(i - 1) == '+';
+                if (!append && i > 0 && "=!<>-*/%&|^".indexOf(skeleton.charAt(i - 1)) >= 0) {
+                    continue;
+                }
+                int nameEnd = skipSpaceBack(append ? i - 2 : i - 1);
+                if (nameEnd < 0 || !Character.isJavaIdentifierPart(skeleton.charAt(nameEnd))) {
+                    continue;
+                }
+                int nameStart = wordStart(nameEnd);
+                int before = skipSpaceBack(nameStart - 1);
+                if (before >= 0 && skeleton.charAt(before) == '.') {
+                    continue;
+                }
+                String name = skeleton.substring(nameStart, nameEnd + 1);
+                String type = null;
+                int start = nameStart;
+                if (before >= 0 && Character.isJavaIdentifierPart(skeleton.charAt(before))) {
+                    start = wordStart(before);
+                    type = skeleton.substring(start, before + 1);
+                }
+                for (; next < literals.size() && literalStarts[next] < start; next++) {
+                    literal(next);
+                }
+                if (type == null) {
+                    assignment(name, append, start, i + 1);
+                } else if (!append && STRING_TYPES.contains(type)) {
+                    declaration(type, name, start, i + 1);
+                }
+            } else if (c == '.') {
+                int method = skipSpace(i + 1);
+                int open = skipSpace(method + 6);
+                if (!skeleton.startsWith("append", method) || wordEnd(method) != method + 6
+                        || open >= length || skeleton.charAt(open) != '(') {
+                    continue;
+                }
+                int receiverEnd = skipSpaceBack(i - 1);
+                if (receiverEnd < 0 || !Character.isJavaIdentifierPart(skeleton.charAt(receiverEnd))) {
+                    continue;
+                }
+                int receiverStart = wordStart(receiverEnd);
+                for (; next < literals.size() && literalStarts[next] < receiverStart; next++) {
+                    literal(next);
+                }
+                Variable variable = lookup(skeleton.substring(receiverStart, receiverEnd + 1), receiverStart);
+                if (variable != null && variable.builder) {
+                    Fold fold = new Fold();
+                    appends(open, fold);
+                    contribute(variable, fold);
+                }
+            }
+        }
+        for (; next < literals.size(); next++) {
+            literal(next);
+        }
+        return build();
+    }
+
+    private void declaration(String type, String name, int start, int expression) {
+        int scope = scopeOf(start);
+        int at = skipSpace(expression);
+        Matcher builder = BUILDER.matcher(skeleton).region(at, skeleton.length());
+        boolean constructed = builder.lookingAt();
+        if (type.startsWith("StringB") || "var".equals(type) && constructed) {
+            Variable variable = new Variable(true);
+            variables.put(key(scope, name), variable);
+            if (constructed) {
+                contribute(variable, builderInit(builder.end() - 1));
+            } else {
+                variable.opaque();
+            }
+            return;
+        }
+        Fold fold = parseComplete(at);
+        if ("var".equals(type) && (fold == null || fold.literals.isEmpty())) {
+            return;
+        }
+        Variable variable = new Variable(false);
+        variables.put(key(scope, name), variable);
+        if (fold == null) {
+            variable.opaque();
+        } else {
+            contribute(variable, fold);
+        }
+    }
+
+    private void assignment(String name, boolean append, int start, int expression) {
+        Variable variable = lookup(name, start);
+        if (variable == null) {
+            return;
+        }
+        int at = skipSpace(expression);
+        if (!append) {
+            Variable replacement = new Variable(variable.builder);
+            variables.put(key(scopeOf(start), name), replacement);
+            variable = replacement;
+            Matcher builder = BUILDER.matcher(skeleton).region(at, skeleton.length());
+            if (variable.builder) {
+                if (builder.lookingAt()) {
+                    contribute(variable, builderInit(builder.end() - 1));
+                } else {
+                    variable.opaque();
+                }
+                return;
+            }
+        }
+        Fold fold = parseComplete(at);
+        if (fold == null) {
+            variable.opaque();
+        } else {
+            contribute(variable, fold);
+        }
+    }
+
+    /**
+     * Folds the constructor argument of a builder and any appends chained
+     * directly onto the constructor call.
+     */
+    private Fold builderInit(int open) {
+        Fold fold = new Fold();
+        int close = matching(open);
+        if (close < 0) {
+            fold.tainted = true;
+            fold.text.append(PLACEHOLDER);
+            return fold;
+        }
+        int arg = skipSpace(open + 1);
+        if (arg < close && !Character.isDigit(skeleton.charAt(arg))) {
+            Fold argument = parseSum(arg);
+            if (argument == null || skipSpace(argument.end) != close) {
+                fold.tainted = true;
+                fold.text.append(PLACEHOLDER);
+            } else {
+                fold.add(argument);
+            }
+        }
+        int dot = skipSpace(close + 1);
+        if (dot < skeleton.length() && skeleton.charAt(dot) == '.') {
+            Matcher append = APPEND.matcher(skeleton).region(dot, skeleton.length());
+            if (append.lookingAt()) {
+                appends(append.end() - 1, fold);
+            }
+        }
+        return fold;
+    }
+
+    /**
+     * Folds the argument of an {@code append(} call opened at {@code open}
+     * and of every {@code .append(} chained after it.
+     */
+    private void appends(int open, Fold into) {
+        while (true) {
+            int close = matching(open);
+            if (close < 0) {
+                into.tainted = true;
+                into.text.append(PLACEHOLDER);
+                return;
+            }
+            Fold argument = parseSum(open + 1);
+            if (argument == null || skipSpace(argument.end) != close) {
+                into.tainted = true;
+                into.text.append(PLACEHOLDER);
+            } else {
+                into.add(argument);
+            }
+            int dot = skipSpace(close + 1);
+            if (dot >= skeleton.length() || skeleton.charAt(dot) != '.') {
+                return;
+            }
+            int name = skipSpace(dot + 1);
+            if (!skeleton.startsWith("append", name) || wordEnd(name) != name + 6) {
+                return;
+            }
+            open = skipSpace(name + 6);
+            if (open >= skeleton.length() || skeleton.charAt(open) != '(') {
+                return;
+            }
+        }
+    }
+
+    private void contribute(Variable variable, Fold fold) {
+        variable.text.append(fold.text);
+        variable.tainted |= fold.tainted;
+        if (fold.literals.isEmpty()) {
+            return;
+        }
+        if (variable.entry < 0) {
+            variable.entry = addEntry(fold.start, variable.text, variable.tainted);
+        } else if (variable.tainted) {
+            tainted.set(variable.entry);
+        }
+        claim(fold, variable.entry);
+    }
+
+    /**
+     * Indexes the literal at {@code index} together with the {@code +} chain
+     * around it, unless an earlier expression already claimed it.
+     */
+    private void literal(int index) {
+        if (entryOfLiteral[index] >= 0) {
+            return;
+        }
+        StringLiteral literal = literals.get(index);
+        Fold fold = parseSum(chainStart(literal.start()));
+        if (fold == null || !fold.literals.contains(index)) {
+            fold = new Fold();
+            fold.start = literal.start();
+            fold.text.append(literal.value());
+            fold.literals.add(index);
+        }
+        claim(fold, addEntry(fold.start, fold.text.toString(), fold.tainted));
+    }
+
+    private void claim(Fold fold, int entry) {
+        for (int literal : fold.literals) {
+            if (entryOfLiteral[literal] < 0) {
+                entryOfLiteral[literal] = entry;
+            }
+        }
+    }
+
+    private int addEntry(int offset, CharSequence text, boolean taint) {
+        int entry = texts.size();
+        if (entry == offsets.length) {
+            offsets = Arrays.copyOf(offsets, entry * 2);
+        }
+        offsets[entry] = offset;
+        texts.add(text);
+        if (taint) {
+            tainted.set(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Orders entries by offset and freezes their texts.
+     */
+    private StringIndex build() {
+        int count = texts.size();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(offsets[a], offsets[b]));
+        int[] rank = new int[count];
+        int[] sortedOffsets = new int[count];
+        String[] sortedTexts = new String[count];
+        BitSet sortedTaint = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            int entry = order[i];
+            rank[entry] = i;
+            sortedOffsets[i] = offsets[entry];
+            sortedTexts[i] = texts.get(entry).toString().intern();
+            sortedTaint.set(i, tainted.get(entry));
+        }
+        int[] literalEntries = new int[entryOfLiteral.length];
+        for (int i = 0; i < literalEntries.length; i++) {
+            literalEntries[i] = rank[entryOfLiteral[i]];
+        }
+        return new StringIndex(sortedOffsets, sortedTexts, sortedTaint, literalEntries);
+    }
+
+    /**
+     * Parses a {@code +} chain that must end the expression, i.e. be
+     * followed by {@code ;}, {@code ,} or {@code )}. Returns null otherwise.
+     */
+    private Fold parseComplete(int at) {
+        Fold fold = parseSum(at);
+        if (fold == null) {
+            return null;
+        }
+        int end = skipSpace(fold.end);
+        if (end >= skeleton.length()) {
+            return null;
+        }
+        char c = skeleton.charAt(end);
+        return c == ';' || c == ',' || c == ')' ? fold : null;
+    }
+
+    private Fold parseSum(int at) {
+        Fold fold = new Fold();
+        int i = skipSpace(at);
+        while (true) {
+            int end = operand(i, fold);
+            if (end < 0) {
+                break;
+            }
+            fold.end = end;
+            int plus = skipSpace(end);
+            if (plus + 1 < skeleton.length() && skeleton.charAt(plus) == '+'
+                    && skeleton.charAt(plus + 1) != '+' && skeleton.charAt(plus + 1) != '=') {
+                i = skipSpace(plus + 1);
+            } else {
+                break;
+            }
+        }
+        return fold.start < 0 ? null : fold;
+    }
+
+    /**
+     * Folds the operand at {@code i} into {@code fold} and returns its end,
+     * or -1 if no operand starts there.
+     */
+    private int operand(int i, Fold fold) {
+        if (i >= skeleton.length()) {
+            return -1;
+        }
+        char c = skeleton.charAt(i);
+        if (c == '"') {
+            int index = Arrays.binarySearch(literalStarts, i);
+            if (index < 0) {
+                return -1;
+            }
+            fold.begin(i);
+            fold.text.append(literals.get(index).value());
+            fold.literals.add(index);
+            return literals.get(index).end();
+        }
+        if (c == '\'') {
+            int close = skeleton.indexOf('\'', i + 1);
+            if (close < 0) {
+                return -1;
+            }
+            String content = source.code().substring(i + 1, close);
+            fold.begin(i);
+            fold.text.append(content.startsWith("\\") && content.length() > 1 ? content.substring(1) : content);
+            return close + 1;
+        }
+        if (c == '(') {
+            int close = matching(i);
+            if (close < 0) {
+                return -1;
+            }
+            Fold nested = parseSum(i + 1);
+            fold.begin(i);
+            if (nested != null && skipSpace(nested.end) == close && !nested.literals.isEmpty()) {
+                fold.add(nested);
+            } else {
+                fold.text.append(PLACEHOLDER);
+                fold.tainted = true;
+            }
+            return close + 1;
+        }
+        if (Character.isDigit(c)) {
+            int end = i;
+            while (end < skeleton.length() && (Character.isLetterOrDigit(skeleton.charAt(end)) || skeleton.charAt(end) == '.')) {
+                end++;
+            }
+            fold.begin(i);
+            fold.text.append(skeleton, i, end);
+            return end;
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            return reference(i, fold);
+        }
+        return -1;
+    }
+
+    /**
+     * Folds a name, qualified name or call chain starting at {@code i}.
+     */
+    private int reference(int i, Fold fold) {
+        int end = wordEnd(i);
+        String first = skeleton.substring(i, end);
+        fold.begin(i);
+        if ("null".equals(first) || "true".equals(first) || "false".equals(first)) {
+            fold.text.append(first);
+            return end;
+        }
+        if ("new".equals(first)) {
+            int open = end;
+            while (open < skeleton.length() && "([{;,)".indexOf(skeleton.charAt(open)) < 0) {
+                open++;
+            }
+            int close = open < skeleton.length() && skeleton.charAt(open) == '(' ? matching(open) : -1;
+            if (close < 0) {
+                return -1;
+            }
+            fold.text.append(PLACEHOLDER);
+            fold.tainted = true;
+            return close + 1;
+        }
+
+        String last = first;
+        int segments = 1;
+        int calls = 0;
+        boolean called = false;
+        boolean indexed = false;
+        while (true) {
+            int j = skipSpace(end);
+            if (j >= skeleton.length()) {
+                break;
+            }
+            char c = skeleton.charAt(j);
+            if (c == '.') {
+                int k = skipSpace(j + 1);
+                if (k >= skeleton.length() || !Character.isJavaIdentifierStart(skeleton.charAt(k))) {
+                    break;
+                }
+                end = wordEnd(k);
+                last = skeleton.substring(k, end);
+                segments++;
+                called = false;
+            } else if (c == '(' || c == '[') {
+                int close = c == '(' ? matching(j) : skeleton.indexOf(']', j);
+                if (close < 0) {
+                    return -1;
+                }
+                end = close + 1;
+                if (c == '(') {
+                    calls++;
+                    called = true;
+                } else {
+                    indexed = true;
+                }
+            } else {
+                break;
+            }
+        }
+
+        Variable variable = null;
+        if (segments == 1 && calls == 0 && !indexed) {
+            variable = lookup(first, i);
+        } else if (segments == 2 && calls == 1 && called && "toString".equals(last) && !indexed) {
+            variable = lookup(first, i);
+        } else if (calls == 0 && !indexed) {
+            variable = variables.get(key(-1, last));
+        }
+        if (variable != null) {
+            fold.text.append(variable.text);
+            fold.tainted |= variable.tainted;
+        } else {
+            fold.text.append(PLACEHOLDER);
+            fold.tainted = true;
+        }
+        return end;
+    }
+
+    /**
+     * Walks left from a literal over {@code operand +} pairs and returns the
+     * start of the chain.
+     */
+    private int chainStart(int at) {
+        int start = at;
+        while (true) {
+            int plus = skipSpaceBack(start - 1);
+            if (plus < 1 || skeleton.charAt(plus) != '+' || skeleton.charAt(plus - 1) == '+') {
+                return start;
+            }
+            int operand = operandStartBack(skipSpaceBack(plus - 1));
+            if (operand < 0) {
+                return start;
+            }
+            start = operand;
+        }
+    }
+
+    private int operandStartBack(int end) {
+        if (end < 0) {
+            return -1;
+        }
+        if (skeleton.charAt(end) == '"') {
+            for (StringLiteral literal : literals) {
+                if (literal.end() == end + 1) {
+                    return literal.start();
+                }
+            }
+            return -1;
+        }
+        int i = end;
+        while (true) {
+            char c = skeleton.charAt(i);
+            if (c == ')' || c == ']') {
+                int open = matchingBack(i);
+                if (open < 0) {
+                    return -1;
+                }
+                int before = skipSpaceBack(open - 1);
+                if (before >= 0 && Character.isJavaIdentifierPart(skeleton.charAt(before))) {
+                    i = before;
+                } else {
+                    return c == ')' ? open : -1;
+                }
+            } else if (Character.isJavaIdentifierPart(c)) {
+                int word = i;
+                while (word > 0 && Character.isJavaIdentifierPart(skeleton.charAt(word - 1))) {
+                    word--;
+                }
+                int dot = skipSpaceBack(word - 1);
+                if (dot < 0 || skeleton.charAt(dot) != '.') {
+                    return word;
+                }
+                i = skipSpaceBack(dot - 1);
+                if (i < 0) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+    }
+
+    private int matching(int open) {
+        char o = skeleton.charAt(open);
+        char c = o == '(' ? ')' : o == '[' ? ']' : '}';
+        int depth = 0;
+        for (int i = open; i < skeleton.length(); i++) {
+            char ch = skeleton.charAt(i);
+            if (ch == o) {
+                depth++;
+            } else if (ch == c && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int matchingBack(int close) {
+        char c = skeleton.charAt(close);
+        char o = c == ')' ? '(' : '[';
+        int depth = 0;
+        for (int i = close; i >= 0; i--) {
+            char ch = skeleton.charAt(i);
+            if (ch == c) {
+                depth++;
+            } else if (ch == o && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int skipSpace(int i) {
+        while (i < skeleton.length() && Character.isWhitespace(skeleton.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipSpaceBack(int i) {
+        while (i >= 0 && Character.isWhitespace(skeleton.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+
+    private int wordStart(int i) {
+        while (i > 0 && Character.isJavaIdentifierPart(skeleton.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private int wordEnd(int i) {
+        while (i < skeleton.length() && Character.isJavaIdentifierPart(skeleton.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private Variable lookup(String name, int offset) {
+        Variable local = variables.get(key(scopeOf(offset), name));
+        return local != null ? local : variables.get(key(-1, name));
+    }
+
+    /**
+     * Returns the index of the innermost method containing {@code offset},
+     * or -1 at class level.
+     */
+    private int scopeOf(int offset) {
+        int scope = -1;
+        for (int i = 0; i < methods.size(); i++) {
+            Method method = methods.get(i);
+            if (method.bodyStart() <= offset && offset < method.bodyEnd()) {
+                scope = i;
+            }
+        }
+        return scope;
+    }
+
+    private static String key(int scope, String name) {
+        return scope + ":" + name;
+    }
+
+    private static final class Variable {
+
+        final boolean builder;
+        final StringBuilder text = new StringBuilder();
+        boolean tainted;
+        int entry = -1;
+
+        Variable(boolean builder) {
+            this.builder = builder;
+        }
+
+        /**
+         * Records a value that cannot be folded.
+         */
+        void opaque() {
+            tainted = true;
+            text.append(PLACEHOLDER);
+        }
+    }
+
+    private static final class Fold {
+
+        final StringBuilder text = new StringBuilder();
+        final List<Integer> literals = new ArrayList<>(2);
+        boolean tainted;
+        int start = -1;
+        int end;
+
+        void begin(int offset) {
+            if (start < 0) {
+                start = offset;
+            }
+        }
+
+        void add(Fold other) {
+            begin(other.start);
+            text.append(other.text);
+            literals.addAll(other.literals);
+            tainted |= other.tainted;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.scanner;
+
+import java.util.BitSet;
+
+/**
+ * The string expressions of a file with constants folded, shared by every
+ * rule that inspects embedded SQL.
+ *
+ * <p>Each entry is one logical string: a lone literal, a {@code +} chain,
+ * or everything appended to a {@code StringBuilder} or accumulated with
+ * {@code +=}. Operands that resolve to string, number or character
+ * constants are folded into the text; any other operand becomes {@code ?},
+ * the JDBC parameter marker, so folded text still reads as SQL, and marks
+ * the entry as tainted. Every string literal belongs to exactly one entry.
+ * Texts are interned, so identical queries across files share storage.
+ */
+public final class StringIndex {
+
+    /**
+     * Builds the index on first use; see {@link SourceFile#analysis(Analysis)}.
+     */
+    public static final Analysis<StringIndex> ANALYSIS = source -> new StringFolder(source).fold();
+
+    private final int[] offsets;
+    private final String[] texts;
+    private final BitSet tainted;
+    private final int[] entryOfLiteral;
+
+    StringIndex(int[] offsets, String[] texts, BitSet tainted, int[] entryOfLiteral) {
+        this.offsets = offsets;
+        this.texts = texts;
+        this.tainted = tainted;
+        this.entryOfLiteral = entryOfLiteral;
+    }
+
+    public static StringIndex of(SourceFile source) {
+        return source.analysis(ANALYSIS);
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    /**
+     * Returns the source offset of the entry's first operand.
+     */
+    public int offset(int entry) {
+        return offsets[entry];
+    }
+
+    public String text(int entry) {
+        return texts[entry];
+    }
+
+    /**
+     * Returns whether some operand of the entry is not a constant.
+     */
+    public boolean tainted(int entry) {
+        return tainted.get(entry);
+    }
+
+    /**
+     * Returns the entry containing the literal at position {@code literal}
+     * of {@link SourceFile#literals()}.
+     */
+    public int entryOf(int literal) {
+        return entryOfLiteral[literal];
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.scanner;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A Bloom filter over the identifiers of one file, used to skip rules that
+ * cannot match it.
+ *
+ * <p>Built in a single pass over the raw bytes, comments and string
+ * literals included. Besides every identifier it records each pair of
+ * identifiers joined by a dot, such as {@code org.hibernate} or
+ * {@code apache.ibatis}, so rules can ask for a package step rather than a
+ * bare name like {@code jdbc}. Bytes outside ASCII count as identifier
+ * characters, which can merge tokens but never split one. Lookups may give
+ * false positives but never false negatives.
+ *
+ * <p>A first pass counts the symbols so that the filter has about ten bits
+ * for each, rounded up to a power of two, which with seven hashes keeps
+ * false positives near one in a hundred however large the file. Repeated
+ * symbols are counted each time, so most files get more room than that.
+ */
+public final class SymbolFilter {
+
+    private static final int BITS_PER_SYMBOL = 10;
+    private static final int MIN_BITS = 64;
+    private static final int MAX_BITS = 1 << 30;
+    private static final int HASHES = 7;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] bits;
+    private final int mask;
+
+    private SymbolFilter(int symbols) {
+        long wanted = Math.max(MIN_BITS, Math.min(MAX_BITS, (long) symbols * BITS_PER_SYMBOL));
+        int size = (int) (Long.highestOneBit(wanted - 1) << 1);
+        this.bits = new long[size / 64];
+        this.mask = size - 1;
+    }
+
+    static SymbolFilter of(ByteBuffer bytes) {
+        SymbolFilter filter = new SymbolFilter(count(bytes));
+        int limit = bytes.limit();
+        long previous = 0;
+        boolean dotted = false;
+        int i = 0;
+        while (i < limit) {
+            byte b = bytes.get(i);
+            if (!isIdentifier(b)) {
+                if (b == '.') {
+                    dotted = previous != 0;
+                } else if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                    previous = 0;
+                    dotted = false;
+                }
+                i++;
+                continue;
+            }
+            long hash = FNV_OFFSET;
+            long pair = dotted ? step(previous, (byte) '.') : 0;
+            while (i < limit && isIdentifier(b = bytes.get(i))) {
+                hash = step(hash, b);
+                if (dotted) {
+                    pair = step(pair, b);
+                }
+                i++;
+            }
+            filter.add(hash);
+            if (dotted) {
+                filter.add(pair);
+            }
+            previous = hash;
+            dotted = false;
+        }
+        return filter;
+    }
+
+    /**
+     * Returns how many symbols {@link #of(ByteBuffer)} adds for
+     * {@code bytes}: one per identifier and one more for each identifier
+     * that follows a dot.
+     */
+    private static int count(ByteBuffer bytes) {
+        int limit = bytes.limit();
+        int symbols = 0;
+        boolean previous = false;
+        boolean dotted = false;
+        int i = 0;
+        while (i < limit) {
+            byte b = bytes.get(i);
+            if (!isIdentifier(b)) {
+                if (b == '.') {
+                    dotted = previous;
+                } else if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                    previous = false;
+                    dotted = false;
+                }
+                i++;
+                continue;
+            }
+            while (i < limit && isIdentifier(bytes.get(i))) {
+                i++;
+            }
+            symbols += dotted ? 2 : 1;
+            previous = true;
+            dotted = false;
+        }
+        return symbols;
+    }
+
+    /**
+     * Returns the hash {@link #mightContain(long)} expects for
+     * {@code symbol}, which must be ASCII.
+     */
+    public static long hash(CharSequence symbol) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < symbol.length(); i++) {
+            hash = step(hash, (byte) symbol.charAt(i));
+        }
+        return hash;
+    }
+
+    public boolean mightContain(String symbol) {
+        return mightContain(hash(symbol));
+    }
+
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int k = 0; k < HASHES; k++) {
+            int bit = (h1 + k * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int k = 0; k < HASHES; k++) {
+            int bit = (h1 + k * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static long step(long hash, byte b) {
+        return (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+
+    private static boolean isIdentifier(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '_' || b == '$' || b < 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.scanner.output;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The little JSON the writers need: quoted strings with RFC 8259 escaping.
+ */
+final class Json {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Json() {
+    }
+
+    static void string(Writer out, String value) throws IOException {
+        out.write('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(value, from, i - from);
+            from = i + 1;
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+            }
+        }
+        out.write(value, from, value.length() - from);
+        out.write('"');
+    }
+
+    static void field(Writer out, String name, String value) throws IOException {
+        string(out, name);
+        out.write(':');
+        string(out, value);
+    }
+
+    static void field(Writer out, String name, long value) throws IOException {
+        string(out, name);
+        out.write(':');
+        out.write(Long.toString(value));
+    }
+}
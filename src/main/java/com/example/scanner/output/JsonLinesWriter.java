@@ -0,0 +1,61 @@
+package com.example.scanner.output;
+
+import com.example.scanner.FileResult;
+import com.example.scanner.Finding;
+import com.example.scanner.FindingWriter;
+import com.example.scanner.Rule;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes one JSON object per line: a finding with {@code ruleId},
+ * {@code ruleName}, {@code path}, {@code line}, {@code column} and
+ * {@code message}, or a {@code path} with the {@code error} that kept it
+ * from being scanned. Each line is complete on its own, so the output can
+ * be consumed while the scan is still running.
+ */
+public final class JsonLinesWriter implements FindingWriter {
+
+    private final Writer out;
+
+    public JsonLinesWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void start(List<Rule> rules) {
+    }
+
+    @Override
+    public void write(FileResult file) throws IOException {
+        if (file.failed()) {
+            out.write('{');
+            Json.field(out, "path", file.path());
+            out.write(',');
+            Json.field(out, "error", file.error());
+            out.write("}\n");
+        }
+        for (Finding finding : file.findings()) {
+            out.write('{');
+            Json.field(out, "ruleId", finding.ruleId());
+            out.write(',');
+            Json.field(out, "ruleName", finding.ruleName());
+            out.write(',');
+            Json.field(out, "path", finding.path());
+            out.write(',');
+            Json.field(out, "line", finding.line());
+            out.write(',');
+            Json.field(out, "column", finding.column());
+            out.write(',');
+            Json.field(out, "message", finding.message());
+            out.write("}\n");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
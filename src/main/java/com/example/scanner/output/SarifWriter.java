@@ -0,0 +1,157 @@
+package com.example.scanner.output;
+
+import com.example.scanner.FileResult;
+import com.example.scanner.Finding;
+import com.example.scanner.FindingWriter;
+import com.example.scanner.Rule;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a SARIF 2.1.0 log with a single run. The rule table goes out in
+ * {@link #start(List)}, each result as soon as its file arrives, one per
+ * line, and the closing invocation with any read errors in
+ * {@link #close()}. Only the read errors are kept until the end. A run that
+ * was aborted is reported as unsuccessful, with the cause as a
+ * notification; one aborted before it started writes nothing.
+ */
+public final class SarifWriter implements FindingWriter {
+
+    private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+
+    private final Writer out;
+    private final String toolName;
+    private final String toolVersion;
+    private final Map<String, Integer> ruleIndex = new HashMap<>();
+    private final List<FileResult> failures = new ArrayList<>();
+    private boolean firstResult = true;
+    private boolean started;
+    private Throwable aborted;
+
+    public SarifWriter(Writer out, String toolName, String toolVersion) {
+        this.out = out;
+        this.toolName = toolName;
+        this.toolVersion = toolVersion;
+    }
+
+    @Override
+    public void start(List<Rule> rules) throws IOException {
+        started = true;
+        out.write('{');
+        Json.field(out, "$schema", SCHEMA);
+        out.write(',');
+        Json.field(out, "version", "2.1.0");
+        out.write(",\"runs\":[{\"tool\":{\"driver\":{");
+        Json.field(out, "name", toolName);
+        out.write(',');
+        Json.field(out, "version", toolVersion);
+        out.write(",\"rules\":[\n");
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            ruleIndex.put(rule.id(), i);
+            out.write(i == 0 ? "{" : ",\n{");
+            Json.field(out, "id", rule.id());
+            out.write(',');
+            Json.field(out, "name", rule.name());
+            out.write('}');
+        }
+        out.write("\n]}},\"results\":[");
+    }
+
+    @Override
+    public void write(FileResult file) throws IOException {
+        if (file.failed()) {
+            failures.add(file);
+            return;
+        }
+        for (Finding finding : file.findings()) {
+            out.write(firstResult ? "\n{" : ",\n{");
+            firstResult = false;
+            Json.field(out, "ruleId", finding.ruleId());
+            Integer index = ruleIndex.get(finding.ruleId());
+            if (index != null) {
+                out.write(',');
+                Json.field(out, "ruleIndex", index);
+            }
+            out.write(',');
+            Json.field(out, "level", "warning");
+            out.write(",\"message\":{");
+            Json.field(out, "text", finding.message());
+            out.write("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{");
+            Json.field(out, "uri", uri(finding.path()));
+            out.write("},\"region\":{");
+            Json.field(out, "startLine", finding.line());
+            out.write(',');
+            Json.field(out, "startColumn", finding.column());
+            out.write("}}}]}");
+        }
+    }
+
+    @Override
+    public void abort(Throwable cause) {
+        if (aborted == null) {
+            aborted = cause;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!started) {
+                return;
+            }
+            out.write("\n],\"invocations\":[{\"executionSuccessful\":");
+            out.write(failures.isEmpty() && aborted == null ? "true" : "false");
+            out.write(",\"toolExecutionNotifications\":[");
+            for (int i = 0; i < failures.size(); i++) {
+                FileResult file = failures.get(i);
+                out.write(i == 0 ? "\n{" : ",\n{");
+                Json.field(out, "level", "error");
+                out.write(",\"message\":{");
+                Json.field(out, "text", file.error());
+                out.write("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{");
+                Json.field(out, "uri", uri(file.path()));
+                out.write("}}}]}");
+            }
+            if (aborted != null) {
+                out.write(failures.isEmpty() ? "\n{" : ",\n{");
+                Json.field(out, "level", "error");
+                out.write(",\"message\":{");
+                Json.field(out, "text", "scan aborted: " + aborted);
+                out.write("},\"exception\":{");
+                Json.field(out, "kind", aborted.getClass().getName());
+                if (aborted.getMessage() != null) {
+                    out.write(',');
+                    Json.field(out, "message", aborted.getMessage());
+                }
+                out.write("}}");
+            }
+            out.write("]}]}]}\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Turns a file path into a relative URI reference, or an absolute
+     * {@code file:} URI for absolute paths.
+     */
+    static String uri(String path) {
+        String slashed = path.replace('\\', '/');
+        try {
+            if (slashed.startsWith("/")) {
+                return new URI("file", null, slashed, null).toASCIIString();
+            }
+            return new URI(null, null, slashed, null).toASCIIString();
+        } catch (URISyntaxException e) {
+            return slashed;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.scanner.output;
+
+import com.example.scanner.FileResult;
+import com.example.scanner.Finding;
+import com.example.scanner.FindingWriter;
+import com.example.scanner.Rule;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes one {@code path:line:column: rule-id Name: message} line per
+ * finding, and read errors to a separate stream.
+ */
+public final class TextWriter implements FindingWriter {
+
+    private final Writer out;
+    private final PrintStream errors;
+
+    public TextWriter(Writer out, PrintStream errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    @Override
+    public void start(List<Rule> rules) {
+    }
+
+    @Override
+    public void write(FileResult file) throws IOException {
+        if (file.failed()) {
+            errors.println(file.path() + ": " + file.error());
+        }
+        for (Finding finding : file.findings()) {
+            out.write(finding.toString());
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
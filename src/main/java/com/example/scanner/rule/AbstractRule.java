@@ -0,0 +1,69 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.Rule;
+import com.example.scanner.SourceFile;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Base class holding the rule identity and the shared reporting logic.
+ */
+abstract class AbstractRule implements Rule {
+
+    /**
+     * Package steps of JDBC, JPA, Hibernate, MyBatis and Spring JDBC; rules
+     * reading embedded SQL require one of them.
+     */
+    static final Set<String> DATABASE_API = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "java.sql", "javax.sql", "javax.persistence", "jakarta.persistence", "org.hibernate",
+            "apache.ibatis", "springframework.jdbc")));
+
+    private final String id;
+    private final String name;
+
+    AbstractRule(int number, String name) {
+        this.id = String.format("sql-java-%03d", number);
+        this.name = name;
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Reports a finding at {@code offset} unless this rule already reported
+     * the same line. Rules report in ascending offset order, so only the most
+     * recent finding needs checking.
+     */
+    void report(SourceFile source, int offset, String message, List<Finding> findings) {
+        int line = source.lineOf(offset);
+        if (!findings.isEmpty()) {
+            Finding last = findings.get(findings.size() - 1);
+            if (last.line() == line && last.ruleId().equals(id)) {
+                return;
+            }
+        }
+        findings.add(new Finding(id, name, source.path(), line, source.columnOf(offset), message));
+    }
+
+    static String snippet(CharSequence text, int start, int end) {
+        String s = text.subSequence(start, Math.min(end, start + 60)).toString();
+        return s.replaceAll("\\s+", " ").trim();
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + name;
+    }
+}
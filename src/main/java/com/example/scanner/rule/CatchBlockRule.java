@@ -0,0 +1,75 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flags {@code catch} clauses for the given exception types. When
+ * {@code printOnly} is set, only handlers whose body does nothing but print
+ * the exception are reported, at the first statement of the handler.
+ */
+final class CatchBlockRule extends AbstractRule {
+
+    private static final Pattern CATCH = Pattern.compile(
+            "\\bcatch\\s*\\(\\s*(?:final\\s+)?([\\w.|\\s]+?)\\s+\\w+\\s*\\)\\s*\\{");
+
+    private static final Pattern PRINT = Pattern.compile(
+            "(?s)(System\\s*\\.\\s*(out|err)\\s*\\.\\s*print\\w*\\s*\\(.*\\)|\\w+\\s*\\.\\s*printStackTrace\\s*\\(\\s*\\))");
+
+    private final Pattern types;
+    private final boolean printOnly;
+
+    CatchBlockRule(int number, String name, String types, boolean printOnly) {
+        super(number, name);
+        this.types = Pattern.compile("\\b(" + types + ")\\b");
+        this.printOnly = printOnly;
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        String skeleton = source.skeleton();
+        Matcher m = CATCH.matcher(skeleton);
+        while (m.find()) {
+            if (!types.matcher(m.group(1)).find()) {
+                continue;
+            }
+            if (!printOnly) {
+                report(source, m.start(), "catch (" + m.group(1).trim() + ")", findings);
+                continue;
+            }
+            int end = source.blockEnd(m.end() - 1) - 1;
+            if (onlyPrints(source.code(), m.end(), end)) {
+                report(source, firstStatement(source.code(), m.end(), end),
+                        m.group(1).trim() + " handler only prints the exception", findings);
+            }
+        }
+    }
+
+    private static int firstStatement(String code, int from, int to) {
+        int i = from;
+        while (i < to && Character.isWhitespace(code.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean onlyPrints(String code, int from, int to) {
+        String body = code.substring(from, Math.max(from, to));
+        boolean any = false;
+        for (String statement : body.split(";")) {
+            String s = statement.trim();
+            if (s.isEmpty()) {
+                continue;
+            }
+            if (!PRINT.matcher(s).matches()) {
+                return false;
+            }
+            any = true;
+        }
+        return any;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a regular expression against the source text with comments removed.
+ * By default string literal contents are blanked as well, so log messages
+ * that mention an API do not count as using it; rules that need to see JDBC
+ * URLs or annotation values match against the literals too. A file that
+ * lacks every {@linkplain RequiredLiterals required literal} of the
+ * expression is skipped without running it.
+ */
+final class CodePatternRule extends AbstractRule {
+
+    private final Pattern pattern;
+    private final boolean includeLiterals;
+    private final String[] required;
+
+    CodePatternRule(int number, String name, Pattern pattern, boolean includeLiterals) {
+        super(number, name);
+        this.pattern = pattern;
+        this.includeLiterals = includeLiterals;
+        this.required = RequiredLiterals.of(pattern);
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        String code = includeLiterals ? source.code() : source.skeleton();
+        if (!RequiredLiterals.mayMatch(required, code)) {
+            return;
+        }
+        Matcher m = pattern.matcher(code);
+        while (m.find()) {
+            report(source, m.start(), "matched '" + snippet(code, m.start(), m.end()) + "'", findings);
+        }
+    }
+}
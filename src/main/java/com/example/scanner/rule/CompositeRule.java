@@ -0,0 +1,42 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.Rule;
+import com.example.scanner.SourceFile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A rule whose matches are the union of several detectors sharing its
+ * identity. Findings are merged in source order, one per line.
+ */
+final class CompositeRule extends AbstractRule {
+
+    private static final Comparator<Finding> ORDER =
+            Comparator.comparingInt(Finding::line).thenComparingInt(Finding::column);
+
+    private final List<Rule> parts;
+
+    CompositeRule(int number, String name, List<Rule> parts) {
+        super(number, name);
+        this.parts = parts;
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        List<Finding> merged = new ArrayList<>();
+        for (Rule part : parts) {
+            part.evaluate(source, merged);
+        }
+        merged.sort(ORDER);
+        int lastLine = -1;
+        for (Finding finding : merged) {
+            if (finding.line() != lastLine) {
+                findings.add(finding);
+                lastLine = finding.line();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+import com.example.scanner.SourceFile.Method;
+import com.example.scanner.SourceFile.StringLiteral;
+import com.example.scanner.StringIndex;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Flags SQL string literals that end up in a tainted {@link StringIndex}
+ * entry, i.e. are joined with {@code +} or appended to a builder together
+ * with a value that is not a constant. This is the shape shared by the
+ * injection and type-mapping rules. A literal counts as SQL when it starts a
+ * statement or is a clause fragment that ends where a value would be
+ * spliced in. When a sanitizer pattern is given, methods that apply it are
+ * trusted.
+ */
+final class ConcatenatedSqlRule extends AbstractRule {
+
+    private static final Pattern STATEMENT = Pattern.compile(
+            "^\\s*(select|insert|update|delete|merge|call|exec)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern FRAGMENT = Pattern.compile(
+            "(?s)\\b(where|and|or|set|values|in|like)\\b.*(=|\\(|,|'|\\bin|\\blike)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private final Pattern sanitizer;
+
+    ConcatenatedSqlRule(int number, String name, String sanitizer) {
+        super(number, name);
+        this.sanitizer = sanitizer == null ? null : Pattern.compile(sanitizer);
+    }
+
+    @Override
+    public Set<String> requiredSymbols() {
+        return DATABASE_API;
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        StringIndex strings = StringIndex.of(source);
+        List<StringLiteral> literals = source.literals();
+        for (int i = 0; i < literals.size(); i++) {
+            StringLiteral literal = literals.get(i);
+            if (!strings.tainted(strings.entryOf(i))) {
+                continue;
+            }
+            String value = literal.value();
+            if (!STATEMENT.matcher(value).find() && !FRAGMENT.matcher(value).find()) {
+                continue;
+            }
+            if (sanitizer != null && sanitized(source, literal.start())) {
+                continue;
+            }
+            report(source, literal.start(), "SQL built by concatenating a non-constant value", findings);
+        }
+    }
+
+    private boolean sanitized(SourceFile source, int offset) {
+        for (Method method : source.methods()) {
+            if (method.bodyStart() <= offset && offset < method.bodyEnd()
+                    && sanitizer.matcher(source.code().subSequence(method.bodyStart(), method.bodyEnd())).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
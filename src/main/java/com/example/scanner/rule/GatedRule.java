@@ -0,0 +1,53 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.Rule;
+import com.example.scanner.SourceFile;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Restricts a rule to files containing one of the given symbols, typically
+ * the package step of the framework it detects, e.g. {@code org.hibernate}.
+ * The engine checks the symbols before evaluating; the wrapped rule runs
+ * unchanged.
+ */
+final class GatedRule implements Rule {
+
+    private final Rule rule;
+    private final Set<String> symbols;
+
+    GatedRule(Rule rule, String... symbols) {
+        this.rule = rule;
+        this.symbols = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(symbols)));
+    }
+
+    @Override
+    public String id() {
+        return rule.id();
+    }
+
+    @Override
+    public String name() {
+        return rule.name();
+    }
+
+    @Override
+    public Set<String> requiredSymbols() {
+        return symbols;
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        rule.evaluate(source, findings);
+    }
+
+    @Override
+    public String toString() {
+        return rule.toString();
+    }
+}
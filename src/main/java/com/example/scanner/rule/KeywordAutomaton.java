@@ -0,0 +1,138 @@
+package com.example.scanner.rule;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over a fixed set of ASCII keywords, matched
+ * case-insensitively.
+ *
+ * <p>The failure links are folded into a dense transition table at build
+ * time, so scanning costs one array lookup per character regardless of how
+ * many keywords there are, and every keyword ending at a position is
+ * reported in the same step. Characters outside ASCII cannot occur in a
+ * keyword and simply return the automaton to its root. Scanning allocates
+ * nothing; matches are pushed to a {@link Listener}.
+ */
+final class KeywordAutomaton {
+
+    private static final int ALPHABET = 128;
+    private static final int[] NONE = new int[0];
+
+    private final int[] lengths;
+    private final int[] delta;
+    private final int[][] outputs;
+
+    /**
+     * Receives matches in order of their end offset. Keywords are identified
+     * by their index in the list the automaton was built from.
+     */
+    interface Listener {
+
+        void onMatch(int keyword, int start, int end);
+    }
+
+    KeywordAutomaton(List<String> keywords) {
+        lengths = new int[keywords.size()];
+        int capacity = 1;
+        for (String keyword : keywords) {
+            capacity += keyword.length();
+        }
+
+        int[] trie = new int[capacity * ALPHABET];
+        Arrays.fill(trie, -1);
+        int[][] own = new int[capacity][];
+        int states = 1;
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Empty keyword");
+            }
+            lengths[k] = keyword.length();
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int c = fold(keyword.charAt(i));
+                if (c == 0) {
+                    throw new IllegalArgumentException("Non-ASCII keyword: " + keyword);
+                }
+                int next = trie[state * ALPHABET + c];
+                if (next < 0) {
+                    next = states++;
+                    trie[state * ALPHABET + c] = next;
+                }
+                state = next;
+            }
+            own[state] = append(own[state], k);
+        }
+
+        delta = Arrays.copyOf(trie, states * ALPHABET);
+        outputs = new int[states][];
+        int[] fail = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = NONE;
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = delta[c];
+            if (next < 0) {
+                delta[c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] inherited = outputs[fail[state]];
+            outputs[state] = own[state] == null ? inherited : concat(own[state], inherited);
+            for (int c = 0; c < ALPHABET; c++) {
+                int index = state * ALPHABET + c;
+                int next = delta[index];
+                int fallback = delta[fail[state] * ALPHABET + c];
+                if (next < 0) {
+                    delta[index] = fallback;
+                } else {
+                    fail[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports every keyword occurrence in {@code text}, overlapping ones
+     * included.
+     */
+    void scan(CharSequence text, Listener listener) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = delta[state * ALPHABET + fold(text.charAt(i))];
+            int[] matched = outputs[state];
+            for (int k : matched) {
+                listener.onMatch(k, i + 1 - lengths[k], i + 1);
+            }
+        }
+    }
+
+    private static int fold(char c) {
+        if (c >= ALPHABET) {
+            return 0;
+        }
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static int[] append(int[] values, int value) {
+        if (values == null) {
+            return new int[] {value};
+        }
+        int[] grown = Arrays.copyOf(values, values.length + 1);
+        grown[values.length] = value;
+        return grown;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.scanner.rule;
+
+import java.util.Arrays;
+
+/**
+ * Keyword matches found in a file's folded strings, in entry order. Each
+ * hit is four packed ints: the {@link com.example.scanner.StringIndex} entry,
+ * the rule number, and the start and end of the verified match within the
+ * entry text.
+ */
+final class KeywordHits {
+
+    private int[] data = new int[32];
+    private int size;
+
+    void add(int entry, int rule, int start, int end) {
+        if (size * 4 == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        int at = size * 4;
+        data[at] = entry;
+        data[at + 1] = rule;
+        data[at + 2] = start;
+        data[at + 3] = end;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int entry(int hit) {
+        return data[hit * 4];
+    }
+
+    int rule(int hit) {
+        return data[hit * 4 + 1];
+    }
+
+    int start(int hit) {
+        return data[hit * 4 + 2];
+    }
+
+    int end(int hit) {
+        return data[hit * 4 + 3];
+    }
+}
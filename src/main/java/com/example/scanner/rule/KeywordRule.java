@@ -0,0 +1,44 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Analysis;
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+import com.example.scanner.StringIndex;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reports the folded strings in which a shared keyword index found a match
+ * for this rule. The index is computed once per file for all rules that use
+ * it, so adding a keyword rule adds no extra pass over the strings.
+ */
+final class KeywordRule extends AbstractRule {
+
+    private final int number;
+    private final Analysis<KeywordHits> index;
+
+    KeywordRule(int number, String name, Analysis<KeywordHits> index) {
+        super(number, name);
+        this.number = number;
+        this.index = index;
+    }
+
+    @Override
+    public Set<String> requiredSymbols() {
+        return DATABASE_API;
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        KeywordHits hits = source.analysis(index);
+        StringIndex strings = StringIndex.of(source);
+        for (int i = 0; i < hits.size(); i++) {
+            if (hits.rule(i) == number) {
+                int entry = hits.entry(i);
+                report(source, strings.offset(entry),
+                        "SQL contains '" + snippet(strings.text(entry), hits.start(i), hits.end(i)) + "'", findings);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+import com.example.scanner.SourceFile.Method;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flags methods whose body matches {@code required} and does not match
+ * {@code forbidden}. Used for properties of a whole method, such as a
+ * connection that is opened but never released. Findings point at the first
+ * {@code required} match.
+ */
+final class MethodRule extends AbstractRule {
+
+    private final Pattern required;
+    private final Pattern forbidden;
+
+    MethodRule(int number, String name, String required, String forbidden) {
+        super(number, name);
+        this.required = Pattern.compile(required);
+        this.forbidden = forbidden == null ? null : Pattern.compile(forbidden);
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        String code = source.code();
+        for (Method method : source.methods()) {
+            CharSequence body = code.subSequence(method.bodyStart(), method.bodyEnd());
+            Matcher m = required.matcher(body);
+            if (m.find() && (forbidden == null || !forbidden.matcher(body).find())) {
+                report(source, method.bodyStart() + m.start(), "method " + method.name() + "()", findings);
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.scanner.rule;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Derives from a regular expression a set of literals of which every match
+ * contains at least one, so a text containing none of them can be skipped
+ * without running the expression.
+ *
+ * <p>{@link Pattern#matcher} tries the expression at every offset, which for
+ * the patterns of this catalog costs tens of nanoseconds per character,
+ * while {@link String#indexOf(String)} scans for a literal many times
+ * faster. The analysis is conservative: each top-level alternative must
+ * yield a run of plain characters that it always matches, or a required
+ * group whose own alternatives all do, and the shortest literal of the
+ * best choice must be at least {@link #MIN_LENGTH} characters long.
+ * Otherwise, and for any expression with flags or constructs the analysis
+ * does not know, no literals are derived and the expression always runs.
+ */
+final class RequiredLiterals {
+
+    static final int MIN_LENGTH = 3;
+
+    private static final String[] NONE = new String[0];
+
+    /**
+     * Escapes that stand for a single character class or a zero-width
+     * assertion, never for a literal.
+     */
+    private static final String SIMPLE_ESCAPES = "bBAGZzsSdDwWhHvVRXtnrfae";
+
+    private RequiredLiterals() {
+    }
+
+    /**
+     * Returns literals of which every match of {@code pattern} contains one,
+     * or an empty array if there are none worth checking.
+     */
+    static String[] of(Pattern pattern) {
+        if (pattern.flags() != 0) {
+            return NONE;
+        }
+        try {
+            Set<String> literals = alternatives(pattern.pattern(), 0, pattern.pattern().length());
+            return literals == null ? NONE : literals.toArray(NONE);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Returns whether {@code text} contains one of {@code literals}, or true
+     * if there are none.
+     */
+    static boolean mayMatch(String[] literals, String text) {
+        if (literals.length == 0) {
+            return true;
+        }
+        for (String literal : literals) {
+            if (text.contains(literal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the literals required by {@code regex[from, to)}, one set per
+     * alternative merged, or null if some alternative requires none.
+     */
+    private static Set<String> alternatives(String regex, int from, int to) {
+        Set<String> literals = new LinkedHashSet<>();
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || regex.charAt(i) == '|') {
+                List<String> required = sequence(regex, start, i);
+                if (required == null) {
+                    return null;
+                }
+                literals.addAll(required);
+                start = i + 1;
+            } else {
+                i = skipAtom(regex, i, to) - 1;
+            }
+        }
+        return literals;
+    }
+
+    /**
+     * Returns the best literals required by one alternative, or null if it
+     * has none of at least {@link #MIN_LENGTH} characters.
+     */
+    private static List<String> sequence(String regex, int from, int to) {
+        List<String> best = null;
+        StringBuilder run = new StringBuilder();
+        int i = from;
+        while (i < to) {
+            char c = regex.charAt(i);
+            int end = skipAtom(regex, i, to);
+            boolean optional = end < to && "?*{".indexOf(regex.charAt(end)) >= 0;
+            int next = skipQuantifier(regex, end, to);
+            if (c == '\\' && !Character.isLetterOrDigit(regex.charAt(i + 1)) || ".^$[()".indexOf(c) < 0 && c != '\\') {
+                if (optional) {
+                    best = better(best, run);
+                    run.setLength(0);
+                } else {
+                    run.append(c == '\\' ? regex.charAt(i + 1) : c);
+                    if (next != end) {
+                        best = better(best, run);
+                        run.setLength(0);
+                    }
+                }
+            } else {
+                best = better(best, run);
+                run.setLength(0);
+                if (c == '(' && !optional) {
+                    Set<String> group = group(regex, i, end);
+                    if (group != null) {
+                        best = better(best, new ArrayList<>(group));
+                    }
+                }
+            }
+            i = next;
+        }
+        return better(best, run);
+    }
+
+    /**
+     * Returns the literals required by the group spanning {@code [from, to)},
+     * or null if it is a negative lookaround or requires none. Flags would
+     * change how the rest of the expression matches, so they end the
+     * analysis.
+     */
+    private static Set<String> group(String regex, int from, int to) {
+        int body = from + 1;
+        if (regex.charAt(body) == '?') {
+            char kind = regex.charAt(body + 1);
+            if (kind == ':' || kind == '=' || kind == '>') {
+                body += 2;
+            } else if (kind == '<' && regex.charAt(body + 2) == '=') {
+                body += 3;
+            } else if (kind == '<' && Character.isLetter(regex.charAt(body + 2))) {
+                body = regex.indexOf('>', body) + 1;
+            } else if (kind == '!' || kind == '<' && regex.charAt(body + 2) == '!') {
+                return null;
+            } else {
+                throw new IllegalArgumentException("flags at " + from);
+            }
+        }
+        return alternatives(regex, body, to - 1);
+    }
+
+    private static List<String> better(List<String> best, CharSequence run) {
+        return run.length() == 0 ? best : better(best, List.of(run.toString()));
+    }
+
+    /**
+     * Keeps whichever set has the longer shortest literal, provided it is
+     * long enough to be worth a scan.
+     */
+    private static List<String> better(List<String> best, List<String> candidate) {
+        int length = shortest(candidate);
+        if (length < MIN_LENGTH || best != null && shortest(best) >= length) {
+            return best;
+        }
+        return candidate;
+    }
+
+    private static int shortest(List<String> literals) {
+        int length = Integer.MAX_VALUE;
+        for (String literal : literals) {
+            length = Math.min(length, literal.length());
+        }
+        return literals.isEmpty() ? 0 : length;
+    }
+
+    /**
+     * Returns the end of the atom starting at {@code i}: an escape, a
+     * character class, a group or a single character.
+     */
+    private static int skipAtom(String regex, int i, int to) {
+        char c = regex.charAt(i);
+        if (c == '\\') {
+            char escaped = regex.charAt(i + 1);
+            if (!Character.isLetterOrDigit(escaped) || SIMPLE_ESCAPES.indexOf(escaped) >= 0) {
+                return i + 2;
+            }
+            if (escaped == 'p' || escaped == 'P') {
+                return regex.charAt(i + 2) == '{' ? regex.indexOf('}', i) + 1 : i + 3;
+            }
+            if (escaped >= '1' && escaped <= '9') {
+                int j = i + 2;
+                while (j < to && Character.isDigit(regex.charAt(j))) {
+                    j++;
+                }
+                return j;
+            }
+            throw new IllegalArgumentException("escape \\" + escaped + " at " + i);
+        }
+        if (c == '[') {
+            int depth = 0;
+            int j = i;
+            do {
+                char d = regex.charAt(j);
+                if (d == '\\') {
+                    j++;
+                } else if (d == '[') {
+                    depth++;
+                    if (regex.charAt(j + 1) == '^') {
+                        j++;
+                    }
+                    if (regex.charAt(j + 1) == ']') {
+                        j++;
+                    }
+                } else if (d == ']') {
+                    depth--;
+                }
+                j++;
+            } while (depth > 0);
+            return j;
+        }
+        if (c == '(') {
+            int j = i + 1;
+            while (regex.charAt(j) != ')') {
+                j = skipAtom(regex, j, to);
+            }
+            return j + 1;
+        }
+        if (c == ')') {
+            throw new IllegalArgumentException("unbalanced group at " + i);
+        }
+        return i + 1;
+    }
+
+    /**
+     * Returns the end of the quantifier at {@code i}, or {@code i} if there
+     * is none.
+     */
+    private static int skipQuantifier(String regex, int i, int to) {
+        if (i >= to) {
+            return i;
+        }
+        char c = regex.charAt(i);
+        int end;
+        if (c == '?' || c == '*' || c == '+') {
+            end = i + 1;
+        } else if (c == '{') {
+            end = regex.indexOf('}', i) + 1;
+        } else {
+            return i;
+        }
+        if (end < to && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) {
+            end++;
+        }
+        return end;
+    }
+}
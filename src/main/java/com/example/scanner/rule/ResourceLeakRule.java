@@ -0,0 +1,119 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+import com.example.scanner.SourceFile.Method;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flags JDBC resources acquired outside a try-with-resources header. With
+ * {@code requireFinally} set, resources released in a {@code finally} block
+ * are accepted; an incomplete {@code finally} block is reported at its first
+ * statement and a missing one at the acquisition.
+ */
+final class ResourceLeakRule extends AbstractRule {
+
+    private static final Pattern ACQUIRE = Pattern.compile(
+            "\\b(\\w+)\\s*=\\s*(?:\\(\\s*\\w+\\s*\\)\\s*)?[\\w.]*?\\b"
+                    + "(getConnection|prepareStatement|prepareCall|createStatement|executeQuery)\\s*\\(");
+
+    private static final Pattern TRY_WITH_RESOURCES = Pattern.compile("\\btry\\s*\\(");
+
+    private static final Pattern FINALLY = Pattern.compile("\\bfinally\\s*\\{");
+
+    private final boolean requireFinally;
+
+    ResourceLeakRule(int number, String name, boolean requireFinally) {
+        super(number, name);
+        this.requireFinally = requireFinally;
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        String skeleton = source.skeleton();
+        for (Method method : source.methods()) {
+            CharSequence body = skeleton.subSequence(method.bodyStart(), method.bodyEnd());
+            List<int[]> headers = spans(body, TRY_WITH_RESOURCES, '(', ')');
+            List<int[]> finallyBlocks = spans(body, FINALLY, '{', '}');
+
+            List<String> unclosed = new ArrayList<>();
+            int firstUnclosed = -1;
+            Matcher m = ACQUIRE.matcher(body);
+            while (m.find()) {
+                if (within(headers, m.start())) {
+                    continue;
+                }
+                String variable = m.group(1);
+                if (!requireFinally) {
+                    report(source, method.bodyStart() + m.start(),
+                            variable + " is not managed by try-with-resources", findings);
+                } else if (!closedIn(body, finallyBlocks, variable) && !unclosed.contains(variable)) {
+                    unclosed.add(variable);
+                    if (firstUnclosed < 0) {
+                        firstUnclosed = method.bodyStart() + m.start();
+                    }
+                }
+            }
+            if (unclosed.isEmpty()) {
+                continue;
+            }
+            if (finallyBlocks.isEmpty()) {
+                report(source, firstUnclosed, String.join(", ", unclosed) + " never released in a finally block", findings);
+            } else {
+                int[] block = finallyBlocks.get(finallyBlocks.size() - 1);
+                int offset = block[0] + 1;
+                while (offset < block[1] && Character.isWhitespace(body.charAt(offset))) {
+                    offset++;
+                }
+                report(source, method.bodyStart() + offset,
+                        "finally block does not close " + String.join(", ", unclosed), findings);
+            }
+        }
+    }
+
+    /**
+     * Returns the bracketed spans that follow each match of {@code opener},
+     * as offsets of the opening and closing bracket.
+     */
+    private static List<int[]> spans(CharSequence body, Pattern opener, char open, char close) {
+        List<int[]> spans = new ArrayList<>();
+        Matcher m = opener.matcher(body);
+        while (m.find()) {
+            int start = m.end() - 1;
+            int depth = 0;
+            for (int i = start; i < body.length(); i++) {
+                char c = body.charAt(i);
+                if (c == open) {
+                    depth++;
+                } else if (c == close && --depth == 0) {
+                    spans.add(new int[] {start, i});
+                    break;
+                }
+            }
+        }
+        return spans;
+    }
+
+    private static boolean within(List<int[]> spans, int offset) {
+        for (int[] span : spans) {
+            if (span[0] <= offset && offset <= span[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean closedIn(CharSequence body, List<int[]> blocks, String variable) {
+        Pattern close = Pattern.compile("\\b" + variable + "\\s*\\.\\s*close\\s*\\(|\\bclose\\w*\\s*\\(\\s*" + variable + "\\s*\\)");
+        for (int[] block : blocks) {
+            if (close.matcher(body.subSequence(block[0], block[1])).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
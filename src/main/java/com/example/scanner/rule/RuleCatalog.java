@@ -0,0 +1,346 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The sql-java-001..200 rule set. Each entry is exercised by the fixture
+ * with the same number under {@code testdata/}.
+ */
+public final class RuleCatalog {
+
+    /**
+     * Bumped whenever a rule is added, removed or changes what it matches.
+     */
+    public static final String VERSION = "4";
+
+    private RuleCatalog() {
+    }
+
+    public static List<Rule> defaultRules() {
+        List<Rule> rules = new ArrayList<>(200);
+
+        // Connections, drivers and pools
+        rules.add(code(1, "JdbcConnectionUsage", "\\bConnection\\s+\\w+\\s*[=;,)]"));
+        rules.add(code(2, "DriverManagerUsage", "\\bDriverManager\\s*\\."));
+        rules.add(text(3, "SqlServerJdbcDriverUsage", "com\\.microsoft\\.sqlserver\\.jdbc|jdbc:sqlserver:|\\bSQLServer\\w*DataSource\\b"));
+        rules.add(text(4, "JtdsDriverUsage", "net\\.sourceforge\\.jtds|jdbc:jtds:|\\bJtdsDataSource\\b"));
+        rules.add(code(5, "DataSourceUsage", "\\bDataSource\\s+\\w+\\s*[=;,)]"));
+        rules.add(requires(code(6, "HikariCpUsage", "\\bHikari(Config|DataSource|PoolMXBean)\\b"), "zaxxer"));
+        rules.add(requires(code(7, "DbcpUsage", "\\b(BasicDataSource(Factory)?|PoolingDataSource|PoolableConnectionFactory)\\b"), "dbcp", "dbcp2"));
+        rules.add(requires(code(8, "C3p0Usage", "\\bComboPooledDataSource\\b|\\bDataSources\\s*\\.\\s*pooledDataSource"), "c3p0"));
+        rules.add(requires(code(9, "TomcatJdbcPoolUsage", "\\bPoolProperties\\b|\\borg\\.apache\\.tomcat\\.jdbc\\.pool\\.DataSource\\b"
+                + "|\\bnew\\s+DataSource\\s*\\("), "tomcat"));
+        rules.add(text(10, "JndiDataSourceUsage", "\\bnew\\s+InitialContext\\s*\\(|\\.lookup\\s*\\(\\s*\"java:"));
+        rules.add(sql(11, "ConnectionStringHardcoding", "^jdbc:\\w+:"));
+        rules.add(text(12, "JdbcUrlConfiguration", "\\bset(Jdbc)?(Url|URL)\\s*\\(|\"jdbc:\\w+:"));
+        rules.add(code(13, "PropertiesFileConfiguration", "\\.load\\s*\\(|\\.getProperty\\s*\\("));
+        rules.add(text(14, "ApplicationYmlConfiguration", "@Value\\s*\\(\\s*\"\\$\\{|@ConfigurationProperties\\b"
+                + "|\\bgetProperty\\s*\\(\\s*\"spring\\.datasource"));
+        rules.add(text(15, "ConnectionTimeoutConfiguration", "\\bset(Connection|Login|Checkout|Connect)Timeout\\s*\\("
+                + "|\\bsetMaxWait(Millis)?\\s*\\(|[\"?&;](connectTimeout|loginTimeout|connectionTimeout)="));
+        rules.add(text(16, "CommandTimeoutConfiguration", "\\bsetQueryTimeout\\s*\\(|[\"?&;](queryTimeout|socketTimeout)="
+                + "|\\bsetDefaultQueryTimeout\\s*\\("));
+        rules.add(text(17, "MaxPoolSizeConfiguration", "\\bsetMax(imumPoolSize|PoolSize|Total|Active|Idle)\\s*\\("
+                + "|\"(maximumPoolSize|maxPoolSize|maxTotal|maxActive)\""));
+        rules.add(text(18, "MinPoolSizeConfiguration", "\\bset(MinimumIdle|MinPoolSize|MinIdle|InitialSize|InitialPoolSize)\\s*\\("
+                + "|\"(minimumIdle|minPoolSize|minIdle|initialSize)\""));
+        rules.add(code(19, "ConnectionValidationConfiguration", "\\bset(ConnectionTestQuery|ValidationQuery|TestOnBorrow"
+                + "|TestOnReturn|TestWhileIdle|PreferredTestQuery|TestConnectionOnCheckout|TestConnectionOnCheckin"
+                + "|IdleConnectionTestPeriod|ValidationInterval|ValidationTimeout|ValidationQueryTimeout)\\s*\\("
+                + "|\\.isValid\\s*\\("));
+
+        // SQL statements and T-SQL dialect
+        rules.add(sql(20, "SelectStatementUsage", "^\\s*\\(?\\s*SELECT\\b"));
+        rules.add(sql(21, "InsertStatementUsage", "^\\s*INSERT\\s+INTO\\b"));
+        rules.add(sql(22, "UpdateStatementUsage", "^\\s*UPDATE\\s+\\S+"));
+        rules.add(sql(23, "DeleteStatementUsage", "^\\s*DELETE\\s+(FROM\\b|\\w)"));
+        rules.add(tsql(24, "GetDateFunctionUsage"));
+        rules.add(tsql(25, "GetUtcDateFunctionUsage"));
+        rules.add(tsql(26, "IsNullFunctionUsage"));
+        rules.add(tsql(27, "ConvertFunctionUsage"));
+        rules.add(tsql(28, "CastFunctionUsage"));
+        rules.add(tsql(29, "TopClauseUsage"));
+        rules.add(tsql(30, "NolockHintUsage"));
+        rules.add(tsql(31, "DboSchemaUsage"));
+        rules.add(tsql(32, "RowCountUsage"));
+        rules.add(tsql(33, "IdentityUsage"));
+        rules.add(tsql(34, "BeginTransactionUsage"));
+        rules.add(tsql(35, "CommitTransactionUsage"));
+        rules.add(tsql(36, "RollbackTransactionUsage"));
+        rules.add(tsql(37, "ExecStatementUsage"));
+        rules.add(tsql(38, "TempTableUsage"));
+        rules.add(tsql(39, "TableVariableUsage"));
+        rules.add(tsql(40, "DateAddFunctionUsage"));
+        rules.add(tsql(41, "DateDiffFunctionUsage"));
+        rules.add(tsql(42, "LeftFunctionUsage"));
+        rules.add(tsql(43, "RightFunctionUsage"));
+        rules.add(tsql(44, "SubstringFunctionUsage"));
+        rules.add(tsql(45, "LenFunctionUsage"));
+        rules.add(tsql(46, "CharIndexFunctionUsage"));
+        rules.add(tsql(47, "PatIndexFunctionUsage"));
+        rules.add(tsql(48, "NewIdFunctionUsage"));
+        rules.add(tsql(49, "OffsetFetchUsage"));
+        rules.add(tsql(50, "CommonTableExpressionUsage"));
+
+        // JDBC API and data-access frameworks
+        rules.add(code(51, "JdbcStatementUsage", "\\bcreateStatement\\s*\\(|\\bStatement\\s+\\w+\\s*[=;,)]"));
+        rules.add(code(52, "PreparedStatementUsage", "\\bprepareStatement\\s*\\(|\\bPreparedStatement\\s+\\w+"));
+        rules.add(code(53, "CallableStatementUsage", "\\bprepareCall\\s*\\(|\\bCallableStatement\\s+\\w+"));
+        rules.add(code(54, "ResultSetUsage", "\\bResultSet\\s+\\w+\\s*[=;,)]"));
+        rules.add(requires(code(55, "JdbcTemplateUsage", "\\bJdbcTemplate\\b"), "springframework"));
+        rules.add(requires(code(56, "NamedParameterJdbcTemplateUsage", "\\bNamedParameterJdbcTemplate\\b"), "springframework"));
+        rules.add(requires(code(57, "HibernateSessionUsage", "\\.(openSession|getCurrentSession|openStatelessSession)\\s*\\("
+                + "|\\bSession\\s+\\w+\\s*[=;,)]"), "hibernate"));
+        rules.add(requires(code(58, "HibernateSessionFactoryUsage", "\\bSessionFactory\\b"), "hibernate"));
+        rules.add(requires(code(59, "HibernateConfigurationUsage", "\\bnew\\s+Configuration\\s*\\(|\\bStandardServiceRegistryBuilder\\b"
+                + "|\\bMetadataSources\\b"), "hibernate"));
+        rules.add(requires(code(60, "HibernateCriteriaUsage", "\\bcreateCriteria\\s*\\(|\\b(Restrictions|Projections|Order)\\s*\\.\\s*\\w+\\s*\\("
+                + "|\\bDetachedCriteria\\b"), "hibernate"));
+        rules.add(requires(code(61, "HibernateHqlUsage", "\\b\\w*[sS]ession\\s*\\.\\s*create(Query|SQLQuery|NativeQuery)\\s*\\("), "hibernate"));
+        rules.add(requires(code(62, "HibernateAnnotationUsage", "@(Type|Cache|BatchSize|Fetch|DynamicUpdate|DynamicInsert|Formula"
+                + "|Where|CreationTimestamp|UpdateTimestamp|NaturalId|GenericGenerator|Filter|FilterDef|Immutable"
+                + "|Cascade|LazyCollection|OptimisticLocking|SelectBeforeUpdate|SQLDelete|SQLInsert|SQLUpdate"
+                + "|Loader|Proxy|ColumnDefault|Check|Subselect|Synchronize|Nationalized)\\b"), "hibernate"));
+        rules.add(requires(code(63, "JpaEntityManagerUsage", "\\bEntityManager\\s+\\w+\\s*[=;,)]"), "persistence"));
+        rules.add(requires(code(64, "JpaEntityManagerFactoryUsage", "\\bEntityManagerFactory\\s+\\w+\\s*[=;,)]"
+                + "|\\bcreateEntityManagerFactory\\s*\\("), "persistence"));
+        rules.add(requires(code(65, "JpaPersistenceContextUsage", "@PersistenceContext\\b"), "persistence"));
+        rules.add(requires(code(66, "JpaPersistenceUnitUsage", "@PersistenceUnit\\b"), "persistence"));
+        rules.add(requires(code(67, "JpaQueryUsage", "\\b(em|entityManager)\\w*\\s*\\.\\s*create(Query|NativeQuery|NamedQuery)\\s*\\("
+                + "|\\bTypedQuery\\s*<"), "persistence"));
+        rules.add(requires(code(68, "JpaNamedQueryUsage", "@NamedQuer(y|ies)\\b|@NamedNativeQuer(y|ies)\\b"
+                + "|\\bcreateNamedQuery\\s*\\("), "persistence"));
+        rules.add(requires(code(69, "JpaCriteriaApiUsage", "\\b(CriteriaBuilder|CriteriaQuery|CriteriaUpdate|CriteriaDelete)\\b"), "persistence"));
+        rules.add(requires(code(70, "JpaEntityAnnotationUsage", "@Entity\\b"), "persistence"));
+        rules.add(requires(code(71, "JpaTableAnnotationUsage", "@Table\\b"), "persistence"));
+        rules.add(requires(code(72, "JpaColumnAnnotationUsage", "@Column\\b"), "persistence"));
+        rules.add(requires(code(73, "MyBatisSqlSessionUsage", "\\bSqlSession\\b"), "ibatis"));
+        rules.add(requires(code(74, "MyBatisSqlSessionFactoryUsage", "\\bSqlSessionFactory(Builder)?\\b"), "ibatis"));
+        rules.add(requires(code(75, "MyBatisMapperUsage", "@Mapper\\b|\\.getMapper\\s*\\("), "ibatis"));
+        rules.add(requires(code(76, "MyBatisAnnotationUsage", "@(Select|Insert|Update|Delete|Results|Result|Options|ResultMap"
+                + "|SelectProvider|InsertProvider|UpdateProvider|DeleteProvider|One|Many|SelectKey)\\s*\\("), "ibatis"));
+        rules.add(requires(text(77, "MyBatisXmlMappingUsage", "\\b(selectOne|selectList|selectMap|insert|update|delete)\\s*\\(\\s*\"[\\w.]+\""
+                + "|\\.getMapper\\s*\\(\\s*\\w+\\.class|\\bXMLMapperBuilder\\b|\"[\\w/]+Mapper\\.xml\""), "ibatis"));
+        rules.add(requires(code(78, "SpringDataRepositoryUsage", "\\bextends\\s+([\\w.]+\\.)?(Repository|CrudRepository"
+                + "|PagingAndSortingRepository|ListCrudRepository|ReactiveCrudRepository|JpaRepository)\\s*<"), "springframework"));
+        rules.add(requires(code(79, "SpringDataJpaRepositoryUsage", "\\bJpaRepository\\s*<"), "springframework"));
+        rules.add(requires(code(80, "SpringDataQueryMethodUsage", "(?m)^(?<!\\)[ \\t]{0,200}\\n)[ \\t]*[\\w.]+(<[^;(){}\\n]*>)?[ \\t]+"
+                + "(find|read|get|query|count|exists|delete|remove|stream)\\w*By\\w+\\s*\\([^)]*\\)\\s*;"), "springframework"));
+        rules.add(requires(code(81, "SpringDataQueryAnnotationUsage", "@Query\\s*\\("), "springframework"));
+        rules.add(requires(code(82, "SpringDataModifyingUsage", "@Modifying\\b"), "springframework"));
+        rules.add(code(83, "SpringDataTransactionalUsage", "@Transactional\\b"));
+        rules.add(requires(text(84, "EclipseLinkEntityManagerUsage", "\\bJpaEntityManager(Factory)?\\b|\\bunwrap\\s*\\(\\s*\\w*Session\\.class"
+                + "|\"eclipselink\\.|\\bPersistenceUnitProperties\\b"), "eclipse", "eclipselink"));
+        rules.add(requires(text(85, "EclipseLinkQueryUsage", "\\b(ReadAllQuery|ReadObjectQuery|UpdateObjectQuery|DeleteObjectQuery"
+                + "|DataModifyQuery|DataReadQuery|ReportQuery|SQLCall|JpaQuery|ExpressionBuilder)\\b"
+                + "|\\bQueryHints\\s*\\.|\"eclipselink\\."), "eclipse", "eclipselink"));
+
+        // Exception handling
+        rules.add(catchOf(86, "SqlExceptionHandling", "SQLException", false));
+        rules.add(code(87, "SqlExceptionGetErrorCodeUsage", "\\.getErrorCode\\s*\\("));
+        rules.add(code(88, "SqlExceptionGetSqlStateUsage", "\\.getSQLState\\s*\\("));
+        rules.add(code(89, "SqlExceptionGetMessageUsage", "\\.getMessage\\s*\\("));
+        rules.add(code(90, "SqlExceptionChainHandling", "\\.getNextException\\s*\\("));
+        rules.add(catchOf(91, "BatchUpdateExceptionHandling", "BatchUpdateException", true));
+        rules.add(requires(catchOf(92, "DataAccessExceptionHandling", "DataAccessException", true), "springframework"));
+        rules.add(requires(catchOf(93, "DataIntegrityViolationExceptionHandling", "DataIntegrityViolationException", true), "springframework"));
+        rules.add(requires(catchOf(94, "DuplicateKeyExceptionHandling", "DuplicateKeyException", true), "springframework"));
+        rules.add(requires(catchOf(95, "CannotAcquireLockExceptionHandling", "CannotAcquireLockException", true), "springframework"));
+        rules.add(requires(catchOf(96, "DeadlockLoserDataAccessExceptionHandling", "DeadlockLoserDataAccessException", true), "springframework"));
+        rules.add(catchOf(97, "QueryTimeoutExceptionHandling", "QueryTimeoutException", true));
+        rules.add(catchOf(98, "ConnectionTimeoutExceptionHandling", "\\w*Exception", true));
+        rules.add(requires(catchOf(99, "HibernateExceptionHandling", "HibernateException", true), "hibernate"));
+        rules.add(requires(catchOf(100, "HibernateJdbcExceptionHandling", "JDBCException", true), "hibernate"));
+        rules.add(catchOf(101, "JpaExceptionHandling", "PersistenceException", true));
+        rules.add(catchOf(102, "PersistenceExceptionHandling", "PersistenceException", true));
+        rules.add(catchOf(103, "OptimisticLockExceptionHandling", "OptimisticLockException", true));
+        rules.add(catchOf(104, "PessimisticLockExceptionHandling", "PessimisticLockException", true));
+        rules.add(catchOf(105, "TransactionRollbackExceptionHandling", "RollbackException", true));
+        rules.add(requires(catchOf(106, "MyBatisExceptionHandling", "PersistenceException", true), "ibatis"));
+
+        // Resource management and security
+        rules.add(leak(107, "ResourceCleanupUsage", false));
+        rules.add(leak(108, "FinallyBlockResourceCleanup", true));
+        rules.add(leak(109, "ConnectionLeakHandling", true));
+        rules.add(concat(110, "SqlInjectionVulnerability"));
+        rules.add(concat(111, "DynamicSqlSecurity"));
+        rules.add(concat(112, "StringConcatenationSqlRisk"));
+        rules.add(concat(113, "PreparedStatementSecurity"));
+        rules.add(concat(114, "ParameterizedQuerySecurity"));
+        rules.add(method(115, "UserInputValidation", "\\bexecute\\w*\\s*\\(", "\\bif\\s*\\(|\\bisValid\\w*\\s*\\("));
+        rules.add(concat(116, "SqlEscapingUsage", "\\.replace(All)?\\s*\\(\\s*\"'\"|escape\\w*\\s*\\("));
+        rules.add(text(117, "DatabaseCredentialsHardcoding", "\\bgetConnection\\s*\\(\\s*\"[^\"]*\"\\s*,\\s*\"[^\"]*\"\\s*,\\s*\"[^\"]*\""
+                + "|\\b\\w*(USER|PASSWORD|PWD)\\w*\\s*=\\s*\""));
+        rules.add(method(118, "PasswordEncryptionUsage", "\\bpassword\\b", "\\bMessageDigest\\b|\\bBase64\\b|\\bencrypt\\w*\\s*\\("
+                + "|\\bhash\\w*\\s*\\("));
+        rules.add(method(119, "DatabaseConnectionEncryption", "\"jdbc:\\w+:", "(?i)(use|require)?ssl\\w*=|encrypt=|sslmode"
+                + "|\"(useSSL|requireSSL|encrypt|ssl)\""));
+        rules.add(text(120, "CertificateValidationUsage", "(?i)trustServerCertificate=true|\"trustServerCertificate\"\\s*,\\s*\"true\""
+                + "|verifyServerCertificate=false|\"verifyServerCertificate\"\\s*,\\s*\"false\"|sslmode=require\\b"
+                + "|useSSL=true(?![^\"]*(verifyServerCertificate|trustServerCertificate))"));
+        rules.add(text(121, "DatabaseAuthenticationUsage", "\"(root|admin|sa|user|dbuser)\"\\s*,\\s*\"(password|admin|root|123456|)\""
+                + "|\\b\\w*(password|Password|PASSWORD|pwd)\\s*=\\s*\"(root|admin\\w*|password|123456|sa|)\""));
+        rules.add(text(122, "WindowsAuthenticationUsage", "(?i)integratedSecurity\"?\\s*[=,]\\s*\"?true|authenticationScheme=NativeAuthentication"));
+        rules.add(text(123, "KerberosAuthenticationUsage", "(?i)kerberos|authenticationScheme\"?\\s*[=,]\\s*\"?JavaKerberos"));
+        rules.add(text(124, "LdapAuthenticationUsage", "(?i)ldap"));
+        rules.add(text(125, "RoleBasedSecurityUsage", "(?i)\\bif\\s*\\(\\s*!?\\s*\"\\w+\"\\s*\\.\\s*equals\\w*\\s*\\(\\s*\\w*role"
+                + "|\\bhasRole\\s*\\(|\\bisUserInRole\\s*\\("));
+        rules.add(text(126, "AccessControlImplementation", "(?i)\\bif\\s*\\([^)]*\\b(role|admin|permission|access)\\w*\\b[^)]*\\)"));
+        rules.add(text(127, "AuditTrailImplementation", "\\bAUDIT\\b|\\b[aA]udit\\w*\\s*[.(]|\\bAudit\\w+"));
+        rules.add(code(128, "DatabasePermissionValidation", "(?i)\\bif\\s*\\([^)]*(role|permission|privilege)"));
+        rules.add(text(129, "SecureConfigurationManagement", "\\bgetConnection\\s*\\(\\s*\"|\\.load\\s*\\(\\s*new\\s+FileInputStream\\s*\\(\\s*\""
+                + "|\\b\\w*([uU]ser|[pP]assword|USER|PASSWORD)\\w*\\s*=\\s*\""
+                + "|setProperty\\s*\\(\\s*\"(user|password)\"\\s*,\\s*\""));
+        rules.add(text(130, "DatabaseConnectionObfuscation", "\\bBase64\\s*\\.\\s*getDecoder\\s*\\(|\"jdbc:\\w+://\"\\s*\\+"));
+
+        // Type mapping
+        rules.add(concat(131, "StringToVarcharMapping"));
+        rules.add(concat(132, "IntegerToSqlIntMapping"));
+        rules.add(concat(133, "LongToSqlBigIntMapping"));
+        rules.add(concat(134, "FloatToSqlRealMapping"));
+        rules.add(concat(135, "DoubleToSqlFloatMapping"));
+        rules.add(concat(136, "BigDecimalToSqlDecimalMapping"));
+        rules.add(concat(137, "DateToSqlDateMapping"));
+        rules.add(concat(138, "TimestampToSqlDateTimeMapping"));
+        rules.add(concat(139, "LocalDateTimeMapping"));
+        rules.add(concat(140, "LocalDateMapping"));
+        rules.add(concat(141, "LocalTimeMapping"));
+        rules.add(concat(142, "BooleanToSqlBitMapping"));
+        rules.add(concat(143, "ByteToSqlTinyIntMapping"));
+        rules.add(concat(144, "UuidToSqlUniqueIdentifierMapping"));
+        rules.add(concat(145, "ByteArrayToSqlVarbinaryMapping"));
+        rules.add(concat(146, "ClobToSqlTextMapping"));
+        rules.add(concat(147, "BlobToSqlImageMapping"));
+        rules.add(concat(148, "NullValueHandling"));
+        rules.add(concat(149, "OptionalTypeHandling"));
+        rules.add(concat(150, "DataTypeConversionUsage"));
+        rules.add(concat(151, "ImplicitTypeConversion"));
+        rules.add(code(152, "SqlTypeEnumUsage", "\\b(java\\.sql\\.)?Types\\s*\\.\\s*[A-Z_]+\\b"));
+        rules.add(code(153, "PreparedStatementParameterTyping", "\\bset(Null|Object)\\s*\\([^;]*\\bTypes\\s*\\."));
+        rules.add(code(154, "ResultSetTypeMapping", "\\.getObject\\s*\\(\\s*(\"[^\"]*\"|\\d+)\\s*\\)"));
+        rules.add(code(155, "CustomTypeHandlerUsage", "\\b(BaseTypeHandler|TypeHandler)\\s*<|\\bregister\\s*\\(\\s*\\w+\\.class\\s*,"
+                + "|\\bgetTypeHandlerRegistry\\s*\\("));
+        rules.add(code(156, "EnumToSqlMapping", "\\.name\\s*\\(\\s*\\)\\s*\\+|\\b\\w+\\.valueOf\\s*\\(\\s*\\w+\\.getString\\s*\\("));
+        rules.add(text(157, "JsonToSqlMapping", "\\.toString\\s*\\(\\s*\\)\\s*\\+|\\bgetString\\s*\\(\\s*\"\\w*json\\w*\"\\s*\\)"));
+        rules.add(code(158, "CollectionMappingUsage", "\\.toString\\s*\\(\\s*\\)\\s*\\+|\\+\\s*\\w+\\.toString\\s*\\(\\s*\\)"));
+
+        // Transactions
+        rules.add(method(159, "JdbcTransactionUsage", "\\bsetAutoCommit\\s*\\(\\s*false\\s*\\)", "\\bfinally\\b"));
+        rules.add(code(160, "ConnectionAutoCommitUsage", "\\bsetAutoCommit\\s*\\("));
+        rules.add(code(161, "ConnectionCommitUsage", "\\b\\w+\\s*\\.\\s*commit\\s*\\(\\s*\\)"));
+        rules.add(code(162, "ConnectionRollbackUsage", "\\b\\w+\\s*\\.\\s*rollback\\s*\\(\\s*\\)"));
+        rules.add(code(163, "SavepointUsage", "\\bsetSavepoint\\s*\\(|\\bSavepoint\\b|\\breleaseSavepoint\\s*\\("));
+        rules.add(typed(164, "JtaTransactionUsage", "UserTransaction|TransactionManager"));
+        rules.add(typed(165, "UserTransactionUsage", "UserTransaction"));
+        rules.add(typed(166, "TransactionManagerUsage", "TransactionManager"));
+        rules.add(code(167, "SpringTransactionalUsage", "@Transactional\\b"));
+        rules.add(requires(typed(168, "SpringTransactionTemplateUsage", "TransactionTemplate"), "springframework"));
+        rules.add(requires(typed(169, "SpringPlatformTransactionManagerUsage", "PlatformTransactionManager"), "springframework"));
+        rules.add(code(170, "TransactionIsolationUsage", "\\bsetTransactionIsolation\\s*\\(|\\bisolation\\s*="));
+        rules.add(code(171, "TransactionPropagationUsage", "@Transactional\\s*\\([^)]*\\bpropagation\\s*="));
+        rules.add(code(172, "TransactionTimeoutUsage", "@Transactional\\s*\\([^)]*\\btimeout\\s*="));
+        rules.add(code(173, "ReadOnlyTransactionUsage", "@Transactional\\s*\\([^)]*\\breadOnly\\s*=\\s*true"));
+        rules.add(code(174, "TransactionRollbackForUsage", "@Transactional\\s*\\([^)]*\\brollbackFor\\w*\\s*="));
+        rules.add(code(175, "NestedTransactionUsage", "\\bPropagation\\s*\\.\\s*NESTED\\b"));
+
+        // Spring and Jakarta EE components
+        rules.add(requires(code(176, "SpringBootAutoConfigurationUsage", "@SpringBootApplication\\b"
+                + "|@EnableAutoConfiguration\\b"), "springframework"));
+        rules.add(requires(code(177, "SpringBootStarterDataJpaUsage", "@EnableJpaRepositories\\b|\\bJpaRepository\\s*<"
+                + "|@SpringBootApplication\\b"), "springframework"));
+        rules.add(requires(text(178, "SpringBootApplicationPropertiesUsage", "@Value\\s*\\(\\s*\"\\$\\{"
+                + "|\\b\\w*[eE]nv\\w*\\s*\\.\\s*getProperty\\s*\\("), "springframework"));
+        rules.add(requires(text(179, "SpringBootYamlConfigurationUsage", "@Value\\s*\\(\\s*\"\\$\\{|@ConfigurationProperties\\b"
+                + "|\\b\\w*[eE]nv\\w*\\s*\\.\\s*getProperty\\s*\\("), "springframework"));
+        rules.add(requires(code(180, "SpringComponentUsage", "@Component\\b"), "springframework"));
+        rules.add(requires(code(181, "SpringServiceUsage", "@Service\\b"), "springframework"));
+        rules.add(requires(code(182, "SpringRepositoryUsage", "@Repository\\b"), "springframework"));
+        rules.add(requires(code(183, "SpringAutowiredUsage", "@Autowired\\b"), "springframework"));
+        rules.add(requires(code(184, "SpringConfigurationUsage", "@Configuration\\b"), "springframework"));
+        rules.add(code(185, "JakartaEeAnnotationUsage", "@(Stateless|Stateful|Singleton|Inject|Entity|MessageDriven|EJB)\\b"));
+        rules.add(code(186, "EjbUsage", "@(Stateless|Stateful|Singleton|MessageDriven|EJB|Local|Remote|Asynchronous"
+                + "|TransactionAttribute|TransactionManagement|RolesAllowed|PermitAll|DenyAll|Interceptors|Schedule"
+                + "|Startup|Lock|AccessTimeout|Entity)\\b"));
+        rules.add(code(187, "CdiUsage", "@(Inject|Named|ApplicationScoped|RequestScoped|SessionScoped|ConversationScoped"
+                + "|Dependent|Produces|Disposes|Qualifier|Observes|Interceptor|Decorator|Delegate|Alternative"
+                + "|Specializes|Stereotype|Vetoed|InterceptorBinding)\\b"));
+        rules.add(requires(code(188, "JpaEntityManagerFactoryBean", "\\bLocalContainerEntityManagerFactoryBean\\b"
+                + "|\\bLocalEntityManagerFactoryBean\\b"), "springframework"));
+        rules.add(requires(code(189, "HibernateSessionFactoryBean", "\\bLocalSessionFactoryBean\\b"
+                + "|\\bLocalSessionFactoryBuilder\\b"), "springframework"));
+        rules.add(requires(code(190, "MicronautDataUsage", "@(JdbcRepository|Repository|Query|Where|EntityGraph|Join|MappedEntity|Id|Async|Reactive"
+                + "|Embeddable|DateCreated|DateUpdated)\\b"
+                + "|(?m)^[ \\t]*[\\w.]+(<[^;(){}\\n]*>)?[ \\t]+(find|count|exists|delete)\\w*By\\w+\\s*\\([^)]*\\)\\s*;"
+                + "|\\b(CrudRepository|PageableRepository|AsyncCrudRepository|ReactiveStreamsCrudRepository"
+                + "|JpaRepository)\\s*<"), "micronaut"));
+
+        // Stored procedures and functions
+        rules.add(code(191, "CallableStatementUsage", "\\bprepareCall\\s*\\(|\\bCallableStatement\\s+\\w+\\s*[=;,)]"));
+        rules.add(code(192, "StoredProcedureParameterRegistration", "\\bregisterOutParameter\\s*\\("));
+        rules.add(code(193, "StoredProcedureExecuteUsage", "\\b(cs|cstmt|callableStatement|stmt|call)\\w*\\s*\\.\\s*"
+                + "execute(Query|Update)?\\s*\\(\\s*\\)"));
+        rules.add(code(194, "OutputParameterRetrievalUsage", "\\b(cs|cstmt|callableStatement|stmt|call)\\w*\\s*\\.\\s*"
+                + "get(String|Int|Long|Double|Float|BigDecimal|Date|Timestamp|Boolean|Object|Time|Short|Byte|Bytes"
+                + "|Array|Clob|Blob)\\s*\\("));
+        rules.add(code(195, "InputOutputParameterUsage", "\\bregisterOutParameter\\s*\\("));
+        rules.add(sql(196, "StoredProcedureReturnValueUsage", "\\{\\s*(\\?|:\\w+)\\s*=\\s*call\\b"));
+        rules.add(sql(197, "FunctionCallUsage", "\\b(COUNT|SUM|AVG|MIN|MAX|UPPER|LOWER|COALESCE|NULLIF|ABS|ROUND|CEILING"
+                + "|FLOOR|POWER|SQRT|LEN|LENGTH|SUBSTRING|REPLACE|TRIM|LTRIM|RTRIM|CONCAT|CAST|CONVERT|ISNULL|IIF"
+                + "|GETDATE|GETUTCDATE|DATEADD|DATEDIFF|DATEPART|YEAR|MONTH|DAY|NEWID|FORMAT|STRING_AGG|ROW_NUMBER"
+                + "|RANK|DENSE_RANK|NOW|CURRENT_TIMESTAMP|\\w+\\.\\w+)\\s*\\(|\\?\\("));
+        rules.add(sql(198, "UserDefinedFunctionUsage", "\\b[A-Za-z_]\\w*\\.[A-Za-z_]\\w*\\s*\\(|\\?\\.\\?\\("));
+        rules.add(sql(199, "SystemFunctionUsage", "\\b(sp|xp)_\\w+|\\{\\s*call\\s+\\?\\("));
+        rules.add(code(200, "StoredProcedureMetadataUsage", "\\bget(Procedures|ProcedureColumns|Functions|FunctionColumns)\\s*\\("));
+
+        return Collections.unmodifiableList(rules);
+    }
+
+    private static Rule requires(Rule rule, String... symbols) {
+        return new GatedRule(rule, symbols);
+    }
+
+    private static Rule code(int number, String name, String regex) {
+        return new CodePatternRule(number, name, Pattern.compile(regex), false);
+    }
+
+    private static Rule text(int number, String name, String regex) {
+        return new CodePatternRule(number, name, Pattern.compile(regex), true);
+    }
+
+    private static Rule sql(int number, String name, String regex) {
+        return new SqlPatternRule(number, name, regex);
+    }
+
+    private static Rule tsql(int number, String name) {
+        return new KeywordRule(number, name, TsqlKeywords.INDEX);
+    }
+
+    private static Rule concat(int number, String name) {
+        return new ConcatenatedSqlRule(number, name, null);
+    }
+
+    private static Rule concat(int number, String name, String sanitizer) {
+        return new ConcatenatedSqlRule(number, name, sanitizer);
+    }
+
+    private static Rule leak(int number, String name, boolean requireFinally) {
+        return new ResourceLeakRule(number, name, requireFinally);
+    }
+
+    private static Rule typed(int number, String name, String types) {
+        return new TypedUsageRule(number, name, types);
+    }
+
+    private static Rule catchOf(int number, String name, String types, boolean printOnly) {
+        return new CatchBlockRule(number, name, types, printOnly);
+    }
+
+    private static Rule method(int number, String name, String required, String forbidden) {
+        return new MethodRule(number, name, required, forbidden);
+    }
+}
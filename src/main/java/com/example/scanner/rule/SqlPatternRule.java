@@ -0,0 +1,42 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+import com.example.scanner.StringIndex;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a case-insensitive regular expression against each folded string
+ * of the file's {@link StringIndex}, i.e. against embedded SQL rather than
+ * Java code, including SQL assembled from several literals.
+ */
+final class SqlPatternRule extends AbstractRule {
+
+    private final Pattern pattern;
+
+    SqlPatternRule(int number, String name, String regex) {
+        super(number, name);
+        this.pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    }
+
+    @Override
+    public Set<String> requiredSymbols() {
+        return DATABASE_API;
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        StringIndex strings = StringIndex.of(source);
+        for (int i = 0; i < strings.size(); i++) {
+            Matcher m = pattern.matcher(strings.text(i));
+            if (m.find()) {
+                report(source, strings.offset(i),
+                        "SQL contains '" + snippet(strings.text(i), m.start(), m.end()) + "'", findings);
+            }
+        }
+    }
+}
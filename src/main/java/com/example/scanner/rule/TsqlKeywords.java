@@ -0,0 +1,284 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Analysis;
+import com.example.scanner.SourceFile;
+import com.example.scanner.StringIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The T-SQL function and keyword index behind rules 024-050.
+ *
+ * <p>All keywords feed one {@link KeywordAutomaton}, so each folded string
+ * of the file's {@link StringIndex} is scanned once for the whole group
+ * instead of once per rule. A keyword
+ * hit is only a candidate: it must start on a word boundary and its tail is
+ * then verified in place, e.g. {@code GETDATE} needs a following {@code (}
+ * and {@code BEGIN} needs {@code TRAN} or {@code TRANSACTION}. Each rule
+ * records at most one hit per string, matching how findings are reported.
+ */
+final class TsqlKeywords {
+
+    static final Analysis<KeywordHits> INDEX = TsqlKeywords::index;
+
+    private static final int FIRST_RULE = 24;
+
+    // Tail checks applied after the keyword itself
+    private static final int CALL = 0;
+    private static final int WORD = 1;
+    private static final int PREFIX = 2;
+    private static final int TOP = 3;
+    private static final int TRAN = 4;
+    private static final int EXEC = 5;
+    private static final int TEMP_TABLE = 6;
+    private static final int TABLE_VARIABLE = 7;
+    private static final int OFFSET = 8;
+    private static final int FETCH = 9;
+    private static final int CTE = 10;
+
+    private static final List<String> KEYWORDS = new ArrayList<>();
+    private static final List<int[]> SPECS = new ArrayList<>();
+
+    static {
+        add("getdate", 24, CALL);
+        add("getutcdate", 25, CALL);
+        add("isnull", 26, CALL);
+        add("convert", 27, CALL);
+        add("cast", 28, CALL);
+        add("top", 29, TOP);
+        add("nolock", 30, WORD);
+        add("dbo.", 31, PREFIX);
+        add("@@rowcount", 32, WORD);
+        add("@@identity", 33, WORD);
+        add("scope_identity", 33, CALL);
+        add("ident_current", 33, CALL);
+        add("begin", 34, TRAN);
+        add("commit", 35, WORD);
+        add("rollback", 36, WORD);
+        add("exec", 37, EXEC);
+        add("execute", 37, EXEC);
+        add("#", 38, TEMP_TABLE);
+        add("declare", 39, TABLE_VARIABLE);
+        add("dateadd", 40, CALL);
+        add("datediff", 41, CALL);
+        add("left", 42, CALL);
+        add("right", 43, CALL);
+        add("substring", 44, CALL);
+        add("len", 45, CALL);
+        add("charindex", 46, CALL);
+        add("patindex", 47, CALL);
+        add("newid", 48, CALL);
+        add("offset", 49, OFFSET);
+        add("fetch", 49, FETCH);
+        add("with", 50, CTE);
+    }
+
+    private static final KeywordAutomaton AUTOMATON = new KeywordAutomaton(KEYWORDS);
+    private static final int[] RULES = new int[KEYWORDS.size()];
+    private static final int[] TAILS = new int[KEYWORDS.size()];
+
+    static {
+        for (int k = 0; k < KEYWORDS.size(); k++) {
+            RULES[k] = SPECS.get(k)[0];
+            TAILS[k] = SPECS.get(k)[1];
+        }
+    }
+
+    private TsqlKeywords() {
+    }
+
+    private static void add(String keyword, int rule, int tail) {
+        KEYWORDS.add(keyword);
+        SPECS.add(new int[] {rule, tail});
+    }
+
+    private static KeywordHits index(SourceFile source) {
+        Collector collector = new Collector();
+        StringIndex strings = StringIndex.of(source);
+        for (int i = 0; i < strings.size(); i++) {
+            collector.next(i, strings.text(i));
+            AUTOMATON.scan(collector.text, collector);
+        }
+        return collector.hits;
+    }
+
+    /**
+     * Verifies candidate hits within the current string and records the
+     * first verified hit per rule.
+     */
+    private static final class Collector implements KeywordAutomaton.Listener {
+
+        final KeywordHits hits = new KeywordHits();
+        String text;
+        private int entry;
+        private long seen;
+
+        void next(int entry, String text) {
+            this.entry = entry;
+            this.text = text;
+            this.seen = 0;
+        }
+
+        @Override
+        public void onMatch(int keyword, int start, int end) {
+            int rule = RULES[keyword];
+            long bit = 1L << (rule - FIRST_RULE);
+            if ((seen & bit) != 0) {
+                return;
+            }
+            if (start > 0 && isWord(text.charAt(start)) && isWord(text.charAt(start - 1))) {
+                return;
+            }
+            int matchEnd = verify(TAILS[keyword], text, start, end);
+            if (matchEnd >= 0) {
+                seen |= bit;
+                hits.add(entry, rule, start, matchEnd);
+            }
+        }
+    }
+
+    /**
+     * Returns the end of the full match for a keyword found at
+     * {@code start..end}, or -1 if the text after it does not fit.
+     */
+    private static int verify(int tail, String text, int start, int end) {
+        int i;
+        switch (tail) {
+            case CALL:
+                return expect(text, skipSpace(text, end), '(');
+            case WORD:
+                return end < text.length() && isWord(text.charAt(end)) ? -1 : end;
+            case PREFIX:
+                return end;
+            case TOP:
+                i = skipSpace(text, end);
+                return i < text.length() && (text.charAt(i) == '(' || isDigit(text.charAt(i))) ? i + 1 : -1;
+            case TRAN:
+                i = requireSpace(text, end);
+                return i < 0 ? -1 : Math.max(word(text, i, "transaction"), word(text, i, "tran"));
+            case EXEC:
+                i = requireSpace(text, end);
+                if (i < 0 || i == text.length()) {
+                    return -1;
+                }
+                char c = text.charAt(i);
+                return isWord(c) || c == '@' || c == '[' || c == '(' ? i + 1 : -1;
+            case TEMP_TABLE:
+                return tempTable(text, start, end);
+            case TABLE_VARIABLE:
+                i = expect(text, requireSpace(text, end), '@');
+                int name = wordEnd(text, i);
+                return name == i ? -1 : word(text, requireSpace(text, name), "table");
+            case OFFSET:
+                i = requireSpace(text, end);
+                if (i < 0) {
+                    return -1;
+                }
+                int value = i;
+                while (value < text.length() && !isSpace(text.charAt(value))) {
+                    value++;
+                }
+                i = value == i ? -1 : requireSpace(text, value);
+                return Math.max(word(text, i, "rows"), word(text, i, "row"));
+            case FETCH:
+                i = requireSpace(text, end);
+                return Math.max(word(text, i, "next"), word(text, i, "first"));
+            case CTE:
+                i = requireSpace(text, end);
+                if (i < 0) {
+                    return -1;
+                }
+                int recursive = requireSpace(text, word(text, i, "recursive"));
+                int found = recursive < 0 ? -1 : commonTableExpression(text, recursive);
+                return found >= 0 ? found : commonTableExpression(text, i);
+            default:
+                throw new IllegalStateException("Unknown tail " + tail);
+        }
+    }
+
+    private static int tempTable(String text, int start, int end) {
+        if (start > 0 && (isWord(text.charAt(start - 1)) || text.charAt(start - 1) == '#')) {
+            return -1;
+        }
+        int i = end < text.length() && text.charAt(end) == '#' ? end + 1 : end;
+        if (i == text.length() || isDigit(text.charAt(i)) || !isWord(text.charAt(i))) {
+            return -1;
+        }
+        return wordEnd(text, i);
+    }
+
+    /**
+     * Matches {@code name [(columns)] AS (} starting at {@code i}.
+     */
+    private static int commonTableExpression(String text, int i) {
+        int j = wordEnd(text, i);
+        if (j == i) {
+            return -1;
+        }
+        j = skipSpace(text, j);
+        if (j < text.length() && text.charAt(j) == '(') {
+            int close = text.indexOf(')', j);
+            if (close < 0) {
+                return -1;
+            }
+            j = skipSpace(text, close + 1);
+        }
+        if (!text.regionMatches(true, j, "as", 0, 2)) {
+            return -1;
+        }
+        return expect(text, skipSpace(text, j + 2), '(');
+    }
+
+    /**
+     * Matches {@code expected} case-insensitively as a whole word at
+     * {@code i}; returns the offset after it or -1.
+     */
+    private static int word(String text, int i, String expected) {
+        if (i < 0 || !text.regionMatches(true, i, expected, 0, expected.length())) {
+            return -1;
+        }
+        int end = i + expected.length();
+        return end < text.length() && isWord(text.charAt(end)) ? -1 : end;
+    }
+
+    private static int expect(String text, int i, char expected) {
+        return i >= 0 && i < text.length() && text.charAt(i) == expected ? i + 1 : -1;
+    }
+
+    private static int skipSpace(String text, int i) {
+        while (i < text.length() && isSpace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int requireSpace(String text, int i) {
+        if (i < 0 || i == text.length() || !isSpace(text.charAt(i))) {
+            return -1;
+        }
+        return skipSpace(text, i);
+    }
+
+    private static int wordEnd(String text, int i) {
+        if (i < 0) {
+            return i;
+        }
+        while (i < text.length() && isWord(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWord(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || isDigit(c) || c == '_';
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.Finding;
+import com.example.scanner.SourceFile;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flags every method call on a variable, field or parameter declared with one
+ * of the given types, e.g. {@code utx.begin()} on a {@code UserTransaction}.
+ * Scoping is by name across the file, which is precise enough for API usage
+ * rules and avoids a symbol table.
+ */
+final class TypedUsageRule extends AbstractRule {
+
+    private final Pattern declaration;
+
+    TypedUsageRule(int number, String name, String types) {
+        super(number, name);
+        this.declaration = Pattern.compile("\\b(?:" + types + ")\\s+(\\w+)\\s*[=;,)]");
+    }
+
+    @Override
+    public void evaluate(SourceFile source, List<Finding> findings) {
+        String skeleton = source.skeleton();
+        Set<String> variables = new LinkedHashSet<>();
+        Matcher m = declaration.matcher(skeleton);
+        while (m.find()) {
+            variables.add(m.group(1));
+        }
+        if (variables.isEmpty()) {
+            return;
+        }
+        Matcher call = Pattern.compile("\\b(" + String.join("|", variables) + ")\\s*\\.\\s*(\\w+)\\s*\\(")
+                .matcher(skeleton);
+        while (call.find()) {
+            report(source, call.start(), call.group(1) + "." + call.group(2) + "()", findings);
+        }
+    }
+}
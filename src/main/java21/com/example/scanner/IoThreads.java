@@ -0,0 +1,31 @@
+package com.example.scanner;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for the blocking stages of a {@link ScanPipeline}.
+ *
+ * <p>This is the Java 21 version packaged under
+ * {@code META-INF/versions/21}: one virtual thread per stage worker. A
+ * reader parked on a slow read costs a few hundred bytes instead of a
+ * platform stack, so many more reads can be in flight.
+ */
+final class IoThreads {
+
+    private IoThreads() {
+    }
+
+    /**
+     * How many files are read concurrently unless configured otherwise. A
+     * method rather than a constant, which javac would copy into callers
+     * and so keep the other release's value.
+     */
+    static int defaultReaders() {
+        return 256;
+    }
+
+    static ExecutorService newExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scan-io-", 0).factory());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.database.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchWriterTest {
+
+    private static final String INSERT = "INSERT INTO items (id) VALUES (?)";
+
+    private JdbcDataSource h2;
+    private Connection keepAlive;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:batch-writer-" + System.nanoTime());
+        keepAlive = h2.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("CREATE TABLE items (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    void commitsOnConnectionsWithoutAutoCommit() throws Exception {
+        DataSource manualCommit = source(() -> {
+            Connection connection = h2.getConnection();
+            connection.setAutoCommit(false);
+            return connection;
+        });
+        List<CompletableFuture<Integer>> outcomes = new ArrayList<>();
+        try (BatchWriter<Integer> writer = new BatchWriter<>(manualCommit, INSERT, (s, id) -> s.setInt(1, id), 4,
+                Duration.ofMillis(10))) {
+            for (int id = 1; id <= 10; id++) {
+                outcomes.add(writer.add(id));
+            }
+        }
+        for (CompletableFuture<Integer> outcome : outcomes) {
+            assertEquals(1, outcome.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(10, rows());
+    }
+
+    @Test
+    void failedRowFailsAndTheOthersAreWritten() throws Exception {
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("INSERT INTO items VALUES (5)");
+        }
+        List<CompletableFuture<Integer>> outcomes = new ArrayList<>();
+        try (BatchWriter<Integer> writer = new BatchWriter<>(h2, INSERT, (s, id) -> s.setInt(1, id), 10,
+                Duration.ofSeconds(1))) {
+            for (int id = 1; id <= 10; id++) {
+                outcomes.add(writer.add(id));
+            }
+        }
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (i == 4) {
+                ExecutionException failure = assertThrows(ExecutionException.class, outcomes.get(i)::get);
+                assertInstanceOf(SQLException.class, failure.getCause());
+            } else {
+                assertEquals(1, outcomes.get(i).get());
+            }
+        }
+        assertEquals(10, rows());
+    }
+
+    @Test
+    void batchWithoutCountsFailsEveryRowAndRollsBack() throws Exception {
+        AtomicInteger rollbacks = new AtomicInteger();
+        AtomicInteger commits = new AtomicInteger();
+        DataSource noCounts = source(() -> failingConnection(rollbacks, commits));
+        List<CompletableFuture<Integer>> outcomes = new ArrayList<>();
+        try (BatchWriter<Integer> writer = new BatchWriter<>(noCounts, INSERT, (s, id) -> s.setInt(1, id), 3,
+                Duration.ofSeconds(1))) {
+            for (int id = 1; id <= 3; id++) {
+                outcomes.add(writer.add(id));
+            }
+        }
+        for (CompletableFuture<Integer> outcome : outcomes) {
+            ExecutionException failure = assertThrows(ExecutionException.class, outcome::get);
+            assertInstanceOf(BatchUpdateException.class, failure.getCause());
+        }
+        assertEquals(1, rollbacks.get());
+        assertEquals(0, commits.get());
+    }
+
+    @Test
+    void stoppedWriterFailsQueuedRowsAndRefusesNewOnes() throws Exception {
+        BatchWriter<Integer> writer = new BatchWriter<>(h2, INSERT, (s, id) -> {
+            throw new AssertionError("binder broke");
+        }, 1, Duration.ofMillis(1));
+        try {
+            CompletableFuture<Integer> outcome = writer.add(1);
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> outcome.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, failure.getCause());
+            IllegalStateException refused = assertThrows(IllegalStateException.class, () -> writer.add(2));
+            assertInstanceOf(AssertionError.class, refused.getCause());
+        } finally {
+            writer.close();
+        }
+        assertTrue(writer.failed() >= 1);
+    }
+
+    private int rows() throws SQLException {
+        try (Statement statement = keepAlive.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM items")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * A connection whose batches fail without update counts, as some
+     * drivers' do.
+     */
+    private static Connection failingConnection(AtomicInteger rollbacks, AtomicInteger commits) {
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                BatchWriterTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("executeBatch")) {
+                        throw new BatchUpdateException("batch failed", new int[0]);
+                    }
+                    return null;
+                });
+        return (Connection) Proxy.newProxyInstance(BatchWriterTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return statement;
+                        case "getAutoCommit":
+                            return true;
+                        case "rollback":
+                            rollbacks.incrementAndGet();
+                            return null;
+                        case "commit":
+                            commits.incrementAndGet();
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private interface ConnectionFactory {
+
+        Connection open() throws SQLException;
+    }
+
+    private static DataSource source(ConnectionFactory factory) {
+        return (DataSource) Proxy.newProxyInstance(BatchWriterTest.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        return factory.open();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
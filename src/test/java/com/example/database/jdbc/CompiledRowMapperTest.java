@@ -0,0 +1,170 @@
+package com.example.database.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledRowMapperTest {
+
+    private Connection connection;
+    private final CompiledRowMapper<Person> mapper = new CompiledRowMapper<>(Person.class);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:row-mapper-" + System.nanoTime());
+        connection = h2.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE people (id INT, first_name VARCHAR(20), age INT, score INT)");
+            statement.execute("INSERT INTO people VALUES (1, 'Ada', 36, NULL), (2, 'Alan', NULL, 7)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void mapsColumnsToPropertiesByName() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, first_name, age, score FROM people WHERE id = 1")) {
+            assertTrue(rs.next());
+            Person person = mapper.mapRow(rs, 0);
+            assertEquals(1, person.getId());
+            assertEquals("Ada", person.getFirstName());
+            assertEquals(36, person.getAge());
+            assertNull(person.getScore());
+        }
+    }
+
+    @Test
+    void nullInAPrimitivePropertyFailsTheRow() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, age FROM people WHERE id = 2")) {
+            assertTrue(rs.next());
+            SQLDataException failure = assertThrows(SQLDataException.class, () -> mapper.mapRow(rs, 0));
+            assertEquals("22002", failure.getSQLState());
+        }
+    }
+
+    @Test
+    void threadsKeepThePlansOfTheirOwnResultSets() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        try (Statement people = connection.createStatement();
+             ResultSet rs = counting(people.executeQuery("SELECT id, first_name FROM people ORDER BY id"), lookups)) {
+            assertTrue(rs.next());
+            assertEquals("Ada", mapper.mapRow(rs, 0).getFirstName());
+            CompletableFuture.runAsync(() -> {
+                try (Statement other = connection.createStatement();
+                     ResultSet ages = other.executeQuery("SELECT age FROM people WHERE id = 1")) {
+                    assertTrue(ages.next());
+                    assertEquals(36, mapper.mapRow(ages, 0).getAge());
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assertTrue(rs.next());
+            assertEquals("Alan", mapper.mapRow(rs, 1).getFirstName());
+            assertEquals(1, lookups.get());
+        }
+    }
+
+    @Test
+    void mapperDoesNotKeepTheLastResultSet() throws Exception {
+        WeakReference<ResultSet> read = mapOne();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (read.get() != null && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(read.get(), "the mapper still holds the result set");
+    }
+
+    /**
+     * Maps a row from a result set that is closed and dropped afterwards.
+     */
+    private WeakReference<ResultSet> mapOne() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, first_name FROM people WHERE id = 1")) {
+            assertTrue(rs.next());
+            assertEquals("Ada", mapper.mapRow(rs, 0).getFirstName());
+            return new WeakReference<>(rs);
+        }
+    }
+
+    /**
+     * Returns {@code rs}, counting the calls for its metadata.
+     */
+    private static ResultSet counting(ResultSet rs, AtomicInteger lookups) {
+        return (ResultSet) Proxy.newProxyInstance(CompiledRowMapperTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getMetaData")) {
+                        lookups.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    public static class Person {
+
+        private int id;
+        private String firstName;
+        private int age;
+        private Integer score;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Integer getScore() {
+            return score;
+        }
+
+        public void setScore(Integer score) {
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.database.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InsertTemplateTest {
+
+    @Test
+    void repeatsTheRow() {
+        InsertTemplate template = InsertTemplate.parse("INSERT INTO t (a, b) VALUES (?, ?);", false);
+        assertNotNull(template);
+        assertEquals(2, template.parameters());
+        assertEquals("INSERT INTO t (a, b) VALUES (?, ?), (?, ?), (?, ?)", template.sql(3));
+    }
+
+    @Test
+    void bracketsAreSqlWhereTheyDoNotQuote() {
+        InsertTemplate template = InsertTemplate.parse("INSERT INTO t (id, tags) VALUES (?, ARRAY[?, ?])", false);
+        assertNotNull(template);
+        assertEquals(3, template.parameters());
+        assertEquals("INSERT INTO t (id, tags) VALUES (?, ARRAY[?, ?]), (?, ARRAY[?, ?])", template.sql(2));
+    }
+
+    @Test
+    void bracketsQuoteIdentifiersWhereTheDatabaseSaysSo() {
+        InsertTemplate template = InsertTemplate.parse("INSERT INTO [odd?name] ([a)]) VALUES (?)", true);
+        assertNotNull(template);
+        assertEquals(1, template.parameters());
+        assertEquals("INSERT INTO [odd?name] ([a)]) VALUES (?), (?)", template.sql(2));
+    }
+
+    @Test
+    void rejectsWhatIsNotASingleRowInsert() {
+        assertNull(InsertTemplate.parse("UPDATE t SET a = ?", false));
+        assertNull(InsertTemplate.parse("INSERT INTO t (a) SELECT ? FROM dual", false));
+        assertNull(InsertTemplate.parse("INSERT INTO t (a) VALUES (?), (?)", false));
+        assertNull(InsertTemplate.parse("INSERT INTO t (a) VALUES (1)", false));
+        assertNull(InsertTemplate.parse("INSERT INTO t (a) VALUES (?) ON DUPLICATE KEY UPDATE a = ?", false));
+    }
+}
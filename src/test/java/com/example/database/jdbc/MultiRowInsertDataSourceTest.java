@@ -0,0 +1,154 @@
+package com.example.database.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiRowInsertDataSourceTest {
+
+    private JdbcDataSource h2;
+    private Connection keepAlive;
+    private final List<String> prepared = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:multi-row-insert-" + System.nanoTime());
+        keepAlive = h2.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("CREATE TABLE items (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20),"
+                    + " tags INT ARRAY)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    void arrayConstructorsAreRewritten() throws SQLException {
+        DataSource source = new MultiRowInsertDataSource(reporting("H2"), 10);
+        try (Connection connection = source.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO items (name, tags) VALUES (?, ARRAY[CAST(? AS INT), CAST(? AS INT)])")) {
+            for (int i = 1; i <= 3; i++) {
+                insert.setString(1, "item " + i);
+                insert.setInt(2, i);
+                insert.setInt(3, i * 10);
+                insert.addBatch();
+            }
+            assertArrayEquals(new int[]{1, 1, 1}, insert.executeBatch());
+        }
+        assertEquals(1, prepared.stream().filter(sql -> sql.contains("), (")).count());
+        try (Statement statement = keepAlive.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT tags FROM items WHERE name = 'item 3'")) {
+            assertTrue(rs.next());
+            Array tags = rs.getArray(1);
+            assertArrayEquals(new Object[]{3, 30}, (Object[]) tags.getArray());
+        }
+    }
+
+    @Test
+    void keysOfARewrittenBatchComeInBatchOrder() throws SQLException {
+        DataSource source = new MultiRowInsertDataSource(reporting("H2"), 2);
+        assertEquals(List.of(1, 2, 3, 4, 5), insertReturningKeys(source, 5));
+        assertTrue(prepared.stream().anyMatch(sql -> sql.contains("), (")));
+    }
+
+    @Test
+    void sqlServerBatchAskingForKeysRunsARowAtATime() throws SQLException {
+        DataSource source = new MultiRowInsertDataSource(reporting("Microsoft SQL Server"), 10);
+        assertEquals(List.of(1, 2, 3), insertReturningKeys(source, 3));
+        assertFalse(prepared.stream().anyMatch(sql -> sql.contains("), (") || sql.contains("OUTPUT")));
+    }
+
+    @Test
+    void sqlServerBatchWithoutKeysIsRewritten() throws SQLException {
+        DataSource source = new MultiRowInsertDataSource(reporting("Microsoft SQL Server"), 10);
+        try (Connection connection = source.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO items (name) VALUES (?)")) {
+            for (int i = 1; i <= 3; i++) {
+                insert.setString(1, "item " + i);
+                insert.addBatch();
+            }
+            assertArrayEquals(new int[]{1, 1, 1}, insert.executeBatch());
+        }
+        assertTrue(prepared.contains("INSERT INTO items (name) VALUES (?), (?), (?)"));
+    }
+
+    private static List<Integer> insertReturningKeys(DataSource source, int rows) throws SQLException {
+        List<Integer> keys = new ArrayList<>();
+        try (Connection connection = source.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO items (name) VALUES (?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setString(1, "item " + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            ResultSet generated = insert.getGeneratedKeys();
+            while (generated.next()) {
+                keys.add(generated.getInt(1));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns H2 connections that report {@code product} as their
+     * database and record the SQL they prepare.
+     */
+    private DataSource reporting(String product) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        return reporting(product, h2.getConnection());
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private Connection reporting(String product, Connection connection) {
+        DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DatabaseMetaData.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getDatabaseProductName")) {
+                        return product;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getMetaData")) {
+                        return metaData;
+                    }
+                    if (method.getName().equals("prepareStatement")) {
+                        prepared.add((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
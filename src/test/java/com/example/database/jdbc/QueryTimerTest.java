@@ -0,0 +1,128 @@
+package com.example.database.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryTimerTest {
+
+    private HashedWheelTimer wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedWheelTimer(Duration.ofMillis(1), 64, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    void cancelledExecutionFailsWithTimeout() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        QueryTimer timer = new QueryTimer(wheel, statement(cancelled::countDown), TimeUnit.MILLISECONDS.toNanos(5));
+        assertThrows(SQLTimeoutException.class, () -> timer.execute(() -> {
+            try {
+                assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new SQLException("query was cancelled");
+        }));
+    }
+
+    @Test
+    void executionDoesNotReturnWhileItsCancelIsBeingSent() throws Exception {
+        CountDownLatch cancelling = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+        AtomicBoolean cancelFinished = new AtomicBoolean();
+        QueryTimer timer = new QueryTimer(wheel, statement(() -> {
+            cancelling.countDown();
+            try {
+                // a slow cancel, which the execution must outwait
+                returned.await(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cancelFinished.set(true);
+        }), TimeUnit.MILLISECONDS.toNanos(1));
+        timer.execute(() -> {
+            try {
+                assertTrue(cancelling.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        returned.countDown();
+        assertTrue(cancelFinished.get(), "execution returned before its cancel finished");
+    }
+
+    @Test
+    void executionWaitingForItsCancelIsParked() throws Exception {
+        Thread executing = Thread.currentThread();
+        CountDownLatch cancelling = new CountDownLatch(1);
+        AtomicBoolean returning = new AtomicBoolean();
+        AtomicBoolean parked = new AtomicBoolean();
+        QueryTimer timer = new QueryTimer(wheel, statement(() -> {
+            cancelling.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!returning.get() && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            while (System.nanoTime() < deadline) {
+                if (executing.getState() == Thread.State.WAITING) {
+                    parked.set(true);
+                    return;
+                }
+                Thread.yield();
+            }
+        }), TimeUnit.MILLISECONDS.toNanos(1));
+        timer.execute(() -> {
+            try {
+                assertTrue(cancelling.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            returning.set(true);
+            return null;
+        });
+        assertTrue(parked.get(), "execution spun while its cancel was being sent");
+    }
+
+    @Test
+    void cancelDueAfterTheExecutionReturnedIsDropped() throws Exception {
+        AtomicInteger cancels = new AtomicInteger();
+        QueryTimer timer = new QueryTimer(wheel, statement(cancels::incrementAndGet),
+                TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals("done", timer.execute(() -> "done"));
+        Thread.sleep(100);
+        assertEquals(0, cancels.get());
+    }
+
+    private static Statement statement(Runnable onCancel) {
+        return (Statement) Proxy.newProxyInstance(QueryTimerTest.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("cancel")) {
+                        onCancel.run();
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.database.jdbc;
+
+import org.h2.jdbc.JdbcPreparedStatement;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StatementCachingDataSourceTest {
+
+    private StatementCachingDataSource source;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statement-cache-" + System.nanoTime());
+        source = new StatementCachingDataSource(h2, 4);
+        connection = source.getConnection();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void returnedStatementIsReusedWithTheDriverDefaults() throws SQLException {
+        int maxRows;
+        int queryTimeout;
+        int fetchSize;
+        JdbcPreparedStatement physical;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+            statement.setPoolable(true);
+            physical = statement.unwrap(JdbcPreparedStatement.class);
+            maxRows = statement.getMaxRows();
+            queryTimeout = statement.getQueryTimeout();
+            fetchSize = statement.getFetchSize();
+            statement.setMaxRows(maxRows + 500);
+            statement.setQueryTimeout(queryTimeout + 30);
+            statement.setFetchSize(fetchSize + 1);
+            statement.setMaxRows(maxRows + 1000);
+        }
+        try (PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+            assertSame(physical, statement.unwrap(JdbcPreparedStatement.class));
+            assertEquals(maxRows, statement.getMaxRows());
+            assertEquals(queryTimeout, statement.getQueryTimeout());
+            assertEquals(fetchSize, statement.getFetchSize());
+        }
+        assertEquals(1, source.hits());
+        assertEquals(1, source.misses());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.database.jdbc;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingQueryTest {
+
+    private Connection keepAlive;
+    private final List<Connection> opened = new ArrayList<>();
+    private StreamingQuery query;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:streaming-query-" + System.nanoTime());
+        keepAlive = h2.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("CREATE TABLE numbers (n INT)");
+            statement.execute("INSERT INTO numbers VALUES (1), (2), (3)");
+        }
+        query = new StreamingQuery(recording(h2), 2);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    void streamReadsEveryRowAndClosesTheConnection() throws SQLException {
+        try (Stream<Integer> rows = query.stream("SELECT n FROM numbers ORDER BY n", (rs, i) -> rs.getInt(1))) {
+            assertEquals(List.of(1, 2, 3), rows.collect(Collectors.toList()));
+        }
+        assertEquals(1, opened.size());
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    @Test
+    void rejectedDrainEndsTheQueryWithTheRejection() throws SQLException {
+        AtomicInteger tasks = new AtomicInteger();
+        Executor firstTaskOnly = task -> {
+            if (tasks.getAndIncrement() > 0) {
+                throw new RejectedExecutionException("executor is full");
+            }
+            task.run();
+        };
+        Recorder recorder = new Recorder();
+        query.publisher("SELECT n FROM numbers ORDER BY n", (rs, i) -> rs.getInt(1), firstTaskOnly)
+                .subscribe(recorder);
+        recorder.subscription.request(1);
+        assertEquals(List.of(1), recorder.rows);
+        assertFalse(opened.get(0).isClosed());
+
+        recorder.subscription.request(1);
+        recorder.subscription.request(1);
+        assertEquals(List.of(1), recorder.rows);
+        assertEquals(1, recorder.errors.size());
+        assertTrue(recorder.errors.get(0) instanceof RejectedExecutionException);
+        assertEquals(0, recorder.completions);
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    @Test
+    void requestInsideOnSubscribeDeliversRowsOnlyAfterItReturns() throws SQLException {
+        Recorder recorder = new Recorder();
+        recorder.requestOnSubscribe = 2;
+        query.publisher("SELECT n FROM numbers ORDER BY n", (rs, i) -> rs.getInt(1), Runnable::run)
+                .subscribe(recorder);
+        assertEquals(0, recorder.rowsDuringOnSubscribe);
+        assertEquals(List.of(1, 2), recorder.rows);
+
+        recorder.subscription.request(5);
+        assertEquals(List.of(1, 2, 3), recorder.rows);
+        assertEquals(1, recorder.completions);
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    /**
+     * Returns {@code source}, recording the connections it opens.
+     */
+    private DataSource recording(DataSource source) {
+        return (DataSource) Proxy.newProxyInstance(StreamingQueryTest.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(source, args);
+                        if (result instanceof Connection) {
+                            opened.add((Connection) result);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static final class Recorder implements Flow.Subscriber<Integer> {
+
+        final List<Integer> rows = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+        Flow.Subscription subscription;
+        long requestOnSubscribe;
+        int rowsDuringOnSubscribe;
+        int completions;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (requestOnSubscribe > 0) {
+                subscription.request(requestOnSubscribe);
+            }
+            rowsDuringOnSubscribe = rows.size();
+        }
+
+        @Override
+        public void onNext(Integer row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completions++;
+        }
+    }
+}
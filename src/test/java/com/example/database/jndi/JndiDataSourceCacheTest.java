@@ -0,0 +1,137 @@
+package com.example.database.jndi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.Context;
+import javax.naming.spi.InitialContextFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Hashtable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JndiDataSourceCacheTest {
+
+    private static final AtomicInteger lookups = new AtomicInteger();
+    private static final CountDownLatch looking = new CountDownLatch(1);
+    private static final CountDownLatch proceed = new CountDownLatch(1);
+    private static final AtomicInteger flakyLookups = new AtomicInteger();
+
+    private JndiDataSourceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JndiDataSourceCache(Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    void waitersRethrowAnErrorAsItIs() throws Exception {
+        Hashtable<String, Object> environment = new Hashtable<>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, FailingContextFactory.class.getName());
+        CompletableFuture<Void> loader = CompletableFuture.runAsync(() -> lookup(environment));
+        assertTrue(looking.await(5, TimeUnit.SECONDS));
+        Thread waiter = new Thread(() -> lookup(environment));
+        CompletableFuture<Throwable> waited = new CompletableFuture<>();
+        waiter.setUncaughtExceptionHandler((thread, e) -> waited.complete(e));
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+        proceed.countDown();
+        ExecutionException loaded = assertThrows(ExecutionException.class, () -> loader.get(5, TimeUnit.SECONDS));
+        assertTrue(loaded.getCause() instanceof LookupError);
+        assertSame(loaded.getCause(), waited.get(5, TimeUnit.SECONDS));
+        assertEquals(1, lookups.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void refreshFailingWithAnErrorDropsTheEntry() throws Exception {
+        Hashtable<String, Object> environment = new Hashtable<>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, FlakyContextFactory.class.getName());
+        try (JndiDataSourceCache refreshing = new JndiDataSourceCache(Duration.ZERO)) {
+            DataSource first = refreshing.lookup("jdbc/orders", environment);
+            Thread.sleep(1);
+            assertSame(first, refreshing.lookup("jdbc/orders", environment));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (refreshing.size() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, refreshing.size());
+            assertThrows(LookupError.class, () -> refreshing.lookup("jdbc/orders", environment));
+            assertEquals(3, flakyLookups.get());
+        }
+    }
+
+    private void lookup(Hashtable<String, Object> environment) {
+        try {
+            cache.lookup("jdbc/orders", environment);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class LookupError extends Error {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Builds contexts whose lookup waits for the test and then fails with
+     * a {@link LookupError}.
+     */
+    public static final class FailingContextFactory implements InitialContextFactory {
+
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+            return (Context) Proxy.newProxyInstance(JndiDataSourceCacheTest.class.getClassLoader(),
+                    new Class<?>[]{Context.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("lookup")) {
+                            lookups.incrementAndGet();
+                            looking.countDown();
+                            proceed.await();
+                            throw new LookupError();
+                        }
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * Builds contexts whose first lookup returns a data source and whose
+     * later ones fail with a {@link LookupError}.
+     */
+    public static final class FlakyContextFactory implements InitialContextFactory {
+
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+            return (Context) Proxy.newProxyInstance(JndiDataSourceCacheTest.class.getClassLoader(),
+                    new Class<?>[]{Context.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("lookup")) {
+                            if (flakyLookups.incrementAndGet() > 1) {
+                                throw new LookupError();
+                            }
+                            return Proxy.newProxyInstance(JndiDataSourceCacheTest.class.getClassLoader(),
+                                    new Class<?>[]{DataSource.class}, (source, call, callArgs) -> null);
+                        }
+                        return null;
+                    });
+        }
+    }
+}
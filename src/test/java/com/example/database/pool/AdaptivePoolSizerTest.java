@@ -0,0 +1,200 @@
+package com.example.database.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptivePoolSizerTest {
+
+    private final FakePool pool = new FakePool();
+
+    @Test
+    void waitingThreadsGrowThePoolToTheTargetForTheirLoad() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, 2, 20);
+        pool.resize(10, 2);
+        pool.sample(10, 3);
+        sizer.adjust();
+        assertEquals(17, pool.maximum);
+        assertEquals(13, pool.minimumIdle);
+    }
+
+    @Test
+    void waitingThreadsGrowThePoolByAtLeastTheIncrement() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, 2, 20);
+        pool.resize(10, 2);
+        pool.sample(7, 1);
+        sizer.adjust();
+        assertEquals(10 + AdaptivePoolSizer.INCREMENT, pool.maximum);
+        assertEquals(8, pool.minimumIdle);
+    }
+
+    @Test
+    void growthStopsAtTheCeiling() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, 2, 20);
+        pool.resize(18, 2);
+        pool.sample(18, 12);
+        for (int i = 0; i < 3; i++) {
+            sizer.adjust();
+            assertEquals(20, pool.maximum);
+            assertEquals(20, pool.minimumIdle);
+        }
+    }
+
+    @Test
+    void poolShrinksOnlyAfterThirtyQuietSamples() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, 2, 20);
+        pool.resize(20, 20);
+        pool.sample(4, 0);
+        for (int i = 1; i < AdaptivePoolSizer.QUIET_SAMPLES; i++) {
+            sizer.adjust();
+            assertEquals(20, pool.maximum);
+            assertEquals(4, pool.minimumIdle);
+        }
+        sizer.adjust();
+        assertEquals(15, pool.maximum);
+
+        List<Integer> maximums = new ArrayList<>();
+        for (int i = 0; i < 5 * AdaptivePoolSizer.QUIET_SAMPLES; i++) {
+            sizer.adjust();
+            maximums.add(pool.maximum);
+        }
+        assertEquals(List.of(11, 8, 6, 5, 5), everyThirtieth(maximums));
+        assertEquals(4, pool.minimumIdle);
+    }
+
+    @Test
+    void waitingThreadsRestartTheQuietCount() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, 2, 20);
+        pool.resize(20, 20);
+        pool.sample(4, 0);
+        for (int i = 1; i < AdaptivePoolSizer.QUIET_SAMPLES; i++) {
+            sizer.adjust();
+        }
+        pool.sample(4, 1);
+        sizer.adjust();
+        pool.sample(4, 0);
+        for (int i = 1; i < AdaptivePoolSizer.QUIET_SAMPLES; i++) {
+            sizer.adjust();
+            assertEquals(20, pool.maximum);
+        }
+        sizer.adjust();
+        assertEquals(15, pool.maximum);
+    }
+
+    @Test
+    void idlePoolShrinksToTheFloorAndNoFurther() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, 3, 20);
+        pool.resize(20, 10);
+        pool.sample(0, 0);
+        for (int i = 0; i < 20 * AdaptivePoolSizer.QUIET_SAMPLES; i++) {
+            sizer.adjust();
+        }
+        assertEquals(3, pool.maximum);
+        assertEquals(3, pool.minimumIdle);
+    }
+
+    @Test
+    void minimumIdleIsLoweredBeforeTheMaximum() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(pool, 2, 20);
+        pool.resize(20, 20);
+        pool.sample(4, 0);
+        for (int i = 1; i < AdaptivePoolSizer.QUIET_SAMPLES; i++) {
+            sizer.adjust();
+        }
+        pool.resize(20, 20);
+        sizer.adjust();
+        assertEquals(15, pool.maximum);
+        assertEquals(4, pool.minimumIdle);
+    }
+
+    @Test
+    void rejectsBoundsThatCannotHoldAPool() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptivePoolSizer(pool, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptivePoolSizer(pool, 5, 4));
+    }
+
+    private static List<Integer> everyThirtieth(List<Integer> maximums) {
+        List<Integer> picked = new ArrayList<>();
+        for (int i = AdaptivePoolSizer.QUIET_SAMPLES - 1; i < maximums.size(); i += AdaptivePoolSizer.QUIET_SAMPLES) {
+            picked.add(maximums.get(i));
+        }
+        return picked;
+    }
+
+    /**
+     * A data source whose pool reports the load the test sets and whose
+     * configuration records every resize, failing any that leaves
+     * {@code minimumIdle} above {@code maximumPoolSize}.
+     */
+    private static final class FakePool extends HikariDataSource {
+
+        int active;
+        int waiting;
+        int maximum;
+        int minimumIdle;
+
+        void sample(int active, int waiting) {
+            this.active = active;
+            this.waiting = waiting;
+        }
+
+        void resize(int maximum, int minimumIdle) {
+            this.maximum = maximum;
+            this.minimumIdle = minimumIdle;
+        }
+
+        @Override
+        public HikariPoolMXBean getHikariPoolMXBean() {
+            return (HikariPoolMXBean) Proxy.newProxyInstance(AdaptivePoolSizerTest.class.getClassLoader(),
+                    new Class<?>[]{HikariPoolMXBean.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getActiveConnections":
+                                return active;
+                            case "getThreadsAwaitingConnection":
+                                return waiting;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        @Override
+        public HikariConfigMXBean getHikariConfigMXBean() {
+            return (HikariConfigMXBean) Proxy.newProxyInstance(AdaptivePoolSizerTest.class.getClassLoader(),
+                    new Class<?>[]{HikariConfigMXBean.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getMaximumPoolSize":
+                                return maximum;
+                            case "getMinimumIdle":
+                                return minimumIdle;
+                            case "setMaximumPoolSize":
+                                maximum = (Integer) args[0];
+                                break;
+                            case "setMinimumIdle":
+                                minimumIdle = (Integer) args[0];
+                                break;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                        if (minimumIdle > maximum) {
+                            throw new AssertionError(method.getName() + " left minimumIdle " + minimumIdle
+                                    + " above maximumPoolSize " + maximum);
+                        }
+                        return null;
+                    });
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+    }
+}
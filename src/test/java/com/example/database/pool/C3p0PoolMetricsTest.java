@@ -0,0 +1,74 @@
+package com.example.database.pool;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class C3p0PoolMetricsTest {
+
+    private ComboPooledDataSource first;
+    private ComboPooledDataSource second;
+
+    @BeforeEach
+    void setUp() {
+        first = pool("first");
+        second = pool("second");
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void eachPoolCountsItsOwnConnections() throws Exception {
+        PoolMetrics firstMetrics = PoolMetrics.of(first);
+        PoolMetrics secondMetrics = PoolMetrics.of(second);
+        checkOut(first);
+        assertTrue(firstMetrics.created() >= 1);
+        assertEquals(0, secondMetrics.created());
+        first.close();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (firstMetrics.destroyed() < 1) {
+            // c3p0 destroys connections on its helper threads; under load
+            // it may also acquire, and destroy, more than the one it keeps
+            assertTrue(System.nanoTime() < deadline, "no connection destroyed");
+            Thread.sleep(1);
+        }
+        assertEquals(0, secondMetrics.created());
+        assertEquals(0, secondMetrics.destroyed());
+    }
+
+    @Test
+    void poolWithItsOwnCustomizerReportsNoCounts() {
+        second.setConnectionCustomizerClassName(C3p0PoolMetrics.Counter.class.getName());
+        PoolMetrics metrics = PoolMetrics.of(second);
+        assertEquals(-1, metrics.created());
+        assertEquals(-1, metrics.destroyed());
+    }
+
+    private static ComboPooledDataSource pool(String name) {
+        ComboPooledDataSource pool = new ComboPooledDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:c3p0-metrics-" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        pool.setInitialPoolSize(1);
+        pool.setMinPoolSize(1);
+        pool.setMaxPoolSize(1);
+        pool.setAcquireIncrement(1);
+        return pool;
+    }
+
+    private static void checkOut(ComboPooledDataSource pool) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.database.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionBagTest {
+
+    private final ConnectionBag<Thing> bag = new ConnectionBag<>();
+
+    @Test
+    void threadGetsItsNewestReturnedItemFirst() {
+        Thing first = new Thing();
+        Thing second = new Thing();
+        bag.add(first);
+        bag.add(second);
+        bag.requite(first);
+        bag.requite(second);
+
+        assertSame(second, bag.borrow());
+        assertSame(first, bag.borrow());
+        assertNull(bag.borrow());
+    }
+
+    @Test
+    void itemRemovedElsewhereIsSkippedAndForgotten() throws Exception {
+        Thing kept = new Thing();
+        Thing removed = new Thing();
+        bag.add(kept);
+        bag.add(removed);
+        bag.requite(kept);
+        bag.requite(removed);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            other.submit(() -> bag.remove(claim(removed))).get();
+        } finally {
+            other.shutdown();
+        }
+
+        assertSame(kept, bag.borrow());
+        assertNull(bag.borrow());
+        assertEquals(0, bag.idleCount());
+    }
+
+    @Test
+    void idleThreadDoesNotKeepRemovedItems() throws Exception {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try {
+            WeakReference<Thing> returned = worker.submit(() -> {
+                Thing thing = new Thing();
+                bag.add(thing);
+                bag.requite(thing);
+                return new WeakReference<>(thing);
+            }).get();
+            bag.remove(claim(returned.get()));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (returned.get() != null && System.nanoTime() < deadline) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(returned.get(), "the worker still holds the removed item");
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    private static Thing claim(Thing thing) {
+        assertTrue(thing.claim());
+        return thing;
+    }
+
+    private static final class Thing extends ConnectionBag.Item {
+    }
+}
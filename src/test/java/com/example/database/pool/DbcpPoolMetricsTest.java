@@ -0,0 +1,48 @@
+package com.example.database.pool;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DbcpPoolMetricsTest {
+
+    private BasicDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new BasicDataSource();
+        pool.setUrl("jdbc:h2:mem:dbcp-metrics-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        pool.close();
+    }
+
+    @Test
+    void countsKeepGrowingAcrossRestarts() throws SQLException {
+        PoolMetrics metrics = PoolMetrics.of(pool);
+        checkOut();
+        assertEquals(1, metrics.created());
+        assertEquals(0, metrics.destroyed());
+        pool.restart();
+        assertEquals(1, metrics.created());
+        assertEquals(1, metrics.destroyed());
+        checkOut();
+        assertEquals(2, metrics.created());
+        assertEquals(1, metrics.destroyed());
+    }
+
+    private void checkOut() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+    }
+}
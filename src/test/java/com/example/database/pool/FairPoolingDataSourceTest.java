@@ -0,0 +1,105 @@
+package com.example.database.pool;
+
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairPoolingDataSourceTest {
+
+    private FairPoolingDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:fair-pool-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        pool = new FairPoolingDataSource(h2, 2, Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void anyThreadGetsTheConnectionReturnedLast() throws Exception {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        JdbcConnection returnedLast = second.unwrap(JdbcConnection.class);
+        first.close();
+        second.close();
+        JdbcConnection reused = CompletableFuture.supplyAsync(() -> {
+            try (Connection connection = pool.getConnection()) {
+                return connection.unwrap(JdbcConnection.class);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(5, TimeUnit.SECONDS);
+        assertSame(returnedLast, reused);
+        assertEquals(2, pool.created());
+    }
+
+    @Test
+    void exhaustedPoolTimesOut() throws Exception {
+        try (Connection first = pool.getConnection(); Connection second = pool.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+            assertEquals(2, pool.active());
+            assertFalse(first.isClosed() || second.isClosed());
+        }
+        assertEquals(0, pool.active());
+        assertEquals(2, pool.idle());
+    }
+
+    @Test
+    void statementsReportTheLeaseAndAreClosedWithIt() throws Exception {
+        Connection lease = pool.getConnection();
+        Statement statement = lease.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT 1");
+        PreparedStatement prepared = lease.prepareStatement("SELECT ?");
+        assertSame(lease, statement.getConnection());
+        assertSame(lease, prepared.getConnection());
+        lease.close();
+        assertTrue(statement.isClosed());
+        assertTrue(rs.isClosed());
+        assertTrue(prepared.isClosed());
+    }
+
+    @Test
+    void returnResetsHoldabilityAndRollsBack() throws Exception {
+        try (Connection lease = pool.getConnection(); Statement statement = lease.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS items (id INT)");
+        }
+        int holdability;
+        try (Connection lease = pool.getConnection(); Statement statement = lease.createStatement()) {
+            holdability = lease.getHoldability();
+            lease.setHoldability(holdability == ResultSet.HOLD_CURSORS_OVER_COMMIT
+                    ? ResultSet.CLOSE_CURSORS_AT_COMMIT : ResultSet.HOLD_CURSORS_OVER_COMMIT);
+            lease.setAutoCommit(false);
+            statement.execute("INSERT INTO items VALUES (1)");
+        }
+        try (Connection lease = pool.getConnection(); Statement statement = lease.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM items")) {
+            assertEquals(holdability, lease.getHoldability());
+            assertTrue(lease.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+        assertEquals(1, pool.created());
+    }
+}
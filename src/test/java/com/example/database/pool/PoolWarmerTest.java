@@ -0,0 +1,55 @@
+package com.example.database.pool;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PoolWarmerTest {
+
+    private FairPoolingDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:pool-warmer-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        pool = new FairPoolingDataSource(h2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void warmsTheRequestedConnections() throws Exception {
+        new PoolWarmer(pool, 2, Duration.ofSeconds(10), "SELECT 1").warm(3);
+        assertEquals(3, pool.created());
+        assertEquals(3, pool.idle());
+        assertEquals(0, pool.active());
+    }
+
+    @Test
+    void warmingNoConnectionsDoesNothing() throws Exception {
+        new PoolWarmer(pool, 2, Duration.ofSeconds(10), null).warm(0);
+        assertEquals(0, pool.created());
+    }
+
+    @Test
+    void connectionsFailingValidationAreEvicted() {
+        PoolWarmer warmer = new PoolWarmer(pool, 2, Duration.ofSeconds(10), "SELECT * FROM missing");
+        SQLTransientConnectionException failure = assertThrows(SQLTransientConnectionException.class,
+                () -> warmer.warm(2));
+        assertEquals(2, failure.getSuppressed().length);
+        assertEquals(2, pool.created());
+        assertEquals(2, pool.destroyed());
+        assertEquals(0, pool.idle());
+        assertEquals(0, pool.active());
+    }
+}
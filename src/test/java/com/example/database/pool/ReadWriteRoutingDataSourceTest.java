@@ -0,0 +1,210 @@
+package com.example.database.pool;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private Stub primary;
+    private Stub replica;
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        primary = new Stub("primary");
+        replica = new Stub("replica");
+        routing = routing("SELECT 0", Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    void connectionPicksItsDatabaseOnFirstUse() throws SQLException {
+        try (Connection connection = routing.getConnection()) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            connection.commit();
+            assertEquals(0, primary.opened.size());
+            assertEquals(0, replica.opened.size());
+
+            assertTrue(connection.createStatement().execute("SELECT 1"));
+            assertEquals(List.of(), primary.opened);
+            assertEquals(1, replica.opened.size());
+            assertEquals(1, routing.replicaReads());
+            Connection physical = replica.opened.get(0);
+            assertEquals(List.of(true), replica.readOnly);
+            assertFalse(physical.getAutoCommit());
+            assertEquals(Connection.TRANSACTION_SERIALIZABLE, physical.getTransactionIsolation());
+        }
+        assertTrue(replica.opened.get(0).isClosed());
+    }
+
+    @Test
+    void connectionLeftReadWriteGoesToThePrimary() throws SQLException {
+        try (Connection connection = routing.getConnection()) {
+            assertTrue(connection.createStatement().execute("SELECT 1"));
+            assertEquals(1, primary.opened.size());
+            assertEquals(0, replica.opened.size());
+            assertEquals(0, routing.replicaReads() + routing.primaryReads());
+        }
+    }
+
+    @Test
+    void settingReadWriteReturnsTheReplicaConnectionAndPicksAgain() throws SQLException {
+        try (Connection connection = routing.getConnection()) {
+            connection.setReadOnly(true);
+            assertTrue(connection.createStatement().execute("SELECT 1"));
+            Connection read = replica.opened.get(0);
+
+            connection.setReadOnly(false);
+            assertTrue(read.isClosed());
+            assertFalse(connection.isReadOnly());
+            assertEquals(0, primary.opened.size());
+
+            assertTrue(connection.createStatement().execute("SELECT 1"));
+            assertEquals(1, primary.opened.size());
+            assertEquals(1, replica.opened.size());
+        }
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaLags() throws Exception {
+        routing.close();
+        routing = routing("SELECT 1", Duration.ZERO);
+        assertEquals(1000, routing.lagMillis(0));
+        assertEquals(0, read());
+        assertEquals(1, primary.opened.size());
+        assertEquals(0, replica.opened.size());
+        assertEquals(1, routing.primaryReads());
+    }
+
+    @Test
+    void busyReplicaStaysInRotation() throws SQLException {
+        replica.failures.add(new SQLTransientConnectionException("connection is not available", "08001"));
+        read();
+        assertEquals(1, routing.primaryReads());
+        read();
+        assertEquals(1, routing.primaryReads());
+        assertEquals(1, routing.replicaReads());
+    }
+
+    @Test
+    void unreachableReplicaLeavesRotation() throws SQLException {
+        replica.failures.add(new SQLNonTransientConnectionException("connection refused", "08001"));
+        read();
+        read();
+        assertEquals(2, routing.primaryReads());
+        assertEquals(0, routing.replicaReads());
+        assertEquals(1, replica.requests);
+    }
+
+    /**
+     * Runs a read-only query and returns its result.
+     */
+    private int read() throws SQLException {
+        try (Connection connection = routing.getConnection()) {
+            connection.setReadOnly(true);
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT 0")) {
+                assertTrue(rs.next());
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Returns a routing source over the stubs once the replica was checked,
+     * forgetting the replica connection the check used.
+     */
+    private ReadWriteRoutingDataSource routing(String lagQuery, Duration maxLag) throws InterruptedException {
+        ReadWriteRoutingDataSource source = new ReadWriteRoutingDataSource(primary.source, List.of(replica.source),
+                lagQuery, maxLag, Duration.ofHours(1));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (source.lagMillis(0) < 0) {
+            assertTrue(System.nanoTime() < deadline, "replica not checked");
+            Thread.sleep(1);
+        }
+        replica.opened.clear();
+        replica.readOnly.clear();
+        replica.requests = 0;
+        return source;
+    }
+
+    /**
+     * An H2 database behind a source that records the connections it hands
+     * out and the read-only settings made on them, and fails the requests
+     * it is told to. H2 itself ignores read-only.
+     */
+    private static final class Stub {
+
+        final List<Connection> opened = new CopyOnWriteArrayList<>();
+        final List<Boolean> readOnly = new CopyOnWriteArrayList<>();
+        final Queue<SQLException> failures = new ConcurrentLinkedQueue<>();
+        volatile int requests;
+        final DataSource source;
+
+        Stub(String name) {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:read-write-" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+            source = (DataSource) Proxy.newProxyInstance(ReadWriteRoutingDataSourceTest.class.getClassLoader(),
+                    new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("getConnection")) {
+                            requests++;
+                            SQLException failure = failures.poll();
+                            if (failure != null) {
+                                throw failure;
+                            }
+                            Connection connection = recording(h2.getConnection());
+                            opened.add(connection);
+                            return connection;
+                        }
+                        return forward(h2, method, args);
+                    });
+        }
+
+        private Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(ReadWriteRoutingDataSourceTest.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("setReadOnly")) {
+                            readOnly.add((Boolean) args[0]);
+                        }
+                        return forward(connection, method, args);
+                    });
+        }
+
+        private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.database.pool;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenantRoutingDataSourceTest {
+
+    private TenantRoutingDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new TenantRoutingDataSource(1, () -> "a", Duration.ofSeconds(10), Duration.ofMinutes(5));
+        pool.addTenant("a", h2("tenant-a"), 1);
+        pool.addTenant("b", h2("tenant-b"), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void returnedConnectionGoesToTheWaitingTenant() throws Exception {
+        Connection a = pool.getConnection("a");
+        CompletableFuture<Connection> b = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.getConnection("b");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        awaitWaiting(1);
+        a.close();
+        try (Connection granted = b.get(5, TimeUnit.SECONDS)) {
+            assertTrue(granted.isValid(1));
+            assertEquals(0, pool.held("a"));
+            assertEquals(1, pool.held("b"));
+            assertEquals(0, pool.idle());
+        }
+    }
+
+    @Test
+    void returnedConnectionStaysIdleWhenNobodyWaits() throws Exception {
+        pool.getConnection("a").close();
+        assertEquals(1, pool.held("a"));
+        assertEquals(1, pool.idle());
+        try (Connection b = pool.getConnection("b")) {
+            assertTrue(b.isValid(1));
+            assertEquals(0, pool.held("a"));
+            assertEquals(1, pool.held("b"));
+        }
+    }
+
+    private void awaitWaiting(int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.waiting() < waiting) {
+            assertTrue(System.nanoTime() < deadline, "no thread started waiting");
+            Thread.sleep(1);
+        }
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return h2;
+    }
+}
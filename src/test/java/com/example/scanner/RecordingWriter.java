@@ -0,0 +1,27 @@
+package com.example.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the paths it is given, in the order it is given them.
+ */
+final class RecordingWriter implements FindingWriter {
+
+    final List<String> paths = new ArrayList<>();
+
+    @Override
+    public void start(List<Rule> rules) {
+        // nothing to begin
+    }
+
+    @Override
+    public void write(FileResult file) {
+        paths.add(file.path());
+    }
+
+    @Override
+    public void close() {
+        // nothing to complete
+    }
+}
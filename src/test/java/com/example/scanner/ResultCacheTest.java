@@ -0,0 +1,159 @@
+package com.example.scanner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultCacheTest {
+
+    private final AtomicInteger evaluated = new AtomicInteger();
+    private Path dir;
+    private Path cacheFile;
+    private ScanEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("result-cache");
+        cacheFile = dir.resolve("scan.cache");
+        engine = new ScanEngine(List.of(TestRules.counting(evaluated)), 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        engine.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void savedResultsAreReusedWithoutEvaluating() throws IOException {
+        List<Path> files = List.of(source("A.java", "class A {\n}\n"), source("B.java", "class B {}\n"));
+        ResultCache cache = ResultCache.open(cacheFile, "1");
+        ScanReport first = engine.scan(files, cache);
+        cache.save();
+        assertEquals(2, evaluated.get());
+
+        ResultCache reopened = ResultCache.open(cacheFile, "1");
+        assertEquals(2, reopened.size());
+        ScanReport second = engine.scan(files, reopened);
+        assertEquals(2, evaluated.get());
+        assertEquals(2, second.reusedCount());
+        assertEquals(messages(first), messages(second));
+        assertEquals(List.of("3 lines", "2 lines"), messages(second));
+    }
+
+    @Test
+    void changedFileIsScannedAgainAndOnlyIt() throws IOException {
+        Path a = source("A.java", "class A {}\n");
+        Path b = source("B.java", "class B {}\n");
+        ResultCache cache = ResultCache.open(cacheFile, "1");
+        engine.scan(List.of(a, b), cache);
+        Files.write(a, "class A {\n\n}\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(a, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 2000));
+        evaluated.set(0);
+
+        ScanReport report = engine.scan(List.of(a, b), cache);
+        assertEquals(1, evaluated.get());
+        assertEquals(1, report.reusedCount());
+        assertEquals(List.of("4 lines", "2 lines"), messages(report));
+    }
+
+    @Test
+    void touchedFileWithTheSameContentIsReused() throws IOException {
+        Path a = source("A.java", "class A {}\n");
+        ResultCache cache = ResultCache.open(cacheFile, "1");
+        engine.scan(List.of(a), cache);
+        Files.setLastModifiedTime(a, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 2000));
+        evaluated.set(0);
+
+        assertEquals(1, engine.scan(List.of(a), cache).reusedCount());
+        assertEquals(0, evaluated.get());
+    }
+
+    @Test
+    void deletedFileLeavesTheCache() throws IOException {
+        Path a = source("A.java", "class A {}\n");
+        Path b = source("B.java", "class B {}\n");
+        ResultCache cache = ResultCache.open(cacheFile, "1");
+        engine.scan(List.of(a, b), cache);
+        Files.delete(b);
+        engine.scan(List.of(a), cache);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void cacheOfAnotherRuleSetVersionStartsEmpty() throws IOException {
+        ResultCache cache = ResultCache.open(cacheFile, "1");
+        engine.scan(List.of(source("A.java", "class A {}\n")), cache);
+        cache.save();
+        assertEquals(0, ResultCache.open(cacheFile, "2").size());
+    }
+
+    @Test
+    void truncatedCacheStartsEmpty() throws IOException {
+        ResultCache cache = ResultCache.open(cacheFile, "1");
+        engine.scan(List.of(source("A.java", "class A {}\n"), source("B.java", "class B {}\n")), cache);
+        cache.save();
+        byte[] saved = Files.readAllBytes(cacheFile);
+        for (int length = 0; length < saved.length; length++) {
+            Files.write(cacheFile, Arrays.copyOf(saved, length));
+            assertEquals(0, ResultCache.open(cacheFile, "1").size(), "truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void corruptCountsStartEmpty() throws IOException {
+        for (int count : new int[]{-1, Integer.MAX_VALUE, 1000}) {
+            Files.write(cacheFile, header("1", count));
+            assertEquals(0, ResultCache.open(cacheFile, "1").size(), "count " + count);
+        }
+    }
+
+    @Test
+    void missingCacheStartsEmpty() {
+        assertEquals(0, ResultCache.open(cacheFile, "1").size());
+    }
+
+    /**
+     * Returns the start of a cache file claiming {@code count} entries that
+     * are not there.
+     */
+    private static byte[] header(String version, int count) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x53514A43);
+            out.writeInt(2);
+            out.writeUTF(version);
+            out.writeInt(count);
+            out.write(new byte[64]);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Path source(String name, String text) throws IOException {
+        return Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> messages(ScanReport report) {
+        return report.findings().stream().map(Finding::message).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.scanner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ScanPipelineTest {
+
+    private Path root;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createTempDirectory("scan-pipeline");
+        for (int d = 0; d < 3; d++) {
+            Path directory = Files.createDirectory(root.resolve("dir" + d));
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(directory.resolve("Source" + i + ".java"), "class Source" + i + " { }");
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void writesFilesInWalkOrder() throws IOException {
+        RecordingWriter writer = new RecordingWriter();
+        try (ScanEngine engine = new ScanEngine(List.of(), 2)) {
+            assertEquals(15, engine.scanTree(List.of(root), writer, 3).fileCount());
+        }
+        assertEquals(root.resolve("dir0").resolve("Source0.java").toString(), writer.paths.get(0));
+        assertEquals(root.resolve("dir2").resolve("Source4.java").toString(), writer.paths.get(14));
+    }
+
+    @Test
+    void ruleThrowingAnErrorAbortsTheScan() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (ScanEngine engine = new ScanEngine(List.of(TestRules.failing()), 2)) {
+                AssertionError failure = assertThrows(AssertionError.class,
+                        () -> engine.scanTree(List.of(root), new RecordingWriter(), 3));
+                assertEquals("rule broke", failure.getMessage());
+            }
+        });
+    }
+}
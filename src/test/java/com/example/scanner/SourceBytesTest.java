@@ -0,0 +1,151 @@
+package com.example.scanner;
+
+import com.example.scanner.rule.RuleCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceBytesTest {
+
+    private static final String BOM = "\ufeff";
+
+    private static final String NON_ASCII = "// Gr\u00f6\u00dfe \u2013 \u691c\u7d22 \u2713\n"
+            + "class \u00dcberpr\u00fcfung { String stra\u00dfe = \"Gr\u00f6\u00dfe \u2013 \u00bfqu\u00e9?\"; int \u00c4ndErUng = 1; }\n";
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("source-bytes");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void smallFilesShareTheThreadsBuffer() throws IOException {
+        Path first = file("First.java", "class First { String s = \"Gr\u00f6\u00dfe\"; }\n");
+        Path second = file("Second.java", "class Second { int n = 22; }\n");
+
+        SourceBytes read = SourceBytes.read(first);
+        SourceBytes owned = SourceBytes.readOwned(first);
+        assertFalse(read.buffer().isDirect());
+        assertEquals(Files.size(first), read.size());
+        assertEquals("class First { String s = \"Gr\u00f6\u00dfe\"; }\n", read.decode());
+
+        SourceBytes next = SourceBytes.read(second);
+        assertEquals("class Second { int n = 22; }\n", next.decode());
+        assertTrue(read.decode().startsWith("class Second"), "the earlier view is reused by the next read");
+        assertEquals("class First { String s = \"Gr\u00f6\u00dfe\"; }\n", owned.decode());
+    }
+
+    @Test
+    void filesLargerThanTheBufferAreReadWhole() throws IOException {
+        String text = lines(200_000);
+        SourceBytes read = SourceBytes.read(file("Medium.java", text));
+        assertFalse(read.buffer().isDirect());
+        assertEquals(text, read.decode());
+        assertEquals(text, SourceBytes.readOwned(file("Medium2.java", text)).decode());
+    }
+
+    @Test
+    void largeFilesAreMappedAndOutliveLaterReads() throws IOException {
+        String text = lines(SourceBytes.MAP_THRESHOLD + 100);
+        SourceBytes mapped = SourceBytes.read(file("Large.java", text));
+        assertTrue(mapped.buffer().isDirect());
+        assertEquals(text.length(), mapped.size());
+
+        SourceBytes.read(file("Small.java", "class Small {}\n"));
+        assertEquals(text, mapped.decode());
+        assertTrue(SourceBytes.readOwned(file("Large2.java", text)).buffer().isDirect());
+    }
+
+    /**
+     * Reads each fixture as it is, behind a byte order mark, among non-ASCII
+     * text and with non-ASCII punctuation against the words in its strings
+     * and comments, which Java does not count as part of a word but the
+     * filter, seeing only bytes, does. A rule matches a file when it finds something and the
+     * decoded text contains one of its required symbols as a whole word, so
+     * no rule the filter built from the bytes drops may match.
+     */
+    @Test
+    void prefilterNeverDropsAMatchingRule() throws IOException {
+        List<Rule> rules = RuleCatalog.defaultRules();
+        int dropped = 0;
+        try (ScanEngine engine = new ScanEngine(rules, 1)) {
+            for (Path fixture : ScanEngine.collectSources(Paths.get("testdata"))) {
+                String text = new String(Files.readAllBytes(fixture), StandardCharsets.UTF_8);
+                String name = fixture.getFileName().toString();
+                String punctuated = text.replace("\"", "\"\u00a0").replace("// ", "//\u2014");
+                for (String variant : List.of(text, BOM + text, NON_ASCII + text + NON_ASCII,
+                        BOM + NON_ASCII + text, punctuated)) {
+                    SourceBytes bytes = SourceBytes.read(file(name, variant));
+                    List<Rule> applicable = engine.applicableRules(bytes.symbols());
+                    SourceFile source = null;
+                    for (Rule rule : rules) {
+                        if (applicable.contains(rule)) {
+                            continue;
+                        }
+                        dropped++;
+                        if (source == null) {
+                            source = SourceFile.parse(name, bytes.decode());
+                        }
+                        if (containsAny(source.text(), rule.requiredSymbols())) {
+                            List<Finding> findings = new ArrayList<>();
+                            rule.evaluate(source, findings);
+                            assertEquals(List.of(), findings, rule.id() + " matches " + name
+                                    + " but the prefilter dropped it");
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(dropped > 0, "the prefilter dropped nothing");
+    }
+
+    private static boolean containsAny(String text, Set<String> symbols) {
+        for (String symbol : symbols) {
+            for (int at = text.indexOf(symbol); at >= 0; at = text.indexOf(symbol, at + 1)) {
+                int end = at + symbol.length();
+                if ((at == 0 || !Character.isJavaIdentifierPart(text.charAt(at - 1)))
+                        && (end == text.length() || !Character.isJavaIdentifierPart(text.charAt(end)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Path file(String name, String text) throws IOException {
+        return Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String lines(int length) {
+        StringBuilder text = new StringBuilder(length + 64);
+        for (int i = 0; text.length() < length; i++) {
+            text.append("    String field").append(i).append(" = \"SELECT ").append(i).append("\";\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.scanner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class StreamingScanTest {
+
+    private Path root;
+    private final List<Path> files = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createTempDirectory("streaming-scan");
+        for (int i = 0; i < 20; i++) {
+            files.add(Files.writeString(root.resolve("Source" + i + ".java"), "class Source" + i + " { }"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void writesEveryFileInOrder() throws IOException {
+        RecordingWriter writer = new RecordingWriter();
+        try (ScanEngine engine = new ScanEngine(List.of(), 4)) {
+            assertEquals(20, engine.scan(files, writer).fileCount());
+        }
+        List<String> expected = new ArrayList<>();
+        files.forEach(file -> expected.add(file.toString()));
+        assertEquals(expected, writer.paths);
+    }
+
+    @Test
+    void ruleThrowingAnErrorAbortsTheScan() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (ScanEngine engine = new ScanEngine(List.of(TestRules.failing()), 4)) {
+                AssertionError failure = assertThrows(AssertionError.class,
+                        () -> engine.scan(files, new RecordingWriter()));
+                assertEquals("rule broke", failure.getMessage());
+            }
+        });
+    }
+}
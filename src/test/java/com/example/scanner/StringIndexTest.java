@@ -0,0 +1,111 @@
+package com.example.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringIndexTest {
+
+    @Test
+    void concatenationAcrossLinesIsOneEntry() {
+        StringIndex index = index(
+                "class A {\n"
+                + "    void find(Connection c, String id) throws SQLException {\n"
+                + "        String sql = \"SELECT name \"\n"
+                + "                + \"FROM users \"\n"
+                + "                + \"WHERE id = \" + id;\n"
+                + "        c.prepareStatement(sql);\n"
+                + "    }\n"
+                + "}\n");
+        assertEquals(List.of("SELECT name FROM users WHERE id = ?"), texts(index));
+        assertTrue(index.tainted(0));
+        assertEquals(0, index.entryOf(0));
+        assertEquals(0, index.entryOf(1));
+        assertEquals(0, index.entryOf(2));
+    }
+
+    @Test
+    void buildersAndConstantsFoldIntoTheirStatement() {
+        StringIndex index = index(
+                "class B {\n"
+                + "    static final String TABLE = \"orders\";\n"
+                + "    void update(int n) {\n"
+                + "        String select = \"SELECT * FROM \" + TABLE;\n"
+                + "        StringBuilder sql = new StringBuilder(\"UPDATE t SET \");\n"
+                + "        sql.append(\"x = \").append(n)\n"
+                + "           .append(\" WHERE 1=1\");\n"
+                + "    }\n"
+                + "}\n");
+        assertEquals(List.of("orders", "SELECT * FROM orders", "UPDATE t SET x = ? WHERE 1=1"), texts(index));
+        assertFalse(index.tainted(1));
+        assertTrue(index.tainted(2));
+    }
+
+    @Test
+    void variablesDoNotCrossMethodBoundaries() {
+        StringIndex index = index(
+                "class C {\n"
+                + "    void first() {\n"
+                + "        String sql = \"SELECT * FROM a\";\n"
+                + "        sql += \" WHERE x = 1\";\n"
+                + "        StringBuilder builder = new StringBuilder();\n"
+                + "        builder.append(\"SELECT \");\n"
+                + "    }\n"
+                + "    void second() {\n"
+                + "        sql += \" WHERE y = 2\";\n"
+                + "        builder.append(\"FROM t\");\n"
+                + "    }\n"
+                + "    void third() {\n"
+                + "        String sql = \"DELETE FROM b\";\n"
+                + "        sql += \" WHERE z = 3\";\n"
+                + "    }\n"
+                + "}\n");
+        assertEquals(List.of("SELECT * FROM a WHERE x = 1", "SELECT ", " WHERE y = 2", "FROM t",
+                "DELETE FROM b WHERE z = 3"), texts(index));
+    }
+
+    @Test
+    void literalsOutsideAConcatenationStayApart() {
+        StringIndex index = index(
+                "class D {\n"
+                + "    void misc(boolean cond) {\n"
+                + "        log(\"done\");\n"
+                + "        String call = \"a\" + quote(\"b\") + \"c\";\n"
+                + "        String method = \"x\".toUpperCase() + \"y\";\n"
+                + "        String choice = cond ? \"p\" : \"q\";\n"
+                + "        String mixed = \"1\" + 2 + 'c';\n"
+                + "    }\n"
+                + "}\n");
+        assertEquals(List.of("done", "a?c", "b", "x", "y", "p", "q", "12c"), texts(index));
+        assertTrue(index.tainted(1));
+        assertFalse(index.tainted(2));
+        assertEquals(1, index.entryOf(1));
+        assertEquals(2, index.entryOf(2));
+        assertEquals(1, index.entryOf(3));
+    }
+
+    @Test
+    void offsetsPointAtTheFirstOperand() {
+        String text = "class E {\n    String sql = \"SELECT 1\"\n        + \" FROM dual\";\n}\n";
+        StringIndex index = index(text);
+        assertEquals(1, index.size());
+        assertEquals(text.indexOf("\"SELECT"), index.offset(0));
+    }
+
+    private static StringIndex index(String text) {
+        return StringIndex.of(SourceFile.parse("Test.java", text));
+    }
+
+    private static List<String> texts(StringIndex index) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            texts.add(index.text(i));
+        }
+        return texts;
+    }
+}
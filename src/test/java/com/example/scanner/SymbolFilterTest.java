@@ -0,0 +1,45 @@
+package com.example.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SymbolFilterTest {
+
+    @Test
+    void containsIdentifiersAndDottedPairs() {
+        SymbolFilter filter = filter("import org.hibernate.Session; // jdbc\nclass A { String s = \"x\"; }");
+        assertTrue(filter.mightContain("org"));
+        assertTrue(filter.mightContain("org.hibernate"));
+        assertTrue(filter.mightContain("hibernate.Session"));
+        assertTrue(filter.mightContain("jdbc"));
+        assertFalse(filter.mightContain("hibernate.jdbc"));
+    }
+
+    @Test
+    void largeFilesKeepFalsePositivesRare() {
+        StringBuilder source = new StringBuilder("class Large {\n");
+        for (int i = 0; i < 20_000; i++) {
+            source.append("    int field").append(i).append(" = other").append(i).append(";\n");
+        }
+        SymbolFilter filter = filter(source.append("}\n").toString());
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(filter.mightContain("field" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, falsePositives + " false positives in 10000");
+    }
+
+    private static SymbolFilter filter(String source) {
+        return SymbolFilter.of(ByteBuffer.wrap(source.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
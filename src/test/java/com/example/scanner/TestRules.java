@@ -0,0 +1,59 @@
+package com.example.scanner;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rules that exercise the engine rather than find anything.
+ */
+final class TestRules {
+
+    private TestRules() {
+    }
+
+    /**
+     * Returns a rule that fails every file with an {@link AssertionError}.
+     */
+    static Rule failing() {
+        return new Rule() {
+            @Override
+            public String id() {
+                return "test-001";
+            }
+
+            @Override
+            public String name() {
+                return "Failing";
+            }
+
+            @Override
+            public void evaluate(SourceFile source, List<Finding> findings) {
+                throw new AssertionError("rule broke");
+            }
+        };
+    }
+
+    /**
+     * Returns a rule that reports each file's line count at its first line
+     * and counts the files it evaluates.
+     */
+    static Rule counting(AtomicInteger evaluated) {
+        return new Rule() {
+            @Override
+            public String id() {
+                return "test-002";
+            }
+
+            @Override
+            public String name() {
+                return "Counting";
+            }
+
+            @Override
+            public void evaluate(SourceFile source, List<Finding> findings) {
+                evaluated.incrementAndGet();
+                findings.add(new Finding(id(), name(), source.path(), 1, 1, source.lineCount() + " lines"));
+            }
+        };
+    }
+}
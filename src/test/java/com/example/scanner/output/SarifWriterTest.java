@@ -0,0 +1,112 @@
+package com.example.scanner.output;
+
+import com.example.scanner.FileResult;
+import com.example.scanner.Finding;
+import com.example.scanner.Rule;
+import com.example.scanner.SourceFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SarifWriterTest {
+
+    private static final Rule RULE = new Rule() {
+        @Override
+        public String id() {
+            return "sql-001";
+        }
+
+        @Override
+        public String name() {
+            return "Concatenated SQL";
+        }
+
+        @Override
+        public void evaluate(SourceFile source, List<Finding> findings) {
+            // never run here
+        }
+    };
+
+    private final StringWriter out = new StringWriter();
+    private final SarifWriter writer = new SarifWriter(out, "scanner", "1.0");
+
+    @Test
+    void completedRunIsSuccessful() throws IOException {
+        writer.start(List.of(RULE));
+        writer.write(FileResult.of("src/A.java", 10,
+                List.of(new Finding("sql-001", "Concatenated SQL", "src/A.java", 3, 5, "found"))));
+        writer.close();
+        String log = out.toString();
+        assertTrue(log.contains("\"ruleId\":\"sql-001\",\"ruleIndex\":0"), log);
+        assertTrue(log.contains("\"executionSuccessful\":true,\"toolExecutionNotifications\":[]"), log);
+        assertBalanced(log);
+    }
+
+    @Test
+    void abortedRunIsUnsuccessfulAndComplete() throws IOException {
+        writer.start(List.of(RULE));
+        writer.write(FileResult.failed("src/B.java", "java.io.IOException: unreadable"));
+        writer.abort(new IllegalStateException("rule broke"));
+        writer.close();
+        String log = out.toString();
+        assertTrue(log.contains("\"executionSuccessful\":false"), log);
+        assertTrue(log.contains("\"text\":\"java.io.IOException: unreadable\""), log);
+        assertTrue(log.contains("\"text\":\"scan aborted: java.lang.IllegalStateException: rule broke\""), log);
+        assertTrue(log.contains(
+                "\"exception\":{\"kind\":\"java.lang.IllegalStateException\",\"message\":\"rule broke\"}"), log);
+        assertBalanced(log);
+    }
+
+    @Test
+    void runAbortedBeforeItStartedWritesNothing() throws IOException {
+        writer.abort(new IOException("cache unreadable"));
+        writer.close();
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void abortWithoutMessageLeavesItOut() throws IOException {
+        writer.start(List.of(RULE));
+        writer.abort(new OutOfMemoryError());
+        writer.close();
+        String log = out.toString();
+        assertTrue(log.contains("\"exception\":{\"kind\":\"java.lang.OutOfMemoryError\"}"), log);
+        assertFalse(log.contains("\"message\":null"), log);
+        assertBalanced(log);
+    }
+
+    /**
+     * Checks that the brackets outside strings pair up, which the tail
+     * written without a head, or no tail, would break.
+     */
+    private static void assertBalanced(String json) {
+        StringBuilder open = new StringBuilder();
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                open.append(c);
+            } else if (c == '}' || c == ']') {
+                assertTrue(open.length() > 0, json);
+                assertEquals(c == '}' ? '{' : '[', open.charAt(open.length() - 1), json);
+                open.setLength(open.length() - 1);
+            }
+        }
+        assertEquals(0, open.length(), json);
+        assertTrue(json.startsWith("{") && json.endsWith("}\n"), json);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.scanner.rule;
+
+import com.example.scanner.ScanEngine;
+import com.example.scanner.SourceFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequiredLiteralsTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "\\bgetConnection\\s*\\(\\s*\"",
+            "\\bsetQueryTimeout\\s*\\(|[\"?&;](queryTimeout|socketTimeout)=|\\bsetDefaultQueryTimeout\\s*\\(",
+            "\\b\\w*([uU]ser|[pP]assword|USER|PASSWORD)\\w*\\s*=\\s*\"",
+            "\\bset(Jdbc)?(Url|URL)\\s*\\(|\"jdbc:\\w+:",
+            "@Value\\s*\\(\\s*\"\\$\\{|@ConfigurationProperties\\b",
+            "\\bAUDIT\\b|\\b[aA]udit\\w*\\s*[.(]|\\bAudit\\w+",
+            "\\bnew\\s+(?:Prepared)?Statement\\b|execute(?!Batch)\\w*\\s*\\(",
+            "(?<kind>Connection|Statement)(?<!Pooled)\\s+\\w+\\s*=",
+            "catch\\s*\\(\\s*(?:final\\s+)?(SQL|Data)\\w*Exception\\b");
+
+    @Test
+    void runsOfPlainCharactersAreRequired() {
+        assertLiterals("\\bgetConnection\\s*\\(\\s*\"", "getConnection");
+        assertLiterals("\\$\\{jdbc\\.\\w+\\}", "${jdbc.");
+        assertLiterals("colou?r", "colo");
+        assertLiterals("abc+d", "abc");
+        assertLiterals("\\pLabc\\p{Lu}", "abc");
+    }
+
+    @Test
+    void everyAlternativeContributes() {
+        assertLiterals("\\bsetQueryTimeout\\s*\\(|[\"?&;](queryTimeout|socketTimeout)=|\\bsetDefaultQueryTimeout\\s*\\(",
+                "setQueryTimeout", "queryTimeout", "socketTimeout", "setDefaultQueryTimeout");
+        assertLiterals("\\b\\w*([uU]ser|[pP]assword|USER|PASSWORD)\\w*\\s*=\\s*\"",
+                "ser", "assword", "USER", "PASSWORD");
+        assertLiterals("(?:ab|cd)?xyz|(?<name>uvw)", "xyz", "uvw");
+    }
+
+    @Test
+    void patternsWithoutASafeLiteralAlwaysRun() {
+        assertLiterals("\\w+\\s*\\(");
+        assertLiterals("\\$\\{\\w+\\}");
+        assertLiterals("abc|\\d+");
+        assertLiterals("(?!abc)\\w+");
+        assertLiterals("(abc)?\\w+");
+        assertLiterals("(?i)ldap");
+        assertLiterals("xyz(?i)abc");
+        assertLiterals("\\x41BCD");
+        assertLiterals("\\u0041BCD");
+        assertLiterals("\\QABCD\\E");
+        assertEquals(0, RequiredLiterals.of(Pattern.compile("ldap", Pattern.CASE_INSENSITIVE)).length);
+    }
+
+    @Test
+    void noMatchInTheFixturesLacksTheLiterals() throws IOException {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : PATTERNS) {
+            patterns.add(Pattern.compile(regex));
+        }
+        int matched = 0;
+        for (Path fixture : ScanEngine.collectSources(Paths.get("testdata"))) {
+            String text = new String(Files.readAllBytes(fixture), StandardCharsets.UTF_8);
+            SourceFile source = SourceFile.parse(fixture.toString(), text);
+            for (Pattern pattern : patterns) {
+                String[] literals = RequiredLiterals.of(pattern);
+                for (String code : List.of(source.code(), source.skeleton())) {
+                    if (pattern.matcher(code).find()) {
+                        matched++;
+                        assertTrue(RequiredLiterals.mayMatch(literals, code), pattern + " matches " + fixture);
+                    }
+                }
+            }
+        }
+        assertTrue(matched > 0, "no pattern matched the fixtures");
+    }
+
+    private static void assertLiterals(String regex, String... expected) {
+        assertEquals(List.of(expected), List.of(RequiredLiterals.of(Pattern.compile(regex))), regex);
+    }
+}